@@ -0,0 +1,68 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A small, typical item shape shared by the benchmarks.
+ */
+final class BenchmarkItems {
+    private BenchmarkItems() {
+    }
+
+    static Map<String, AttributeValue> item(int i) {
+        Map<String, AttributeValue> nested = new HashMap<>();
+        nested.put("name", new AttributeValue("player-" + i));
+        nested.put("level", new AttributeValue().withN(Integer.toString(i % 100)));
+
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("hashKey", new AttributeValue("hk" + i));
+        item.put("rangeKey", new AttributeValue("rk" + i));
+        item.put("count", new AttributeValue().withN(Integer.toString(i)));
+        item.put("tags", new AttributeValue().withSS("red", "green", "blue"));
+        item.put("profile", new AttributeValue().withM(nested));
+        return item;
+    }
+
+    /**
+     * A document with {@code width} top-level fields of every scalar type, each with a nested object, a string array, a
+     * number array and an array of objects.
+     */
+    static JsonNode document(ObjectMapper objectMapper, int width) {
+        ObjectNode document = objectMapper.createObjectNode();
+        for (int i = 0; i < width; i++) {
+            document.put("s" + i, "value-" + i);
+            document.put("n" + i, i * 31);
+            document.put("b" + i, i % 2 == 0);
+
+            ObjectNode nested = document.putObject("m" + i);
+            nested.put("name", "player-" + i);
+            nested.put("score", i * 1.5);
+
+            ArrayNode strings = document.putArray("ss" + i);
+            ArrayNode numbers = document.putArray("ns" + i);
+            ArrayNode objects = document.putArray("l" + i);
+            for (int j = 0; j < 5; j++) {
+                strings.add("tag-" + j);
+                numbers.add(j);
+                objects.addObject().put("id", j).put("label", "item-" + j);
+            }
+        }
+        return document;
+    }
+
+    public static class Item {
+        public String hashKey;
+        public String rangeKey;
+        public int count;
+        public List<String> tags;
+        public Map<String, Object> profile;
+    }
+}
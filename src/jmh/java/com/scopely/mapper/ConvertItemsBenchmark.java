@@ -0,0 +1,73 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Page conversion time, sequential versus on a ForkJoinPool, by page size. The page size where {@code parallel}
+ * overtakes {@code sequential} is the crossover to use as the parallel decode threshold on a given machine:
+ *
+ * <pre>{@code ./gradlew jmh}</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConvertItemsBenchmark {
+    @Param({"8", "32", "64", "128", "256", "1024", "4096"})
+    public int pageSize;
+
+    private ForkJoinPool pool;
+    private JsonDynamoMapper sequential;
+    private JsonDynamoMapper parallel;
+    private List<Map<String, AttributeValue>> page;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pool = new ForkJoinPool();
+        sequential = new JsonDynamoMapper(null);
+        parallel = new JsonDynamoMapper(null, new JsonDynamoMapperConfig()
+                .withDecodePool(pool)
+                .withParallelDecodeThreshold(1));
+
+        page = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            page.add(BenchmarkItems.item(i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<BenchmarkItems.Item> sequential() {
+        return sequential.convertItems(BenchmarkItems.Item.class, page);
+    }
+
+    @Benchmark
+    public List<BenchmarkItems.Item> parallel() {
+        return parallel.convertItems(BenchmarkItems.Item.class, page);
+    }
+}
@@ -0,0 +1,51 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding of a wide, nested document, against the previous encoder. Run with the GC profiler configured in
+ * build.gradle to compare {@code gc.alloc.rate.norm}, the bytes allocated per encoded document.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodeBenchmark {
+    @Param({"10", "100"})
+    public int width;
+
+    private JsonNode document;
+
+    @Setup
+    public void setUp() {
+        document = BenchmarkItems.document(new ObjectMapper(), width);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> current() {
+        return JsonNodeAttributeValueMapper.convert(document);
+    }
+
+    @Benchmark
+    public Map<String, AttributeValue> legacy() {
+        return LegacyJsonNodeEncoder.convert(document);
+    }
+}
@@ -0,0 +1,116 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeType;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The encoder JsonNodeAttributeValueMapper used before it was made allocation-lean, kept as the benchmark baseline.
+ */
+final class LegacyJsonNodeEncoder {
+    private LegacyJsonNodeEncoder() {
+    }
+
+    static Map<String, AttributeValue> convert(JsonNode node) throws MappingException {
+        return makeAVMapForObject(node);
+    }
+
+    private static Optional<AttributeValue> makeAV(JsonNode node) throws MappingException {
+        JsonNodeType nodeType = node.getNodeType();
+
+        AttributeValue attributeValue = new AttributeValue();
+
+        switch (nodeType) {
+            case NULL:
+                attributeValue.setNULL(true);
+                return Optional.of(attributeValue);
+            case BOOLEAN:
+                attributeValue.setBOOL(node.asBoolean());
+                return Optional.of(attributeValue);
+            case STRING:
+                if (node.asText().isEmpty()) {
+                    attributeValue.setNULL(true);
+                } else {
+                    attributeValue.setS(node.asText());
+                }
+                return Optional.of(attributeValue);
+            case NUMBER:
+                attributeValue.setN(node.asText());
+                return Optional.of(attributeValue);
+            case OBJECT:
+                attributeValue.setM(makeAVMapForObject(node));
+                return Optional.of(attributeValue);
+            case ARRAY:
+                return setAVForArray(node, attributeValue);
+            case BINARY:
+                try {
+                    attributeValue.setB(ByteBuffer.wrap(node.binaryValue()));
+                    return Optional.of(attributeValue);
+                } catch (IOException e) {
+                    throw new MappingException("Binary node exception", e);
+                }
+            case MISSING:
+            default:
+                throw new MappingException("Unsupported exception " + nodeType);
+        }
+    }
+
+    private static Optional<AttributeValue> setAVForArray(JsonNode node, AttributeValue value) throws MappingException {
+        ImmutableList<JsonNode> jsonNodes = ImmutableList.copyOf(node.elements());
+
+        if (jsonNodes.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Set<JsonNodeType> types = jsonNodes.stream().map(JsonNode::getNodeType).collect(Collectors.toSet());
+
+        if (types.size() > 1) {
+            throw new MappingException("Mismatched types: " + types);
+        }
+
+        JsonNodeType type = types.iterator().next();
+
+        switch (type) {
+            case STRING:
+                value.setSS(jsonNodes.stream().map(JsonNode::asText).collect(Collectors.toList()));
+                return Optional.of(value);
+            case NUMBER:
+                value.setNS(jsonNodes.stream().map(JsonNode::asText).collect(Collectors.toList()));
+                return Optional.of(value);
+            case OBJECT:
+                ImmutableList.Builder<AttributeValue> list = ImmutableList.builder();
+                for (JsonNode jsonNode : jsonNodes) {
+                    list.add(new AttributeValue().withM(makeAVMapForObject(jsonNode)));
+                }
+                value.setL(list.build());
+                return Optional.of(value);
+            default:
+                throw new MappingException("Unsupported list type " + type);
+        }
+    }
+
+    private static Map<String, AttributeValue> makeAVMapForObject(JsonNode node) throws MappingException {
+        ImmutableMap.Builder<String, AttributeValue> builder = ImmutableMap.builder();
+
+        Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> entry = fields.next();
+            Optional<AttributeValue> attributeValue = makeAV(entry.getValue());
+            if (attributeValue.isPresent()) {
+                builder.put(entry.getKey(), attributeValue.get());
+            }
+        }
+
+        return builder.build();
+    }
+}
@@ -0,0 +1,116 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Page conversion time with and without a {@link StringInterner}, and at the end of each trial the heap retained by
+ * about {@value #RETAINED_ITEMS} converted items, which is the number to compare:
+ *
+ * <pre>{@code ./gradlew jmh -Pjmh.includes=StringInternerBenchmark}</pre>
+ *
+ * Items are copied so that their strings aren't shared, as they aren't in items DynamoDB returns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringInternerBenchmark {
+    private static final int PAGE_SIZE = 1024;
+    private static final int RETAINED_ITEMS = 100_000;
+
+    @Param({"false", "true"})
+    public boolean interning;
+
+    private JsonDynamoMapper mapper;
+    private List<Map<String, AttributeValue>> page;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        JsonDynamoMapperConfig config = new JsonDynamoMapperConfig();
+        if (interning) {
+            config.withStringInterner(new StringInterner(1024, "tags"));
+        }
+        mapper = new JsonDynamoMapper(null, config);
+        page = items(PAGE_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void measureRetainedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        long before = usedHeapAfterGc(memory);
+        // Page by page, as scanAll converts them, so that only the converted items are retained
+        List<BenchmarkItems.Item> converted = new ArrayList<>(RETAINED_ITEMS);
+        while (converted.size() < RETAINED_ITEMS) {
+            converted.addAll(mapper.convertItems(BenchmarkItems.Item.class, items(PAGE_SIZE)));
+        }
+        long after = usedHeapAfterGc(memory);
+
+        System.out.printf("%nRetained by %d converted items (interning=%s): %d bytes, %d bytes per item%n",
+                converted.size(), interning, after - before, (after - before) / converted.size());
+    }
+
+    @Benchmark
+    public List<BenchmarkItems.Item> convert() {
+        return mapper.convertItems(BenchmarkItems.Item.class, page);
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static List<Map<String, AttributeValue>> items(int count) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(copy(BenchmarkItems.item(i)));
+        }
+        return items;
+    }
+
+    private static Map<String, AttributeValue> copy(Map<String, AttributeValue> item) {
+        Map<String, AttributeValue> copy = new HashMap<>();
+        for (Map.Entry<String, AttributeValue> entry : item.entrySet()) {
+            copy.put(new String(entry.getKey()), copy(entry.getValue()));
+        }
+        return copy;
+    }
+
+    private static AttributeValue copy(AttributeValue value) {
+        if (value.getS() != null) {
+            return new AttributeValue(new String(value.getS()));
+        } else if (value.getSS() != null) {
+            List<String> strings = new ArrayList<>();
+            value.getSS().forEach(s -> strings.add(new String(s)));
+            return new AttributeValue().withSS(strings);
+        } else if (value.getM() != null) {
+            return new AttributeValue().withM(copy(value.getM()));
+        }
+        return value;
+    }
+}
@@ -0,0 +1,244 @@
+package com.scopely.mapper;
+
+import com.amazonaws.AmazonClientException;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of concurrent DynamoDB requests, adapting the limit with AIMD (additive increase, multiplicative
+ * decrease). The limit grows by one for every {@code limit} successful requests while it is being used, and shrinks by
+ * 10% when a request is throttled, fails with a 5xx error, or takes more than twice the recent minimum latency of
+ * requests of its operation -- at most once per observed round trip. Latencies are compared per operation, since scans,
+ * queries and batch requests routinely take several times as long as the fastest GetItem.
+ *
+ * Requests over the limit wait in a bounded queue for up to the queue timeout, and are otherwise rejected with
+ * {@link ConcurrencyLimitExceededException} without being sent. A queue timeout of 0 rejects immediately.
+ *
+ * A single instance can be shared by several mappers using the same table or client.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class AdaptiveConcurrencyLimiter {
+    private static final int MIN_LIMIT = 1;
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double LATENCY_TOLERANCE = 2.0;
+    private static final int LATENCY_WINDOW_SIZE = 1000;
+
+    private final int maxLimit;
+    private final int maxQueueDepth;
+    private final long queueTimeoutNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitAvailable = lock.newCondition();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private double limit;
+    private int inFlight;
+    private int queueDepth;
+    private boolean decreased;
+    private long lastDecreaseNanos;
+    private final Map<Operation, LatencyBaseline> baselines = new EnumMap<>(Operation.class);
+
+    /**
+     * Initial limit of 20, maximum limit of 200, up to 100 queued requests waiting up to 1 second each.
+     */
+    public AdaptiveConcurrencyLimiter() {
+        this(20, 200, 100, 1000);
+    }
+
+    /**
+     * @param initialLimit       Concurrency limit before any latency has been observed
+     * @param maxLimit           Upper bound of the concurrency limit
+     * @param maxQueueDepth      Maximum number of requests waiting for a permit
+     * @param queueTimeoutMillis Maximum time a request waits for a permit
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int maxLimit, int maxQueueDepth, long queueTimeoutMillis) {
+        if (initialLimit < MIN_LIMIT || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= initialLimit <= maxLimit");
+        }
+        if (maxQueueDepth < 0 || queueTimeoutMillis < 0) {
+            throw new IllegalArgumentException("maxQueueDepth and queueTimeoutMillis can't be negative");
+        }
+
+        this.limit = initialLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueueDepth = maxQueueDepth;
+        this.queueTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis);
+    }
+
+    /**
+     * @return Current concurrency limit
+     */
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Number of requests currently sent to DynamoDB
+     */
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Number of requests currently waiting for a permit
+     */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queueDepth;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Total number of requests rejected since this limiter was created
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    <R> R execute(Supplier<R> request) throws MappingException {
+        return execute(Operation.OTHER, request);
+    }
+
+    /**
+     * @param operation Operation of the request, whose latency is compared with that of other requests of the operation
+     */
+    <R> R execute(Operation operation, Supplier<R> request) throws MappingException {
+        acquire();
+
+        long start = System.nanoTime();
+        boolean overloaded = false;
+        boolean failed = false;
+        try {
+            return request.get();
+        } catch (AmazonClientException e) {
+            overloaded = ExponentialBackoffRetryPolicy.isRetryable(e);
+            failed = true;
+            throw e;
+        } catch (RuntimeException e) {
+            failed = true;
+            throw e;
+        } finally {
+            release(operation, System.nanoTime() - start, overloaded, failed);
+        }
+    }
+
+    private void acquire() throws MappingException {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return;
+            }
+
+            if (queueDepth >= maxQueueDepth || queueTimeoutNanos == 0) {
+                throw reject("Concurrency limit of " + (int) limit + " reached with " + queueDepth + " requests queued");
+            }
+
+            queueDepth++;
+            try {
+                long remainingNanos = queueTimeoutNanos;
+                while (inFlight >= (int) limit) {
+                    if (remainingNanos <= 0) {
+                        throw reject("Timed out waiting for a permit under concurrency limit of " + (int) limit);
+                    }
+                    remainingNanos = permitAvailable.awaitNanos(remainingNanos);
+                }
+                inFlight++;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MappingException("Interrupted while waiting for a permit", e);
+            } finally {
+                queueDepth--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(Operation operation, long latencyNanos, boolean overloaded, boolean failed) {
+        lock.lock();
+        try {
+            inFlight--;
+
+            if (overloaded) {
+                decrease(latencyNanos);
+            } else if (!failed) {
+                long baselineNanos = baselines.computeIfAbsent(operation, o -> new LatencyBaseline()).record(latencyNanos);
+                if (latencyNanos > baselineNanos * LATENCY_TOLERANCE) {
+                    decrease(latencyNanos);
+                } else if (inFlight + 1 >= limit / 2) {
+                    limit = Math.min(maxLimit, limit + 1 / limit);
+                }
+            }
+
+            permitAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void decrease(long latencyNanos) {
+        long now = System.nanoTime();
+        if (decreased && now - lastDecreaseNanos < latencyNanos) {
+            return;
+        }
+
+        limit = Math.max(MIN_LIMIT, limit * BACKOFF_RATIO);
+        decreased = true;
+        lastDecreaseNanos = now;
+    }
+
+    private ConcurrencyLimitExceededException reject(String message) {
+        rejected.incrementAndGet();
+        return new ConcurrencyLimitExceededException(message);
+    }
+
+    /**
+     * DynamoDB operations, each with its own latency baseline
+     */
+    enum Operation {
+        GET_ITEM, PUT_ITEM, DELETE_ITEM, QUERY, SCAN, BATCH_GET_ITEM, BATCH_WRITE_ITEM, OTHER
+    }
+
+    /**
+     * Minimum latency of an operation, guarded by the limiter's lock
+     */
+    private static final class LatencyBaseline {
+        private long windowMinLatencyNanos = Long.MAX_VALUE;
+        private long previousWindowMinLatencyNanos = Long.MAX_VALUE;
+        private int windowSamples;
+
+        /**
+         * @return Minimum latency over the current and previous windows of samples
+         */
+        private long record(long latencyNanos) {
+            windowMinLatencyNanos = Math.min(windowMinLatencyNanos, latencyNanos);
+            if (++windowSamples >= LATENCY_WINDOW_SIZE) {
+                previousWindowMinLatencyNanos = windowMinLatencyNanos;
+                windowMinLatencyNanos = Long.MAX_VALUE;
+                windowSamples = 0;
+            }
+
+            return Math.min(windowMinLatencyNanos, previousWindowMinLatencyNanos);
+        }
+    }
+}
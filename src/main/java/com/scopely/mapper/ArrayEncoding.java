@@ -0,0 +1,18 @@
+package com.scopely.mapper;
+
+/**
+ * How JSON arrays are stored in DynamoDB. Arrays of anything other than only strings or only numbers -- booleans,
+ * nulls, objects, nested arrays, mixed types -- are always stored as lists ({@code L}).
+ */
+public enum ArrayEncoding {
+    /**
+     * Arrays of only strings are stored as string sets ({@code SS}) and arrays of only numbers as number sets
+     * ({@code NS}). Sets don't keep order, and DynamoDB rejects sets with duplicates.
+     */
+    SETS,
+
+    /**
+     * Every array is stored as a list ({@code L}), keeping order and duplicates.
+     */
+    LISTS
+}
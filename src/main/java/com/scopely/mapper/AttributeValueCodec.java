@@ -0,0 +1,280 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of DynamoDB items that, unlike their JSON representation, preserves every AttributeValue
+ * type (sets versus lists, binaries, numbers as written). It's the format of {@link ExportFormat#BINARY} exports.
+ *
+ * An item is encoded as an unsigned varint count of attributes followed by (name, value) pairs. Names, strings,
+ * numbers and binaries are varint length-prefixed bytes (UTF-8 for text). Each value starts with a one-byte type tag;
+ * sets, lists and maps continue with a varint element count followed by their elements.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public final class AttributeValueCodec {
+    private static final byte TAG_S = 1;
+    private static final byte TAG_N = 2;
+    private static final byte TAG_B = 3;
+    private static final byte TAG_SS = 4;
+    private static final byte TAG_NS = 5;
+    private static final byte TAG_BS = 6;
+    private static final byte TAG_M = 7;
+    private static final byte TAG_L = 8;
+    private static final byte TAG_NULL = 9;
+    private static final byte TAG_TRUE = 10;
+    private static final byte TAG_FALSE = 11;
+
+    private AttributeValueCodec() {
+    }
+
+    public static byte[] encode(Map<String, AttributeValue> item) throws MappingException {
+        Output output = new Output(256);
+        encode(item, output);
+        return output.toByteArray();
+    }
+
+    /**
+     * Decodes an item starting at the buffer's position, advancing the position past the item.
+     * @throws MappingException If the buffer doesn't contain a valid item
+     */
+    public static Map<String, AttributeValue> decode(ByteBuffer buffer) throws MappingException {
+        try {
+            return readMap(buffer);
+        } catch (BufferUnderflowException e) {
+            throw new MappingException("Truncated item", e);
+        }
+    }
+
+    static void encode(Map<String, AttributeValue> item, Output output) throws MappingException {
+        output.writeVarint(item.size());
+        for (Map.Entry<String, AttributeValue> entry : item.entrySet()) {
+            output.writeString(entry.getKey());
+            writeValue(entry.getKey(), entry.getValue(), output);
+        }
+    }
+
+    static int readVarint(ByteBuffer buffer) throws MappingException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                if (value < 0) {
+                    break;
+                }
+                return value;
+            }
+        }
+        throw new MappingException("Malformed varint");
+    }
+
+    private static void writeValue(String name, AttributeValue value, Output output) throws MappingException {
+        if (value.getS() != null) {
+            output.writeByte(TAG_S);
+            output.writeString(value.getS());
+        } else if (value.getN() != null) {
+            output.writeByte(TAG_N);
+            output.writeString(value.getN());
+        } else if (value.getB() != null) {
+            output.writeByte(TAG_B);
+            output.writeBytes(value.getB());
+        } else if (value.getSS() != null) {
+            output.writeByte(TAG_SS);
+            output.writeVarint(value.getSS().size());
+            for (String s : value.getSS()) {
+                output.writeString(s);
+            }
+        } else if (value.getNS() != null) {
+            output.writeByte(TAG_NS);
+            output.writeVarint(value.getNS().size());
+            for (String n : value.getNS()) {
+                output.writeString(n);
+            }
+        } else if (value.getBS() != null) {
+            output.writeByte(TAG_BS);
+            output.writeVarint(value.getBS().size());
+            for (ByteBuffer b : value.getBS()) {
+                output.writeBytes(b);
+            }
+        } else if (value.getM() != null) {
+            output.writeByte(TAG_M);
+            encode(value.getM(), output);
+        } else if (value.getL() != null) {
+            output.writeByte(TAG_L);
+            output.writeVarint(value.getL().size());
+            for (AttributeValue element : value.getL()) {
+                writeValue(name, element, output);
+            }
+        } else if (value.getNULL() != null) {
+            output.writeByte(TAG_NULL);
+        } else if (value.getBOOL() != null) {
+            output.writeByte(value.getBOOL() ? TAG_TRUE : TAG_FALSE);
+        } else {
+            throw new MappingException(String.format("Couldn't encode %s => %s", name, value));
+        }
+    }
+
+    private static Map<String, AttributeValue> readMap(ByteBuffer buffer) throws MappingException {
+        int size = readVarint(buffer);
+        Map<String, AttributeValue> map = new HashMap<>(size * 4 / 3 + 1);
+        for (int i = 0; i < size; i++) {
+            String name = readString(buffer);
+            map.put(name, readValue(buffer));
+        }
+        return map;
+    }
+
+    private static AttributeValue readValue(ByteBuffer buffer) throws MappingException {
+        byte tag = buffer.get();
+        switch (tag) {
+            case TAG_S:
+                return new AttributeValue().withS(readString(buffer));
+            case TAG_N:
+                return new AttributeValue().withN(readString(buffer));
+            case TAG_B:
+                return new AttributeValue().withB(ByteBuffer.wrap(readBytes(buffer)));
+            case TAG_SS:
+                return new AttributeValue().withSS(readStrings(buffer));
+            case TAG_NS:
+                return new AttributeValue().withNS(readStrings(buffer));
+            case TAG_BS: {
+                int size = readVarint(buffer);
+                List<ByteBuffer> bs = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    bs.add(ByteBuffer.wrap(readBytes(buffer)));
+                }
+                return new AttributeValue().withBS(bs);
+            }
+            case TAG_M:
+                return new AttributeValue().withM(readMap(buffer));
+            case TAG_L: {
+                int size = readVarint(buffer);
+                List<AttributeValue> l = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    l.add(readValue(buffer));
+                }
+                return new AttributeValue().withL(l);
+            }
+            case TAG_NULL:
+                return new AttributeValue().withNULL(true);
+            case TAG_TRUE:
+                return new AttributeValue().withBOOL(true);
+            case TAG_FALSE:
+                return new AttributeValue().withBOOL(false);
+            default:
+                throw new MappingException("Unknown attribute value tag " + tag);
+        }
+    }
+
+    private static List<String> readStrings(ByteBuffer buffer) throws MappingException {
+        int size = readVarint(buffer);
+        List<String> strings = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            strings.add(readString(buffer));
+        }
+        return strings;
+    }
+
+    private static String readString(ByteBuffer buffer) throws MappingException {
+        int length = readVarint(buffer);
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        if (buffer.hasArray()) {
+            String s = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+            buffer.position(buffer.position() + length);
+            return s;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer) throws MappingException {
+        int length = readVarint(buffer);
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Growable byte array, reused across items to avoid allocating a buffer per item.
+     */
+    static final class Output {
+        private byte[] bytes;
+        private int size;
+
+        Output(int initialCapacity) {
+            this.bytes = new byte[initialCapacity];
+        }
+
+        void reset() {
+            size = 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        byte[] array() {
+            return bytes;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
+
+        void writeByte(int b) {
+            ensureCapacity(1);
+            bytes[size++] = (byte) b;
+        }
+
+        void writeVarint(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7F) != 0) {
+                bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeBytes(byte[] b, int offset, int length) {
+            writeVarint(length);
+            ensureCapacity(length);
+            System.arraycopy(b, offset, bytes, size, length);
+            size += length;
+        }
+
+        void writeBytes(ByteBuffer b) {
+            ByteBuffer duplicate = b.duplicate();
+            int length = duplicate.remaining();
+            writeVarint(length);
+            ensureCapacity(length);
+            duplicate.get(bytes, size, length);
+            size += length;
+        }
+
+        void writeString(String s) {
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            writeBytes(utf8, 0, utf8.length);
+        }
+
+        private void ensureCapacity(int additional) {
+            if (size + additional > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + additional));
+            }
+        }
+    }
+}
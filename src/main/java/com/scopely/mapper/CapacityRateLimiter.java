@@ -0,0 +1,119 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.ConsumedCapacity;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket used to pace DynamoDB requests against a budget of capacity units per second.
+ *
+ * Since the cost of a scan page or batch request is only known once DynamoDB returns it, the bucket is allowed to go
+ * into debt: {@link #acquire()} blocks until the bucket is no longer in debt, and {@link #consume(double)} charges the
+ * capacity that the request actually consumed. A single instance is thread-safe and can be shared between parallel
+ * scan segments or any number of jobs that should share a budget.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class CapacityRateLimiter {
+    private final double unitsPerSecond;
+    private final double maxBurstUnits;
+    private final Ticker ticker;
+
+    private double availableUnits;
+    private long lastRefillNanos;
+
+    /**
+     * @param unitsPerSecond Target consumption, in read or write capacity units per second
+     */
+    public CapacityRateLimiter(double unitsPerSecond) {
+        this(unitsPerSecond, unitsPerSecond);
+    }
+
+    /**
+     * @param unitsPerSecond Target consumption, in read or write capacity units per second
+     * @param maxBurstUnits  Maximum number of unused units that may accumulate while the limiter is idle
+     */
+    public CapacityRateLimiter(double unitsPerSecond, double maxBurstUnits) {
+        this(unitsPerSecond, maxBurstUnits, Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    CapacityRateLimiter(double unitsPerSecond, double maxBurstUnits, Ticker ticker) {
+        if (unitsPerSecond <= 0) {
+            throw new IllegalArgumentException("unitsPerSecond must be positive");
+        }
+        if (maxBurstUnits < 0) {
+            throw new IllegalArgumentException("maxBurstUnits can't be negative");
+        }
+
+        this.unitsPerSecond = unitsPerSecond;
+        this.maxBurstUnits = maxBurstUnits;
+        this.ticker = ticker;
+        this.lastRefillNanos = ticker.read();
+    }
+
+    public double getUnitsPerSecond() {
+        return unitsPerSecond;
+    }
+
+    /**
+     * Blocks until the budget allows another request to be sent.
+     *
+     * @throws MappingException If the thread is interrupted while waiting
+     */
+    public void acquire() throws MappingException {
+        long waitNanos;
+        while ((waitNanos = nanosUntilAvailable()) > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MappingException("Interrupted while waiting for capacity", e);
+            }
+        }
+    }
+
+    /**
+     * Charges capacity units consumed by a request against the budget.
+     */
+    public synchronized void consume(double units) {
+        refill();
+        availableUnits -= units;
+    }
+
+    void consume(@Nullable ConsumedCapacity consumedCapacity) {
+        if (consumedCapacity != null && consumedCapacity.getCapacityUnits() != null) {
+            consume(consumedCapacity.getCapacityUnits());
+        }
+    }
+
+    void consume(@Nullable List<ConsumedCapacity> consumedCapacities) {
+        if (consumedCapacities == null) {
+            return;
+        }
+
+        for (ConsumedCapacity consumedCapacity : consumedCapacities) {
+            consume(consumedCapacity);
+        }
+    }
+
+    @VisibleForTesting
+    synchronized long nanosUntilAvailable() {
+        refill();
+        if (availableUnits >= 0) {
+            return 0;
+        }
+
+        return (long) Math.ceil(-availableUnits / unitsPerSecond * TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private void refill() {
+        long now = ticker.read();
+        double refilled = (now - lastRefillNanos) * unitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        availableUnits = Math.min(maxBurstUnits, availableUnits + refilled);
+        lastRefillNanos = now;
+    }
+}
@@ -0,0 +1,155 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+
+/**
+ * One attribute of the items of a columnar scan, with a row per item. Rows where the item doesn't have the attribute, or
+ * has it set to null, are null: their bit is set in the null bitmap, and their value in the subclass's array is
+ * meaningless.
+ *
+ * The arrays returned by columns are their backing arrays, of exactly {@link #size()} values, for loops over them
+ * without copies or boxing; they must not be modified.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public abstract class Column {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final String name;
+    private long[] nulls = new long[1];
+    int size;
+
+    Column(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isNull(int row) {
+        checkRow(row);
+        return (nulls[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * @return Null bitmap: bit {@code row % 64} of word {@code row / 64} is set if the row is null
+     */
+    public long[] getNulls() {
+        return nulls;
+    }
+
+    /**
+     * @return Number of null rows
+     */
+    public int nullCount() {
+        int count = 0;
+        for (long word : nulls) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of column " + name + " of " + size + " rows");
+        }
+    }
+
+    /**
+     * Makes room for {@code rows} more rows, growing the arrays at most once per page
+     */
+    void reserve(int rows) {
+        int required = size + rows;
+        int capacity = capacity();
+        if (required > capacity) {
+            int grown = Math.max(required, Math.max(INITIAL_CAPACITY, capacity + (capacity >> 1)));
+            resize(grown);
+            nulls = Arrays.copyOf(nulls, (grown + 63) >>> 6);
+        }
+    }
+
+    /**
+     * Shrinks the arrays to the number of rows, once all rows are appended
+     */
+    void trim() {
+        resize(size);
+        nulls = Arrays.copyOf(nulls, (size + 63) >>> 6);
+    }
+
+    void appendNull() {
+        nulls[size >>> 6] |= 1L << size;
+        size++;
+    }
+
+    /**
+     * Appends the value of the attribute in an item, the caller having reserved the row
+     */
+    abstract void append(@Nullable AttributeValue value) throws MappingException;
+
+    /**
+     * Appends the rows of a column of the same type and name, such as the same column of another scan segment
+     */
+    void appendAll(Column other) {
+        reserve(other.size);
+        for (int row = 0; row < other.size; row++) {
+            if (other.isNull(row)) {
+                appendNull();
+            } else {
+                appendRow(other, row);
+            }
+        }
+    }
+
+    abstract void appendRow(Column other, int row);
+
+    abstract int capacity();
+
+    abstract void resize(int capacity);
+
+    /**
+     * @return An empty column for a property of the type
+     * @throws IllegalArgumentException If the type is neither an integral number, a floating-point number, a string nor
+     *                                  an enum, or an {@link Optional} of one
+     */
+    static Column forType(String name, Type type) {
+        Class<?> clazz;
+        if (type instanceof ParameterizedType && ((ParameterizedType) type).getRawType() == Optional.class) {
+            return forType(name, ((ParameterizedType) type).getActualTypeArguments()[0]);
+        } else if (type instanceof Class) {
+            clazz = (Class<?>) type;
+        } else {
+            throw new IllegalArgumentException("Column " + name + " has unsupported type " + type);
+        }
+
+        if (clazz == long.class || clazz == Long.class || clazz == int.class || clazz == Integer.class
+                || clazz == short.class || clazz == Short.class || clazz == byte.class || clazz == Byte.class
+                || clazz == BigInteger.class || clazz == OptionalLong.class || clazz == OptionalInt.class) {
+            return new LongColumn(name);
+        } else if (clazz == double.class || clazz == Double.class || clazz == float.class || clazz == Float.class
+                || clazz == BigDecimal.class || clazz == OptionalDouble.class) {
+            return new DoubleColumn(name);
+        } else if (clazz == String.class || clazz.isEnum()) {
+            return new StringColumn(name);
+        }
+        throw new IllegalArgumentException("Column " + name + " has unsupported type " + type);
+    }
+
+    MappingException unexpected(AttributeValue value, String expected) {
+        return new MappingException(String.format("Column %s expects %s, got %s", name, expected, value));
+    }
+}
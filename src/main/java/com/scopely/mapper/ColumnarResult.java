@@ -0,0 +1,98 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Items of a columnar scan (see {@link JsonDynamoMapper#scanColumnar(Class, String...)}), as one {@link Column} per
+ * requested attribute, all with a row per item. Row order follows the scan, segment after segment.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public final class ColumnarResult {
+    private final Map<String, Column> columns;
+    private int size;
+
+    ColumnarResult(List<Column> columns) {
+        this.columns = new LinkedHashMap<>();
+        for (Column column : columns) {
+            this.columns.put(column.getName(), column);
+        }
+    }
+
+    /**
+     * @return Number of rows, the same in every column
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Names of the columns, in the order they were requested
+     */
+    public Set<String> getColumnNames() {
+        return Collections.unmodifiableSet(columns.keySet());
+    }
+
+    public Column getColumn(String name) {
+        Column column = columns.get(name);
+        if (column == null) {
+            throw new IllegalArgumentException("No column " + name);
+        }
+        return column;
+    }
+
+    public LongColumn getLongColumn(String name) {
+        return getColumn(name, LongColumn.class);
+    }
+
+    public DoubleColumn getDoubleColumn(String name) {
+        return getColumn(name, DoubleColumn.class);
+    }
+
+    public StringColumn getStringColumn(String name) {
+        return getColumn(name, StringColumn.class);
+    }
+
+    private <C extends Column> C getColumn(String name, Class<C> type) {
+        Column column = getColumn(name);
+        if (!type.isInstance(column)) {
+            throw new IllegalArgumentException("Column " + name + " is a " + column.getClass().getSimpleName());
+        }
+        return type.cast(column);
+    }
+
+    /**
+     * Decodes the requested attributes of a page of items into the columns, without other allocations than the growth
+     * of the columns' arrays
+     */
+    void append(List<Map<String, AttributeValue>> items) throws MappingException {
+        for (Column column : columns.values()) {
+            column.reserve(items.size());
+            for (Map<String, AttributeValue> item : items) {
+                column.append(item.get(column.getName()));
+            }
+        }
+        size += items.size();
+    }
+
+    /**
+     * Appends the rows of a result with the same columns, such as another segment's
+     */
+    void appendAll(ColumnarResult other) {
+        for (Column column : columns.values()) {
+            column.appendAll(other.columns.get(column.getName()));
+        }
+        size += other.size;
+    }
+
+    void trim() {
+        for (Column column : columns.values()) {
+            column.trim();
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.scopely.mapper;
+
+/**
+ * Thrown when an {@link AdaptiveConcurrencyLimiter} sheds a request, either because its queue is full or because the
+ * request waited in the queue for longer than the queue timeout. The request was not sent to DynamoDB.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class ConcurrencyLimitExceededException extends MappingException {
+    public ConcurrencyLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,390 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBQueryExpression;
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Filter conditions and a projection over the properties of a table class, compiled to a FilterExpression, a
+ * ProjectionExpression and their placeholder maps, so that filtering and projection happen server-side. Conditions
+ * are combined with AND.
+ *
+ * Paths name properties the way they're stored: JSON property names separated by dots, with {@code [n]} for list
+ * elements, such as {@code "innerDocuments[0].requiredInnerValue"}. Every property of a path is checked against the
+ * class, and values are encoded as the property they're compared with, so {@code eq("level", "5")} compares with the
+ * number 5 when {@code level} is a number. Properties of maps, {@code Object} and {@code JsonNode} can't be checked.
+ *
+ * <pre>{@code
+ * DynamoDBScanExpression scan = new Criteria<>(mapper, Player.class)
+ *         .eq("guild.id", guildId)
+ *         .between("level", 10, 20)
+ *         .exists("banned")
+ *         .project("id", "level")
+ *         .toScanExpression();
+ * }</pre>
+ *
+ * Projected items only have the projected properties, and are decoded as if the others were missing.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class Criteria<T> {
+    private static final Pattern SEGMENT = Pattern.compile("([^.\\[\\]]+)((?:\\[\\d+])*)");
+    private static final Pattern INDEX = Pattern.compile("\\[(\\d+)]");
+    private static final Pattern PLACEHOLDER = Pattern.compile("([#:])crit(\\d+)");
+
+    private final ObjectMapper objectMapper;
+    private final ArrayEncoding arrayEncoding;
+    private final JavaType type;
+
+    private final List<String> conditions = new ArrayList<>();
+    private final List<String> projection = new ArrayList<>();
+    private final Map<String, String> placeholdersByName = new HashMap<>();
+    private final Map<String, String> names = new LinkedHashMap<>();
+    private final Map<String, AttributeValue> values = new LinkedHashMap<>();
+
+    public Criteria(JsonDynamoMapper mapper, Class<T> clazz) {
+        this.objectMapper = mapper.objectMapper();
+        this.arrayEncoding = mapper.arrayEncoding();
+        this.type = objectMapper.constructType(clazz);
+    }
+
+    public Criteria<T> eq(String path, @Nullable Object value) throws MappingException {
+        return compare(path, "=", value);
+    }
+
+    public Criteria<T> ne(String path, @Nullable Object value) throws MappingException {
+        return compare(path, "<>", value);
+    }
+
+    public Criteria<T> lt(String path, Object value) throws MappingException {
+        return compare(path, "<", value);
+    }
+
+    public Criteria<T> le(String path, Object value) throws MappingException {
+        return compare(path, "<=", value);
+    }
+
+    public Criteria<T> gt(String path, Object value) throws MappingException {
+        return compare(path, ">", value);
+    }
+
+    public Criteria<T> ge(String path, Object value) throws MappingException {
+        return compare(path, ">=", value);
+    }
+
+    /**
+     * Matches values from {@code low} to {@code high}, inclusive
+     */
+    public Criteria<T> between(String path, Object low, Object high) throws MappingException {
+        Path resolved = path(path);
+        conditions.add(resolved.expression + " BETWEEN " + value(resolved.type, low) + " AND " + value(resolved.type, high));
+        return this;
+    }
+
+    public Criteria<T> beginsWith(String path, String prefix) throws MappingException {
+        Path resolved = path(path);
+        JavaType target = unwrap(resolved.type);
+        if (!isUnchecked(target) && target.getRawClass() != String.class) {
+            throw new IllegalArgumentException("beginsWith needs a string property, not " + path);
+        }
+        conditions.add("begins_with(" + resolved.expression + ", " + value(objectMapper.constructType(String.class), prefix) + ")");
+        return this;
+    }
+
+    /**
+     * Matches strings containing a substring, and sets and lists containing an element
+     */
+    public Criteria<T> contains(String path, Object value) throws MappingException {
+        Path resolved = path(path);
+        JavaType target = unwrap(resolved.type);
+        JavaType elementType;
+        if (target.isCollectionLikeType() || target.isArrayType()) {
+            elementType = target.getContentType();
+        } else if (isUnchecked(target) || target.getRawClass() == String.class) {
+            elementType = target;
+        } else {
+            throw new IllegalArgumentException("contains needs a string, set or list property, not " + path);
+        }
+        conditions.add("contains(" + resolved.expression + ", " + value(elementType, value) + ")");
+        return this;
+    }
+
+    public Criteria<T> exists(String path) {
+        conditions.add("attribute_exists(" + path(path).expression + ")");
+        return this;
+    }
+
+    public Criteria<T> notExists(String path) {
+        conditions.add("attribute_not_exists(" + path(path).expression + ")");
+        return this;
+    }
+
+    /**
+     * Only returns the given properties of matching items
+     */
+    public Criteria<T> project(String... paths) {
+        for (String path : paths) {
+            projection.add(path(path).expression);
+        }
+        return this;
+    }
+
+    @Nullable
+    public String getFilterExpression() {
+        return conditions.isEmpty() ? null : String.join(" AND ", conditions);
+    }
+
+    @Nullable
+    public String getProjectionExpression() {
+        return projection.isEmpty() ? null : String.join(", ", projection);
+    }
+
+    public Map<String, String> getExpressionAttributeNames() {
+        return Collections.unmodifiableMap(names);
+    }
+
+    public Map<String, AttributeValue> getExpressionAttributeValues() {
+        return Collections.unmodifiableMap(values);
+    }
+
+    public DynamoDBScanExpression toScanExpression() {
+        return applyTo(new DynamoDBScanExpression());
+    }
+
+    /**
+     * Adds the conditions to the expression's filter, replaces its projection if the criteria have one, and adds the
+     * placeholders to its maps. Placeholders are numbered after those of the expression, so that several criteria can
+     * be applied to the same expression.
+     */
+    public DynamoDBScanExpression applyTo(DynamoDBScanExpression scanExpression) {
+        int nameOffset = nextIndex(scanExpression.getExpressionAttributeNames());
+        int valueOffset = nextIndex(scanExpression.getExpressionAttributeValues());
+        scanExpression.setFilterExpression(and(scanExpression.getFilterExpression(), nameOffset, valueOffset));
+        if (!projection.isEmpty()) {
+            scanExpression.setProjectionExpression(renumber(getProjectionExpression(), nameOffset, valueOffset));
+        }
+        scanExpression.setExpressionAttributeNames(
+                merge(scanExpression.getExpressionAttributeNames(), renumber(names, nameOffset)));
+        scanExpression.setExpressionAttributeValues(
+                merge(scanExpression.getExpressionAttributeValues(), renumber(values, valueOffset)));
+        return scanExpression;
+    }
+
+    /**
+     * Same as {@link #applyTo(DynamoDBScanExpression)}, for a query whose key condition is already set
+     */
+    public <Q> DynamoDBQueryExpression<Q> applyTo(DynamoDBQueryExpression<Q> queryExpression) {
+        int nameOffset = nextIndex(queryExpression.getExpressionAttributeNames());
+        int valueOffset = nextIndex(queryExpression.getExpressionAttributeValues());
+        queryExpression.setFilterExpression(and(queryExpression.getFilterExpression(), nameOffset, valueOffset));
+        if (!projection.isEmpty()) {
+            queryExpression.setProjectionExpression(renumber(getProjectionExpression(), nameOffset, valueOffset));
+        }
+        queryExpression.setExpressionAttributeNames(
+                merge(queryExpression.getExpressionAttributeNames(), renumber(names, nameOffset)));
+        queryExpression.setExpressionAttributeValues(
+                merge(queryExpression.getExpressionAttributeValues(), renumber(values, valueOffset)));
+        return queryExpression;
+    }
+
+    private Criteria<T> compare(String path, String operator, @Nullable Object value) throws MappingException {
+        Path resolved = path(path);
+        conditions.add(resolved.expression + " " + operator + " " + value(resolved.type, value));
+        return this;
+    }
+
+    @Nullable
+    private String and(@Nullable String filterExpression, int nameOffset, int valueOffset) {
+        String ours = getFilterExpression();
+        if (ours == null) {
+            return filterExpression;
+        }
+        ours = renumber(ours, nameOffset, valueOffset);
+        return filterExpression == null ? ours : "(" + filterExpression + ") AND " + ours;
+    }
+
+    /**
+     * @return Index after the highest of the criteria placeholders among the given ones, or 0 if there are none
+     */
+    private static int nextIndex(@Nullable Map<String, ?> placeholders) {
+        int next = 0;
+        if (placeholders != null) {
+            for (String placeholder : placeholders.keySet()) {
+                Matcher matcher = PLACEHOLDER.matcher(placeholder);
+                if (matcher.matches()) {
+                    next = Math.max(next, Integer.parseInt(matcher.group(2)) + 1);
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * @return The expression with its name and value placeholders shifted by the offsets
+     */
+    private static String renumber(String expression, int nameOffset, int valueOffset) {
+        if (nameOffset == 0 && valueOffset == 0) {
+            return expression;
+        }
+        Matcher matcher = PLACEHOLDER.matcher(expression);
+        StringBuffer renumbered = new StringBuffer();
+        while (matcher.find()) {
+            int offset = matcher.group(1).equals("#") ? nameOffset : valueOffset;
+            matcher.appendReplacement(renumbered, matcher.group(1) + "crit" + (Integer.parseInt(matcher.group(2)) + offset));
+        }
+        matcher.appendTail(renumbered);
+        return renumbered.toString();
+    }
+
+    private static <V> Map<String, V> renumber(Map<String, V> placeholders, int offset) {
+        if (offset == 0) {
+            return placeholders;
+        }
+        Map<String, V> renumbered = new LinkedHashMap<>();
+        placeholders.forEach((placeholder, value) -> renumbered.put(renumber(placeholder, offset, offset), value));
+        return renumbered;
+    }
+
+    /**
+     * @return Both maps' entries, or null if there are none, since DynamoDB rejects empty placeholder maps
+     */
+    @Nullable
+    private static <V> Map<String, V> merge(@Nullable Map<String, V> existing, Map<String, V> added) {
+        Map<String, V> merged = new HashMap<>();
+        if (existing != null) {
+            merged.putAll(existing);
+        }
+        merged.putAll(added);
+        return merged.isEmpty() ? null : merged;
+    }
+
+    private Path path(String path) {
+        StringBuilder expression = new StringBuilder();
+        JavaType current = type;
+        for (String segment : path.split("\\.", -1)) {
+            Matcher matcher = SEGMENT.matcher(segment);
+            if (!matcher.matches()) {
+                throw new IllegalArgumentException("Invalid path " + path);
+            }
+
+            String name = matcher.group(1);
+            current = property(current, name, path);
+            if (expression.length() > 0) {
+                expression.append('.');
+            }
+            expression.append(placeholder(name));
+
+            Matcher index = INDEX.matcher(matcher.group(2));
+            while (index.find()) {
+                current = unwrap(current);
+                if (!isUnchecked(current) && !current.isCollectionLikeType() && !current.isArrayType()) {
+                    throw new IllegalArgumentException("Property " + name + " of path " + path + " isn't a list");
+                }
+                current = isUnchecked(current) ? current : current.getContentType();
+                expression.append('[').append(index.group(1)).append(']');
+            }
+        }
+        return new Path(expression.toString(), current);
+    }
+
+    private JavaType property(JavaType owner, String name, String path) {
+        JavaType target = unwrap(owner);
+        if (isUnchecked(target)) {
+            return target;
+        }
+        if (target.isMapLikeType()) {
+            return target.getContentType();
+        }
+
+        if (!target.isContainerType()) {
+            for (BeanPropertyDefinition definition : objectMapper.getSerializationConfig().introspect(target).findProperties()) {
+                AnnotatedMember accessor = definition.getAccessor();
+                if (definition.getName().equals(name) && accessor != null) {
+                    return objectMapper.getTypeFactory().constructType(genericType(accessor.getMember()));
+                }
+            }
+        }
+        throw new IllegalArgumentException(target.getRawClass().getName() + " has no property " + name + " of path " + path);
+    }
+
+    private String placeholder(String name) {
+        return placeholdersByName.computeIfAbsent(name, n -> {
+            String placeholder = "#crit" + names.size();
+            names.put(placeholder, n);
+            return placeholder;
+        });
+    }
+
+    /**
+     * @return Placeholder of the value, encoded as a property of the given type
+     */
+    private String value(JavaType propertyType, @Nullable Object value) throws MappingException {
+        AttributeValue attributeValue;
+        if (value == null) {
+            attributeValue = new AttributeValue().withNULL(true);
+        } else {
+            JavaType target = unwrap(propertyType);
+            Object typed = isUnchecked(target) ? value : objectMapper.convertValue(value, target);
+            JsonNode node = objectMapper.valueToTree(typed);
+            attributeValue = JsonNodeAttributeValueMapper.makeAV(node, arrayEncoding);
+            if (attributeValue == null) {
+                throw new IllegalArgumentException("Can't compare with an empty array");
+            }
+        }
+
+        String placeholder = ":crit" + values.size();
+        values.put(placeholder, attributeValue);
+        return placeholder;
+    }
+
+    private static JavaType unwrap(JavaType type) {
+        if (type.getRawClass() == Optional.class) {
+            JavaType contained = type.containedType(0);
+            return contained != null ? contained : type;
+        }
+        return type;
+    }
+
+    private static boolean isUnchecked(JavaType type) {
+        return type.getRawClass() == Object.class || JsonNode.class.isAssignableFrom(type.getRawClass());
+    }
+
+    private static Type genericType(Member member) {
+        if (member instanceof Method) {
+            return ((Method) member).getGenericReturnType();
+        }
+        if (member instanceof Field) {
+            return ((Field) member).getGenericType();
+        }
+        return Object.class;
+    }
+
+    private static final class Path {
+        private final String expression;
+        private final JavaType type;
+
+        private Path(String expression, JavaType type) {
+            this.expression = expression;
+            this.type = type;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
+import com.amazonaws.services.dynamodbv2.datamodeling.ScanResultPage;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.BaseEncoding;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+/**
+ * Position in a paginated scan, query or scan segment, encoded as a compact, URL-safe string that can be handed to
+ * clients or persisted, and decoded later to resume exactly where the previous page stopped.
+ *
+ * <pre>{@code
+ * Cursor cursor = token == null ? Cursor.start() : Cursor.decode(token);
+ * ScanResultPage<Player> page = mapper.scan(Player.class, new DynamoDBScanExpression().withLimit(100), cursor, null);
+ * Optional<String> nextToken = cursor.next(page).map(Cursor::encode);
+ * }</pre>
+ *
+ * A cursor holds the exclusive start key and, for a segment of a parallel scan, the segment and total number of
+ * segments. It must be resumed with the same table, index and expression it came from; the key attributes it holds are
+ * readable by anyone who decodes it.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public final class Cursor {
+    private static final BaseEncoding ENCODING = BaseEncoding.base64Url().omitPadding();
+    private static final byte VERSION = 1;
+
+    @Nullable private final Map<String, AttributeValue> exclusiveStartKey;
+    private final int segment;
+    private final int totalSegments;
+
+    private Cursor(@Nullable Map<String, AttributeValue> exclusiveStartKey, int segment, int totalSegments) {
+        this.exclusiveStartKey = exclusiveStartKey == null ? null : ImmutableMap.copyOf(exclusiveStartKey);
+        this.segment = segment;
+        this.totalSegments = totalSegments;
+    }
+
+    /**
+     * @return Cursor at the start of a scan or query
+     */
+    public static Cursor start() {
+        return new Cursor(null, -1, 0);
+    }
+
+    /**
+     * @return Cursor at the start of a segment of a parallel scan
+     */
+    public static Cursor start(int segment, int totalSegments) {
+        if (totalSegments < 1) {
+            throw new IllegalArgumentException("totalSegments must be at least 1");
+        }
+        if (segment < 0 || segment >= totalSegments) {
+            throw new IllegalArgumentException("segment must be from 0 to totalSegments - 1");
+        }
+        return new Cursor(null, segment, totalSegments);
+    }
+
+    /**
+     * @throws IllegalArgumentException If the string isn't an encoded cursor
+     */
+    public static Cursor decode(String encoded) {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(ENCODING.decode(encoded));
+            if (buffer.get() != VERSION) {
+                throw new IllegalArgumentException("Unrecognized cursor " + encoded);
+            }
+
+            int totalSegments = AttributeValueCodec.readVarint(buffer);
+            int segment = totalSegments == 0 ? -1 : AttributeValueCodec.readVarint(buffer);
+            Map<String, AttributeValue> exclusiveStartKey = buffer.get() == 0 ? null : AttributeValueCodec.decode(buffer);
+            if (buffer.hasRemaining() || segment >= totalSegments) {
+                throw new IllegalArgumentException("Invalid cursor " + encoded);
+            }
+            return new Cursor(exclusiveStartKey, segment, totalSegments);
+        } catch (MappingException | BufferUnderflowException e) {
+            throw new IllegalArgumentException("Invalid cursor " + encoded, e);
+        }
+    }
+
+    public String encode() throws MappingException {
+        AttributeValueCodec.Output output = new AttributeValueCodec.Output(64);
+        output.writeByte(VERSION);
+        output.writeVarint(totalSegments);
+        if (totalSegments > 0) {
+            output.writeVarint(segment);
+        }
+        output.writeByte(exclusiveStartKey == null ? 0 : 1);
+        if (exclusiveStartKey != null) {
+            AttributeValueCodec.encode(exclusiveStartKey, output);
+        }
+        return ENCODING.encode(output.array(), 0, output.size());
+    }
+
+    /**
+     * @return Cursor after a page read from this cursor, or empty if it was the last page
+     */
+    public Optional<Cursor> next(ScanResultPage<?> page) {
+        return next(page.getLastEvaluatedKey());
+    }
+
+    /**
+     * @return Cursor after a page read from this cursor, or empty if it was the last page
+     */
+    public Optional<Cursor> next(QueryResultPage<?> page) {
+        return next(page.getLastEvaluatedKey());
+    }
+
+    public Optional<Map<String, AttributeValue>> getExclusiveStartKey() {
+        return Optional.ofNullable(exclusiveStartKey);
+    }
+
+    public OptionalInt getSegment() {
+        return totalSegments == 0 ? OptionalInt.empty() : OptionalInt.of(segment);
+    }
+
+    public OptionalInt getTotalSegments() {
+        return totalSegments == 0 ? OptionalInt.empty() : OptionalInt.of(totalSegments);
+    }
+
+    ScanRequest applyTo(ScanRequest scanRequest) {
+        if (totalSegments == 0 && scanRequest.getTotalSegments() != null) {
+            throw new IllegalArgumentException("Segmented scans need a cursor from Cursor.start(segment, totalSegments)");
+        }
+        if (totalSegments > 0) {
+            scanRequest.withSegment(segment).withTotalSegments(totalSegments);
+        }
+        return scanRequest.withExclusiveStartKey(exclusiveStartKey);
+    }
+
+    QueryRequest applyTo(QueryRequest queryRequest) {
+        if (totalSegments > 0) {
+            throw new IllegalArgumentException("Queries can't resume from a scan segment's cursor");
+        }
+        return queryRequest.withExclusiveStartKey(exclusiveStartKey);
+    }
+
+    private Optional<Cursor> next(@Nullable Map<String, AttributeValue> lastEvaluatedKey) {
+        return lastEvaluatedKey == null ? Optional.empty() : Optional.of(new Cursor(lastEvaluatedKey, segment, totalSegments));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        Cursor cursor = (Cursor) o;
+
+        return segment == cursor.segment && totalSegments == cursor.totalSegments
+                && Objects.equals(exclusiveStartKey, cursor.exclusiveStartKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(exclusiveStartKey, segment, totalSegments);
+    }
+
+    @Override
+    public String toString() {
+        return "Cursor{" + (totalSegments == 0 ? "" : "segment " + segment + "/" + totalSegments + ", ")
+                + exclusiveStartKey + "}";
+    }
+}
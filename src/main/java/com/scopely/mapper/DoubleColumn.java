@@ -0,0 +1,58 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Column of a floating-point number attribute
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public final class DoubleColumn extends Column {
+    private double[] values = new double[0];
+
+    DoubleColumn(String name) {
+        super(name);
+    }
+
+    public double get(int row) {
+        checkRow(row);
+        return values[row];
+    }
+
+    /**
+     * @return Value of every row, 0 for null rows
+     */
+    public double[] getValues() {
+        return values;
+    }
+
+    @Override
+    void append(@Nullable AttributeValue value) throws MappingException {
+        if (value == null || value.getNULL() != null) {
+            appendNull();
+        } else if (value.getN() != null) {
+            values[size] = Double.parseDouble(value.getN());
+            size++;
+        } else {
+            throw unexpected(value, "a number");
+        }
+    }
+
+    @Override
+    void appendRow(Column other, int row) {
+        values[size] = ((DoubleColumn) other).values[row];
+        size++;
+    }
+
+    @Override
+    int capacity() {
+        return values.length;
+    }
+
+    @Override
+    void resize(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+}
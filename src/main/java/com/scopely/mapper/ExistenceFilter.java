@@ -0,0 +1,207 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+import com.google.common.hash.PrimitiveSink;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bloom filter of the keys of a table, so that loads of keys that don't exist are answered without a request. Register
+ * it with {@link JsonDynamoMapperConfig#withExistenceFilter}, then either build it with
+ * {@link JsonDynamoMapper#buildExistenceFilter}, a parallel scan of the table's keys, or read a file written by
+ * {@link #writeTo(Path)}. Until then, every key might exist and loads go to DynamoDB.
+ *
+ * The mapper adds every item it puts (save, saveAll, UnitOfWork, TableImporter) before writing it. Deleted keys stay in
+ * the filter and cost a request as before, until the next build. The filter is only correct if every item of the table
+ * is written through the mappers using it: an item written by another process, or after the file was written, is
+ * reported missing. Past {@code expectedKeys} keys, the false positive rate grows.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class ExistenceFilter {
+    private static final int FILE_MAGIC = 0x45584654;
+    private static final byte FILE_VERSION = 1;
+
+    private final String tableName;
+    private final List<String> keyAttributes;
+    private final long expectedKeys;
+    private final double falsePositiveRate;
+    private final Funnel<Map<String, AttributeValue>> funnel;
+
+    @Nullable private BloomFilter<Map<String, AttributeValue>> filter;
+    @Nullable private BloomFilter<Map<String, AttributeValue>> building;
+
+    /**
+     * @param expectedKeys      Number of keys the filter is sized for
+     * @param falsePositiveRate Fraction of missing keys that are still looked up, at {@code expectedKeys} keys
+     * @throws MappingException If the class isn't a table class
+     */
+    public ExistenceFilter(Class<?> clazz, long expectedKeys, double falsePositiveRate) throws MappingException {
+        if (expectedKeys < 1) {
+            throw new IllegalArgumentException("expectedKeys must be at least 1");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+
+        this.tableName = JsonDynamoMapper.tableName(clazz);
+        this.keyAttributes = JsonDynamoMapper.keyAttributeNames(clazz);
+        this.expectedKeys = expectedKeys;
+        this.falsePositiveRate = falsePositiveRate;
+        this.funnel = new KeyFunnel(keyAttributes);
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    /**
+     * @return Whether the filter has been built or read, and answers loads
+     */
+    public synchronized boolean isReady() {
+        return filter != null;
+    }
+
+    /**
+     * @return Estimated fraction of missing keys that are still looked up, given the keys added so far
+     */
+    public synchronized double expectedFalsePositiveRate() {
+        return filter == null ? 1 : filter.expectedFpp();
+    }
+
+    /**
+     * Writes the filter to a file, replacing it atomically
+     * @throws MappingException On I/O errors, or if the filter isn't ready
+     */
+    public synchronized void writeTo(Path file) throws MappingException {
+        if (filter == null) {
+            throw new MappingException("Existence filter of " + tableName + " isn't built");
+        }
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeInt(FILE_MAGIC);
+                out.writeByte(FILE_VERSION);
+                out.writeUTF(tableName);
+                filter.writeTo(out);
+            }
+
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temporary, bytes.toByteArray());
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new MappingException("Exception writing existence filter to " + file, e);
+        }
+    }
+
+    /**
+     * Replaces the filter with one written by {@link #writeTo(Path)}, making it ready
+     * @return False if the file doesn't exist
+     * @throws MappingException On I/O errors, or if the file isn't a filter of this table
+     */
+    public boolean readFrom(Path file) throws MappingException {
+        try (InputStream input = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(input)) {
+            if (in.readInt() != FILE_MAGIC || in.readByte() != FILE_VERSION) {
+                throw new MappingException("Unrecognized existence filter " + file);
+            }
+            String fileTableName = in.readUTF();
+            if (!fileTableName.equals(tableName)) {
+                throw new MappingException("Existence filter " + file + " belongs to table " + fileTableName);
+            }
+
+            BloomFilter<Map<String, AttributeValue>> read = BloomFilter.readFrom(in, funnel);
+            synchronized (this) {
+                filter = read;
+            }
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            throw new MappingException("Exception reading existence filter " + file, e);
+        }
+    }
+
+    /**
+     * @return False only if no item has the key
+     */
+    synchronized boolean mightExist(Map<String, AttributeValue> key) {
+        return filter == null || filter.mightContain(key);
+    }
+
+    /**
+     * Adds the key of an item that is about to be written
+     */
+    synchronized void put(Map<String, AttributeValue> item) {
+        if (filter != null) {
+            filter.put(item);
+        }
+        if (building != null) {
+            building.put(item);
+        }
+    }
+
+    /**
+     * Starts a new filter that receives both the scanned keys and the keys written during the scan
+     */
+    synchronized void startBuild() {
+        building = BloomFilter.create(funnel, expectedKeys, falsePositiveRate);
+    }
+
+    synchronized void finishBuild(boolean succeeded) {
+        if (succeeded) {
+            filter = building;
+        }
+        building = null;
+    }
+
+    List<String> keyAttributes() {
+        return keyAttributes;
+    }
+
+    /**
+     * Funnels the key attributes of an item, each as length-prefixed bytes
+     */
+    private static final class KeyFunnel implements Funnel<Map<String, AttributeValue>> {
+        private final List<String> keyAttributes;
+
+        private KeyFunnel(List<String> keyAttributes) {
+            this.keyAttributes = keyAttributes;
+        }
+
+        @Override
+        public void funnel(Map<String, AttributeValue> item, PrimitiveSink sink) {
+            for (String keyAttribute : keyAttributes) {
+                AttributeValue value = item.get(keyAttribute);
+                byte[] bytes;
+                if (value == null) {
+                    bytes = new byte[0];
+                } else if (value.getS() != null) {
+                    bytes = value.getS().getBytes(StandardCharsets.UTF_8);
+                } else if (value.getN() != null) {
+                    bytes = value.getN().getBytes(StandardCharsets.UTF_8);
+                } else {
+                    ByteBuffer binary = value.getB().duplicate();
+                    bytes = new byte[binary.remaining()];
+                    binary.get(bytes);
+                }
+                sink.putInt(bytes.length).putBytes(bytes);
+            }
+        }
+    }
+}
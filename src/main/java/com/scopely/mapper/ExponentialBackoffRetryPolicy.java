@@ -0,0 +1,93 @@
+package com.scopely.mapper;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import com.google.common.collect.ImmutableSet;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries throttled requests, 5xx errors and unprocessed batch items with exponential backoff and full jitter: the
+ * delay before attempt {@code n + 1} is uniformly distributed between 0 and {@code min(maxDelay, baseDelay * 2^(n-1))}.
+ * Gives up after a maximum number of attempts, or when the next attempt would start after the overall deadline.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class ExponentialBackoffRetryPolicy implements RetryPolicy {
+    private static final Set<String> THROTTLING_ERROR_CODES = ImmutableSet.of(
+            "ProvisionedThroughputExceededException",
+            "ThrottlingException",
+            "Throttling",
+            "RequestLimitExceeded");
+
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final int maxAttempts;
+    private final long deadlineMillis;
+
+    /**
+     * 25ms base delay, 2s maximum delay, 10 attempts and a 10s deadline.
+     */
+    public ExponentialBackoffRetryPolicy() {
+        this(25, 2000, 10, 10000);
+    }
+
+    /**
+     * @param baseDelayMillis Upper bound of the delay before the first retry
+     * @param maxDelayMillis  Upper bound of any delay
+     * @param maxAttempts     Maximum number of attempts, including the first one
+     * @param deadlineMillis  Maximum time from the start of the first attempt to the start of the last one
+     */
+    public ExponentialBackoffRetryPolicy(long baseDelayMillis, long maxDelayMillis, int maxAttempts, long deadlineMillis) {
+        if (baseDelayMillis < 0 || maxDelayMillis < baseDelayMillis) {
+            throw new IllegalArgumentException("Delays must satisfy 0 <= baseDelayMillis <= maxDelayMillis");
+        }
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be at least 1");
+        }
+
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.maxAttempts = maxAttempts;
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    @Override
+    public OptionalLong retryDelayMillis(@Nullable AmazonClientException exception, int attempts, long elapsedMillis) {
+        if (exception != null && !isRetryable(exception)) {
+            return OptionalLong.empty();
+        }
+
+        if (attempts >= maxAttempts) {
+            return OptionalLong.empty();
+        }
+
+        long ceiling = (long) Math.min(maxDelayMillis, baseDelayMillis * Math.pow(2, attempts - 1));
+        long delay = ceiling > 0 ? ThreadLocalRandom.current().nextLong(ceiling + 1) : 0;
+        if (elapsedMillis + delay > deadlineMillis) {
+            return OptionalLong.empty();
+        }
+
+        return OptionalLong.of(delay);
+    }
+
+    /**
+     * @return Whether the exception is a throttling error or a server-side (5xx) error
+     */
+    public static boolean isRetryable(AmazonClientException exception) {
+        if (exception instanceof ProvisionedThroughputExceededException) {
+            return true;
+        }
+
+        if (exception instanceof AmazonServiceException) {
+            AmazonServiceException serviceException = (AmazonServiceException) exception;
+            return serviceException.getStatusCode() >= 500
+                    || THROTTLING_ERROR_CODES.contains(serviceException.getErrorCode());
+        }
+
+        return false;
+    }
+}
@@ -0,0 +1,28 @@
+package com.scopely.mapper;
+
+/**
+ * File formats written by {@link TableExporter}.
+ */
+public enum ExportFormat {
+    /**
+     * One JSON object per line, in the same JSON representation the mapper deserializes classes from. Binary
+     * attributes become base64 strings, and sets become arrays.
+     */
+    NDJSON("ndjson"),
+
+    /**
+     * Items encoded with {@link AttributeValueCodec}, each prefixed with its length as an unsigned varint, after a
+     * 5-byte header. Preserves every AttributeValue type exactly.
+     */
+    BINARY("bin");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+}
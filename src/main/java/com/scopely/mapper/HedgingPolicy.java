@@ -0,0 +1,159 @@
+package com.scopely.mapper;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.Arrays;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Hedged reads for {@link JsonDynamoMapper#load}: when a GetItem takes longer than a percentile of recently observed
+ * GetItem latencies, a second identical GetItem is sent and whichever response arrives first is used.
+ *
+ * Latencies are tracked over a sliding window of the last 256 successful requests; no request is hedged until 32
+ * latencies have been observed.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class HedgingPolicy {
+    private static final int WINDOW_SIZE = 256;
+    private static final int MIN_SAMPLES = 32;
+    private static final int RECOMPUTE_INTERVAL = 32;
+
+    private final double percentile;
+    private final long minDelayNanos;
+    private final Executor executor;
+
+    private final AtomicLongArray latencies = new AtomicLongArray(WINDOW_SIZE);
+    private final AtomicLong recorded = new AtomicLong();
+    private volatile long hedgeDelayNanos = -1;
+
+    /**
+     * Hedges requests slower than the provided latency percentile, running requests on a cached pool of daemon
+     * threads.
+     *
+     * @param percentile Latency percentile after which a request is hedged, e.g. 0.95
+     */
+    public HedgingPolicy(double percentile) {
+        this(percentile, 0, Executors.newCachedThreadPool(
+                new ThreadFactoryBuilder().setNameFormat("json-dynamo-mapper-hedge-%d").setDaemon(true).build()));
+    }
+
+    /**
+     * @param percentile     Latency percentile after which a request is hedged, e.g. 0.95
+     * @param minDelayMillis Minimum delay before hedging, regardless of observed latencies
+     * @param executor       Executor running both the original and the hedged requests
+     */
+    public HedgingPolicy(double percentile, long minDelayMillis, Executor executor) {
+        if (percentile <= 0 || percentile >= 1) {
+            throw new IllegalArgumentException("percentile must be in (0, 1)");
+        }
+
+        this.percentile = percentile;
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+        this.executor = executor;
+    }
+
+    /**
+     * @return Current delay after which a request is hedged; empty until enough latencies have been observed
+     */
+    public OptionalLong getHedgeDelayMillis() {
+        long delayNanos = hedgeDelayNanos;
+        return delayNanos < 0 ? OptionalLong.empty() : OptionalLong.of(TimeUnit.NANOSECONDS.toMillis(delayNanos));
+    }
+
+    <R> R execute(Supplier<R> request) throws MappingException {
+        Supplier<R> timedRequest = () -> {
+            long start = System.nanoTime();
+            R result = request.get();
+            recordLatency(System.nanoTime() - start);
+            return result;
+        };
+
+        long delayNanos = hedgeDelayNanos;
+        if (delayNanos < 0) {
+            return timedRequest.get();
+        }
+
+        CompletableFuture<R> primary = CompletableFuture.supplyAsync(timedRequest, executor);
+        try {
+            return primary.get(delayNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            CompletableFuture<R> hedge = CompletableFuture.supplyAsync(timedRequest, executor);
+            return await(firstSuccessful(primary, hedge));
+        } catch (ExecutionException e) {
+            throw propagate(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MappingException("Interrupted while waiting for hedged request", e);
+        }
+    }
+
+    @VisibleForTesting
+    void recordLatency(long nanos) {
+        long count = recorded.getAndIncrement();
+        latencies.set((int) (count % WINDOW_SIZE), nanos);
+
+        long samples = count + 1;
+        if (samples >= MIN_SAMPLES && samples % RECOMPUTE_INTERVAL == 0) {
+            int size = (int) Math.min(samples, WINDOW_SIZE);
+            long[] sorted = new long[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = latencies.get(i);
+            }
+            Arrays.sort(sorted);
+
+            int index = Math.max(0, (int) Math.ceil(percentile * size) - 1);
+            hedgeDelayNanos = Math.max(minDelayNanos, sorted[index]);
+        }
+    }
+
+    /**
+     * @return Future completed by the first of the two futures to succeed, or failed if both fail
+     */
+    private static <R> CompletableFuture<R> firstSuccessful(CompletableFuture<R> first, CompletableFuture<R> second) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<R> future : Arrays.asList(first, second)) {
+            future.whenComplete((value, throwable) -> {
+                if (throwable == null) {
+                    result.complete(value);
+                } else if (failures.incrementAndGet() == 2) {
+                    result.completeExceptionally(throwable);
+                }
+            });
+        }
+        return result;
+    }
+
+    private static <R> R await(CompletableFuture<R> future) throws MappingException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw propagate(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MappingException("Interrupted while waiting for hedged request", e);
+        }
+    }
+
+    private static RuntimeException propagate(Throwable throwable) {
+        if (throwable instanceof CompletionException && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        if (throwable instanceof RuntimeException) {
+            return (RuntimeException) throwable;
+        }
+        return new MappingException("Exception in hedged request", throwable);
+    }
+}
@@ -0,0 +1,53 @@
+package com.scopely.mapper;
+
+import java.util.Objects;
+
+/**
+ * Estimated access rates of a hash key over a window of a {@link HotKeyDetector}.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public final class HotKey {
+    private final String hashKey;
+    private final double readsPerSecond;
+    private final double writesPerSecond;
+
+    HotKey(String hashKey, double readsPerSecond, double writesPerSecond) {
+        this.hashKey = hashKey;
+        this.readsPerSecond = readsPerSecond;
+        this.writesPerSecond = writesPerSecond;
+    }
+
+    public String getHashKey() {
+        return hashKey;
+    }
+
+    public double getReadsPerSecond() {
+        return readsPerSecond;
+    }
+
+    public double getWritesPerSecond() {
+        return writesPerSecond;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        HotKey hotKey = (HotKey) o;
+
+        return Double.compare(hotKey.readsPerSecond, readsPerSecond) == 0
+                && Double.compare(hotKey.writesPerSecond, writesPerSecond) == 0
+                && hashKey.equals(hotKey.hashKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(hashKey, readsPerSecond, writesPerSecond);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("HotKey{%s, readsPerSecond=%.1f, writesPerSecond=%.1f}", hashKey, readsPerSecond, writesPerSecond);
+    }
+}
@@ -0,0 +1,219 @@
+package com.scopely.mapper;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Finds the hottest hash keys of each table, to spot hot partitions before they're throttled. A sample of the hash keys
+ * that the mapper loads, saves and deletes is counted in a count-min sketch per table, and the keys with the highest
+ * counts are tracked as candidates. At the end of every window, the {@code topK} keys with the highest estimated access
+ * rates are reported to {@link MapperMetrics#hotKeys} and kept for {@link #hotKeys(String)}.
+ *
+ * Keys are counted by hash key, since partition throughput limits apply per hash key. Counting only takes atomic
+ * increments and, for keys that aren't candidates yet, an occasional sweep of the candidates that never blocks; a
+ * sampling rate below 1 keeps the cost negligible on busy mappers. Rates are estimates: the sketch never undercounts a
+ * key, but can overcount it by a fraction of all the table's accesses, and rates of keys with few sampled accesses are
+ * noisy. Windows are rolled over by the first access after they end, so a table that isn't accessed isn't reported.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class HotKeyDetector {
+    private static final int DEPTH = 4;
+    private static final int WIDTH = 1024;
+    private static final int CANDIDATES_PER_TOP_KEY = 4;
+    private static final HashFunction HASH = Hashing.murmur3_128();
+
+    private final double samplingRate;
+    private final int topK;
+    private final long windowNanos;
+    private final Ticker ticker;
+
+    private final ConcurrentHashMap<String, AtomicReference<Window>> windows = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, List<HotKey>> reports = new ConcurrentHashMap<>();
+
+    /**
+     * @param samplingRate Fraction of accesses counted, greater than 0 and at most 1
+     * @param topK         Number of keys reported per table
+     * @param windowMillis Period over which rates are estimated and reported
+     */
+    public HotKeyDetector(double samplingRate, int topK, long windowMillis) {
+        this(samplingRate, topK, windowMillis, Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    HotKeyDetector(double samplingRate, int topK, long windowMillis, Ticker ticker) {
+        if (samplingRate <= 0 || samplingRate > 1) {
+            throw new IllegalArgumentException("samplingRate must be in (0, 1]");
+        }
+        if (topK < 1) {
+            throw new IllegalArgumentException("topK must be at least 1");
+        }
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("windowMillis must be positive");
+        }
+
+        this.samplingRate = samplingRate;
+        this.topK = topK;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.ticker = ticker;
+    }
+
+    /**
+     * @return Hottest keys of the table in the last complete window, hottest first; empty before the first report
+     */
+    public List<HotKey> hotKeys(String tableName) {
+        return reports.getOrDefault(tableName, Collections.emptyList());
+    }
+
+    /**
+     * @return Whether to count the next access; checked before the key of the access is computed
+     */
+    boolean sample() {
+        return samplingRate >= 1 || ThreadLocalRandom.current().nextDouble() < samplingRate;
+    }
+
+    /**
+     * Counts a sampled access, first reporting the table's previous window if it has ended
+     */
+    void record(String tableName, String hashKey, boolean write, @Nullable MapperMetrics metrics) {
+        AtomicReference<Window> current = windows.computeIfAbsent(tableName,
+                table -> new AtomicReference<>(new Window(ticker.read())));
+        Window window = current.get();
+        long now = ticker.read();
+        if (now - window.start >= windowNanos) {
+            Window next = new Window(now);
+            if (current.compareAndSet(window, next)) {
+                report(tableName, window, now, metrics);
+            }
+            window = current.get();
+        }
+        window.add(hashKey, write);
+    }
+
+    private void report(String tableName, Window window, long now, @Nullable MapperMetrics metrics) {
+        double scale = 1e9 / samplingRate / Math.max(1, now - window.start);
+        List<HotKey> hotKeys = new ArrayList<>();
+        for (String hashKey : window.top(topK)) {
+            HashCode hash = hash(hashKey);
+            hotKeys.add(new HotKey(hashKey, window.reads.estimate(hash) * scale, window.writes.estimate(hash) * scale));
+        }
+
+        List<HotKey> report = ImmutableList.copyOf(hotKeys);
+        reports.put(tableName, report);
+        if (metrics != null && !report.isEmpty()) {
+            metrics.hotKeys(tableName, report);
+        }
+    }
+
+    private static HashCode hash(String hashKey) {
+        return HASH.hashString(hashKey, StandardCharsets.UTF_8);
+    }
+
+    private final class Window {
+        private final long start;
+        private final Sketch reads = new Sketch();
+        private final Sketch writes = new Sketch();
+        private final Map<String, Boolean> candidates = new ConcurrentHashMap<>();
+        private final ReentrantLock sweepLock = new ReentrantLock();
+        private volatile long admission;
+
+        private Window(long start) {
+            this.start = start;
+        }
+
+        private void add(String hashKey, boolean write) {
+            HashCode hash = hash(hashKey);
+            (write ? writes : reads).increment(hash);
+            if (candidates.containsKey(hashKey)) {
+                return;
+            }
+
+            int capacity = topK * CANDIDATES_PER_TOP_KEY;
+            if (candidates.size() < capacity || estimate(hash) > admission) {
+                candidates.put(hashKey, Boolean.TRUE);
+                if (candidates.size() > 2 * capacity && sweepLock.tryLock()) {
+                    try {
+                        sweep(capacity);
+                    } finally {
+                        sweepLock.unlock();
+                    }
+                }
+            }
+        }
+
+        private long estimate(HashCode hash) {
+            return reads.estimate(hash) + writes.estimate(hash);
+        }
+
+        /**
+         * Keeps the candidates with the highest counts, and only admits new candidates counted more than the last one
+         */
+        private void sweep(int capacity) {
+            List<String> kept = top(capacity);
+            candidates.keySet().retainAll(new HashSet<>(kept));
+            if (!kept.isEmpty()) {
+                admission = estimate(hash(kept.get(kept.size() - 1)));
+            }
+        }
+
+        private List<String> top(int n) {
+            List<Map.Entry<String, Long>> counts = new ArrayList<>();
+            for (String hashKey : candidates.keySet()) {
+                counts.add(new AbstractMap.SimpleImmutableEntry<>(hashKey, estimate(hash(hashKey))));
+            }
+            counts.sort(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()));
+
+            List<String> top = new ArrayList<>(Math.min(n, counts.size()));
+            for (Map.Entry<String, Long> count : counts.subList(0, Math.min(n, counts.size()))) {
+                top.add(count.getKey());
+            }
+            return top;
+        }
+    }
+
+    /**
+     * Count-min sketch: {@value #DEPTH} rows of {@value #WIDTH} counters, each row indexed by a different hash of the key
+     */
+    private static final class Sketch {
+        private final AtomicLongArray counters = new AtomicLongArray(DEPTH * WIDTH);
+
+        private void increment(HashCode hash) {
+            long combined = hash.asLong();
+            int h1 = (int) combined;
+            int h2 = (int) (combined >>> 32);
+            for (int row = 0; row < DEPTH; row++) {
+                counters.incrementAndGet(row * WIDTH + Math.floorMod(h1 + row * h2, WIDTH));
+            }
+        }
+
+        private long estimate(HashCode hash) {
+            long combined = hash.asLong();
+            int h1 = (int) combined;
+            int h2 = (int) (combined >>> 32);
+            long estimate = Long.MAX_VALUE;
+            for (int row = 0; row < DEPTH; row++) {
+                estimate = Math.min(estimate, counters.get(row * WIDTH + Math.floorMod(h1 + row * h2, WIDTH)));
+            }
+            return estimate;
+        }
+    }
+}
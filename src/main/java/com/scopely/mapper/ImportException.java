@@ -0,0 +1,19 @@
+package com.scopely.mapper;
+
+/**
+ * Thrown when a {@link TableImporter} fails. Items before {@code getProgress().getOffset()} were written, so the import
+ * can be resumed from that offset.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class ImportException extends MappingException {
+    private final ImportProgress progress;
+
+    public ImportException(String message, Throwable cause, ImportProgress progress) {
+        super(message, cause);
+        this.progress = progress;
+    }
+
+    public ImportProgress getProgress() {
+        return progress;
+    }
+}
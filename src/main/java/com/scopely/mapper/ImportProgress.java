@@ -0,0 +1,61 @@
+package com.scopely.mapper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot of the progress of a {@link TableImporter}.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class ImportProgress {
+    private final long offset;
+    private final long bytes;
+    private final long items;
+    private final long elapsedNanos;
+
+    ImportProgress(long offset, long bytes, long items, long elapsedNanos) {
+        this.offset = offset;
+        this.bytes = bytes;
+        this.items = items;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return Offset in the file before which every item has been written; an import started from this offset
+     * continues where this one stopped
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return Bytes of the file imported by this run
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * @return Items written by this run
+     */
+    public long getItems() {
+        return items;
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    public double getItemsPerSecond() {
+        return elapsedNanos == 0 ? 0 : items * 1e9 / elapsedNanos;
+    }
+
+    public double getBytesPerSecond() {
+        return elapsedNanos == 0 ? 0 : bytes * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ImportProgress{offset=%d, items=%d, elapsedMillis=%d, itemsPerSecond=%.1f}",
+                offset, items, getElapsedMillis(), getItemsPerSecond());
+    }
+}
@@ -0,0 +1,143 @@
+package com.scopely.mapper;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * All items under one hash key of a table with a range key, fetched with a single paginated, strongly consistent query
+ * and indexed by range key, so that point lookups and range slices are answered locally instead of costing a GetItem
+ * each. Range keys are ordered as DynamoDB orders them.
+ *
+ * The items are fetched when the collection is created and again on {@link #refresh()} or, with a TTL, on the first
+ * access after the TTL has passed since the last fetch. Writes made after a fetch, including the mapper's own, aren't
+ * seen until the next one.
+ *
+ * <pre>{@code
+ * ItemCollection<Invite> invites = mapper.collection(Invite.class, playerId, 60_000);
+ * Optional<Invite> invite = invites.get(inviteId);
+ * List<Invite> sent = invites.beginsWith("sent#");
+ * }</pre>
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class ItemCollection<T> {
+    private final JsonDynamoMapper mapper;
+    private final Class<T> clazz;
+    private final String hashKey;
+    private final long ttlNanos;
+    private final Ticker ticker;
+
+    private volatile NavigableMap<String, T> items;
+    private volatile long fetchedAtNanos;
+
+    ItemCollection(JsonDynamoMapper mapper, Class<T> clazz, String hashKey, long ttlMillis) throws MappingException {
+        this(mapper, clazz, hashKey, ttlMillis, Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    ItemCollection(JsonDynamoMapper mapper, Class<T> clazz, String hashKey, long ttlMillis, Ticker ticker)
+            throws MappingException {
+        if (hashKey == null || hashKey.trim().isEmpty()) {
+            throw new IllegalArgumentException("HashKey can't be null or empty");
+        }
+        if (ttlMillis < 0) {
+            throw new IllegalArgumentException("ttlMillis can't be negative");
+        }
+
+        this.mapper = mapper;
+        this.clazz = clazz;
+        this.hashKey = hashKey;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+        this.ticker = ticker;
+        refresh();
+    }
+
+    public String getHashKey() {
+        return hashKey;
+    }
+
+    /**
+     * Fetches the collection again
+     * @throws MappingException On JSON errors
+     */
+    public synchronized void refresh() throws MappingException {
+        long now = ticker.read();
+        items = Collections.unmodifiableNavigableMap(mapper.loadCollection(clazz, hashKey));
+        fetchedAtNanos = now;
+    }
+
+    public Optional<T> get(String rangeKey) throws MappingException {
+        return Optional.ofNullable(items().get(rangeKey));
+    }
+
+    /**
+     * @return Items with range keys from {@code fromInclusive} to {@code toExclusive}, in range key order
+     */
+    public List<T> range(String fromInclusive, String toExclusive) throws MappingException {
+        NavigableMap<String, T> current = items();
+        if (RangeKeys.compare(fromInclusive, toExclusive) >= 0) {
+            return new ArrayList<>();
+        }
+        return new ArrayList<>(current.subMap(fromInclusive, true, toExclusive, false).values());
+    }
+
+    /**
+     * @return Items whose range keys start with the prefix, in range key order
+     */
+    public List<T> beginsWith(String prefix) throws MappingException {
+        NavigableMap<String, T> current = items();
+        @Nullable String end = prefixEnd(prefix);
+        return new ArrayList<>((end == null ? current.tailMap(prefix, true) : current.subMap(prefix, true, end, false))
+                .values());
+    }
+
+    /**
+     * @return All items, in range key order
+     */
+    public List<T> all() throws MappingException {
+        return new ArrayList<>(items().values());
+    }
+
+    public int size() throws MappingException {
+        return items().size();
+    }
+
+    private NavigableMap<String, T> items() throws MappingException {
+        if (ttlNanos > 0 && ticker.read() - fetchedAtNanos >= ttlNanos) {
+            synchronized (this) {
+                if (ticker.read() - fetchedAtNanos >= ttlNanos) {
+                    refresh();
+                }
+            }
+        }
+        return items;
+    }
+
+    /**
+     * @return The smallest string greater than every string starting with the prefix, or null if there is none
+     */
+    @Nullable
+    private static String prefixEnd(String prefix) {
+        int end = prefix.length();
+        while (end > 0) {
+            int codePoint = prefix.codePointBefore(end);
+            end -= Character.charCount(codePoint);
+            if (codePoint < Character.MAX_CODE_POINT) {
+                int next = codePoint + 1;
+                // Surrogate code points aren't characters; the next character is U+E000
+                if (next >= Character.MIN_SURROGATE && next <= Character.MAX_SURROGATE) {
+                    next = Character.MAX_SURROGATE + 1;
+                }
+                return prefix.substring(0, end) + new String(Character.toChars(next));
+            }
+        }
+        return null;
+    }
+}
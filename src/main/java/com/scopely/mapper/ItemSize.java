@@ -0,0 +1,104 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.base.Utf8;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Computes the size of items the way DynamoDB does when enforcing the item size limit and charging capacity:
+ * <ul>
+ *     <li>attribute names, strings and binaries count their UTF-8 or raw bytes;</li>
+ *     <li>numbers count one byte per two significant digits, plus one byte;</li>
+ *     <li>nulls and booleans count one byte;</li>
+ *     <li>sets count the sum of their members;</li>
+ *     <li>lists and maps count three bytes, plus one byte and the size of each element (and its name, for maps).</li>
+ * </ul>
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public final class ItemSize {
+    /**
+     * Maximum size of a DynamoDB item
+     */
+    public static final int MAX_ITEM_SIZE = 400 * 1024;
+
+    private ItemSize() {
+    }
+
+    public static int of(Map<String, AttributeValue> item) {
+        int size = 0;
+        for (Map.Entry<String, AttributeValue> entry : item.entrySet()) {
+            size += Utf8.encodedLength(entry.getKey()) + of(entry.getValue());
+        }
+        return size;
+    }
+
+    public static int of(AttributeValue value) {
+        if (value.getS() != null) {
+            return Utf8.encodedLength(value.getS());
+        } else if (value.getN() != null) {
+            return numberSize(value.getN());
+        } else if (value.getB() != null) {
+            return value.getB().remaining();
+        } else if (value.getSS() != null) {
+            int size = 0;
+            for (String s : value.getSS()) {
+                size += Utf8.encodedLength(s);
+            }
+            return size;
+        } else if (value.getNS() != null) {
+            int size = 0;
+            for (String n : value.getNS()) {
+                size += numberSize(n);
+            }
+            return size;
+        } else if (value.getBS() != null) {
+            int size = 0;
+            for (ByteBuffer b : value.getBS()) {
+                size += b.remaining();
+            }
+            return size;
+        } else if (value.getM() != null) {
+            Map<String, AttributeValue> m = value.getM();
+            return 3 + m.size() + of(m);
+        } else if (value.getL() != null) {
+            List<AttributeValue> l = value.getL();
+            int size = 3 + l.size();
+            for (AttributeValue element : l) {
+                size += of(element);
+            }
+            return size;
+        }
+        // NULL and BOOL
+        return 1;
+    }
+
+    /**
+     * Leading and trailing zeroes aren't significant, and neither are the sign, the decimal point and the exponent
+     */
+    static int numberSize(String n) {
+        int first = -1;
+        int last = -1;
+        int digits = 0;
+        for (int i = 0; i < n.length(); i++) {
+            char c = n.charAt(i);
+            if (c == 'e' || c == 'E') {
+                break;
+            }
+            if (c < '0' || c > '9') {
+                continue;
+            }
+            if (c != '0') {
+                if (first < 0) {
+                    first = digits;
+                }
+                last = digits;
+            }
+            digits++;
+        }
+        int significant = first < 0 ? 0 : last - first + 1;
+        return (significant + 1) / 2 + 1;
+    }
+}
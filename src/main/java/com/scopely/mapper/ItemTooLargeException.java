@@ -0,0 +1,22 @@
+package com.scopely.mapper;
+
+/**
+ * Thrown before sending an item that is over DynamoDB's item size limit of {@value ItemSize#MAX_ITEM_SIZE} bytes,
+ * which DynamoDB would reject.
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public class ItemTooLargeException extends MappingException {
+    private final int size;
+
+    public ItemTooLargeException(String message, int size) {
+        super(message);
+        this.size = size;
+    }
+
+    /**
+     * @return Size of the item, as computed by {@link ItemSize}
+     */
+    public int getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,131 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMethod;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.google.common.collect.ImmutableMap;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates read-only views of items: dynamic proxies of an interface that keep the item's attribute values and decode a
+ * property the first time its getter is called, caching the result. Properties are found the way Jackson finds them
+ * when serializing the interface, so a view returns what a converted object would.
+ */
+final class ItemViews {
+    private static final Object NULL = new Object();
+
+    private final ObjectMapper objectMapper;
+    @Nullable private final StringInterner interner;
+    private final ConcurrentHashMap<Class<?>, Map<Method, Property>> propertiesByClass = new ConcurrentHashMap<>();
+
+    ItemViews(ObjectMapper objectMapper, @Nullable StringInterner interner) {
+        this.objectMapper = objectMapper;
+        this.interner = interner;
+    }
+
+    <T> T view(Class<T> clazz, Map<String, AttributeValue> item) throws MappingException {
+        if (!clazz.isInterface()) {
+            throw new IllegalArgumentException("Views require an interface, not " + clazz);
+        }
+
+        Map<Method, Property> properties = propertiesByClass.computeIfAbsent(clazz, this::properties);
+        return clazz.cast(Proxy.newProxyInstance(clazz.getClassLoader(), new Class<?>[]{clazz},
+                new View(clazz, properties, item)));
+    }
+
+    private Map<Method, Property> properties(Class<?> clazz) {
+        JavaType type = objectMapper.constructType(clazz);
+        BeanDescription description = objectMapper.getSerializationConfig().introspect(type);
+
+        ImmutableMap.Builder<Method, Property> properties = ImmutableMap.builder();
+        for (BeanPropertyDefinition definition : description.findProperties()) {
+            AnnotatedMethod getter = definition.getGetter();
+            if (getter != null) {
+                Method method = getter.getAnnotated();
+                properties.put(method, new Property(definition.getName(),
+                        objectMapper.getTypeFactory().constructType(method.getGenericReturnType())));
+            }
+        }
+        return properties.build();
+    }
+
+    private static final class Property {
+        private final String name;
+        private final JavaType type;
+
+        private Property(String name, JavaType type) {
+            this.name = name;
+            this.type = type;
+        }
+    }
+
+    private final class View implements InvocationHandler {
+        private final Class<?> clazz;
+        private final Map<Method, Property> properties;
+        private final Map<String, AttributeValue> item;
+        private final ConcurrentHashMap<Method, Object> decoded = new ConcurrentHashMap<>();
+
+        private View(Class<?> clazz, Map<Method, Property> properties, Map<String, AttributeValue> item) {
+            this.clazz = clazz;
+            this.properties = properties;
+            this.item = item;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return args[0] != null && Proxy.isProxyClass(args[0].getClass())
+                                && Proxy.getInvocationHandler(args[0]) instanceof View
+                                && ((View) Proxy.getInvocationHandler(args[0])).clazz == clazz
+                                && ((View) Proxy.getInvocationHandler(args[0])).item.equals(item);
+                    case "hashCode":
+                        return item.hashCode();
+                    case "toString":
+                        return clazz.getSimpleName() + "View" + item;
+                    default:
+                        throw new UnsupportedOperationException(method.toString());
+                }
+            }
+
+            Property property = properties.get(method);
+            if (property == null) {
+                throw new UnsupportedOperationException("Views of " + clazz + " only support property getters, not "
+                        + method.getName());
+            }
+
+            Object value = decoded.get(method);
+            if (value == null) {
+                value = decode(property);
+                decoded.put(method, value == null ? NULL : value);
+            }
+            return value == NULL ? null : value;
+        }
+
+        @Nullable
+        private Object decode(Property property) throws MappingException {
+            AttributeValue attributeValue = item.get(property.name);
+            JsonNode node = attributeValue == null
+                    ? objectMapper.getNodeFactory().nullNode()
+                    : JsonNodeAttributeValueMapper.makeNode(property.name, attributeValue, objectMapper.getNodeFactory(),
+                            interner);
+            try {
+                return objectMapper.readValue(node.traverse(), property.type);
+            } catch (IOException e) {
+                throw new MappingException("Exception deserializing " + property.name + ": " + node, e);
+            }
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.scopely.mapper;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBAutoGeneratedKey;
 import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBHashKey;
@@ -11,49 +12,82 @@ import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBVersionAttribute;
 import com.amazonaws.services.dynamodbv2.datamodeling.QueryResultPage;
 import com.amazonaws.services.dynamodbv2.datamodeling.ScanResultPage;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
 import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
 import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.DeleteRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
 import com.amazonaws.services.dynamodbv2.model.GetItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputDescription;
 import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
 import com.amazonaws.services.dynamodbv2.model.PutItemResult;
 import com.amazonaws.services.dynamodbv2.model.PutRequest;
 import com.amazonaws.services.dynamodbv2.model.QueryRequest;
 import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import com.amazonaws.services.dynamodbv2.model.ReturnConsumedCapacity;
 import com.amazonaws.services.dynamodbv2.model.ScanRequest;
 import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.amazonaws.services.dynamodbv2.model.Select;
 import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.fasterxml.jackson.databind.BeanDescription;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.hash.HashCode;
+import com.scopely.mapper.AdaptiveConcurrencyLimiter.Operation;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.AnnotatedType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * JsonDynamoMapper requires that all classes used with it can be safely round-tripped to JSON. In all cases, it
  * first converts to JSON, then to the target class or to a DynamoDB record. When creating a DynamoDB record, nested
  * objects will be converted into Map fields.
  *
- * There are some limitations to the mapping-- JSON supports arrays with mixed data types in their entries, while
- * DynamoDB does not. JSON also supports arrays of objects, which DynamoDB does not. Such items will raise {@link MappingException}
- * when saved to DynamoDB.
+ * Arrays are stored as configured by {@link ArrayEncoding}. With the default, {@link ArrayEncoding#SETS}, arrays of
+ * only strings or only numbers are stored as string and number sets, which don't keep order or duplicates; every other
+ * array -- mixed types, booleans, nulls, objects, nested arrays -- is stored as a list ({@code L}). With
+ * {@link ArrayEncoding#LISTS}, every array is stored as a list. Lists of any shape are read back as JSON arrays.
  *
  * This class does not implement all the DynamoDB methods-- additional methods taking a similar approach can be used
  * by using the DynamoDB low-level API and then using {@link #convert(Class, Map)} and {@link #convert(Object)} to
@@ -68,18 +102,75 @@ import java.util.UUID;
  */
 @SuppressWarnings({"WeakerAccess", "unused"})
 public class JsonDynamoMapper {
-    private final int BATCH_SAVE_UNPROCESSED_MAX_TRIES = 3;
+    private static final int BATCH_WRITE_MAX_ITEMS = 25;
+    private static final int BATCH_WRITE_MAX_BYTES = 16 * 1024 * 1024;
+    private static final int BATCH_GET_MAX_KEYS = 100;
+    private static final int DEFAULT_DELETE_PARALLELISM = 4;
+    private static final int DEFAULT_QUERY_MANY_PARALLELISM = 8;
+    private static final Pattern NAME_PLACEHOLDER = Pattern.compile("#[A-Za-z0-9_]+");
 
     private final AmazonDynamoDB amazonDynamoDB;
     private final ObjectMapper objectMapper;
+    private final RetryPolicy retryPolicy;
+    private final RetryPolicy deleteRetryPolicy;
+    @Nullable private final HedgingPolicy hedgingPolicy;
+    @Nullable private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    @Nullable private final ForkJoinPool decodePool;
+    private final int parallelDecodeThreshold;
+    private final ArrayEncoding arrayEncoding;
+    @Nullable private final MapperMetrics metrics;
+    @Nullable private final SessionConsistency sessionConsistency;
+    @Nullable private final QueryCache queryCache;
+    @Nullable private final HotKeyDetector hotKeyDetector;
+    @Nullable private final WriteFingerprints writeFingerprints;
+    @Nullable private final StringInterner stringInterner;
+    private final Map<String, ExistenceFilter> existenceFilters;
+    private final Map<String, WriteSharding> writeShardings;
+    private final ConcurrentHashMap<Class<?>, Optional<WriteSharding>> writeShardingsByClass = new ConcurrentHashMap<>();
+    private final ItemViews itemViews;
 
     public JsonDynamoMapper(AmazonDynamoDB amazonDynamoDB) {
-        this(amazonDynamoDB, new ObjectMapper().registerModule(new Jdk8Module()));
+        this(amazonDynamoDB, new JsonDynamoMapperConfig());
     }
 
     public JsonDynamoMapper(AmazonDynamoDB amazonDynamoDB, ObjectMapper objectMapper) {
+        this(amazonDynamoDB, objectMapper, new JsonDynamoMapperConfig());
+    }
+
+    public JsonDynamoMapper(AmazonDynamoDB amazonDynamoDB, JsonDynamoMapperConfig config) {
+        this(amazonDynamoDB, new ObjectMapper().registerModule(new Jdk8Module()), config);
+    }
+
+    public JsonDynamoMapper(AmazonDynamoDB amazonDynamoDB, ObjectMapper objectMapper, JsonDynamoMapperConfig config) {
         this.amazonDynamoDB = amazonDynamoDB;
         this.objectMapper = objectMapper;
+        this.retryPolicy = config.getRetryPolicy();
+        // Bulk deletes leave many unprocessed keys when throttled, which immediate retries would only throttle again
+        this.deleteRetryPolicy = retryPolicy == RetryPolicy.NO_BACKOFF ? new ExponentialBackoffRetryPolicy() : retryPolicy;
+        this.hedgingPolicy = config.getHedgingPolicy().orElse(null);
+        this.concurrencyLimiter = config.getConcurrencyLimiter().orElse(null);
+        this.decodePool = config.getDecodePool().orElse(null);
+        this.parallelDecodeThreshold = config.getParallelDecodeThreshold();
+        this.arrayEncoding = config.getArrayEncoding();
+        this.metrics = config.getMetrics().orElse(null);
+        this.sessionConsistency = config.getSessionConsistency().orElse(null);
+        this.queryCache = config.getQueryCache().orElse(null);
+        this.hotKeyDetector = config.getHotKeyDetector().orElse(null);
+        this.writeFingerprints = config.getWriteFingerprints().orElse(null);
+        this.stringInterner = config.getStringInterner().orElse(null);
+        this.existenceFilters = new HashMap<>();
+        for (ExistenceFilter existenceFilter : config.getExistenceFilters()) {
+            if (existenceFilters.put(existenceFilter.getTableName(), existenceFilter) != null) {
+                throw new IllegalArgumentException("More than one existence filter for table " + existenceFilter.getTableName());
+            }
+        }
+        this.writeShardings = new HashMap<>();
+        for (WriteSharding writeSharding : config.getWriteShardings()) {
+            if (writeShardings.put(writeSharding.getTableName(), writeSharding) != null) {
+                throw new IllegalArgumentException("More than one write sharding for table " + writeSharding.getTableName());
+            }
+        }
+        this.itemViews = new ItemViews(objectMapper, stringInterner);
     }
 
     public <T> T saveAndGet(T item) throws MappingException {
@@ -107,22 +198,47 @@ public class JsonDynamoMapper {
         String tableName = tableName(annotatedClazz);
 
         List<String> autoGeneratedAttributes = autoGeneratedAttributes(annotatedClazz);
+        @Nullable String versionAttribute = versionAttribute(annotatedClazz);
+        Map<String, AttributeValue> attributeValueMap = encode(serialized, autoGeneratedAttributes);
 
-        Method[] methods = annotatedClazz.getMethods();
-        DynamoDBVersionAttribute versionAnnotation;
-        for (Method method : methods) {
-            if ((versionAnnotation = method.getAnnotation(DynamoDBVersionAttribute.class)) != null) {
-                if (versionAnnotation.attributeName().trim().isEmpty()) {
-                    throw new MappingException("Class " + annotatedClazz + " missing attributeName for annotation " + DynamoDBVersionAttribute.class);
-                }
-                return putItem(serialized, tableName, autoGeneratedAttributes, versionAnnotation.attributeName());
+        if (writeFingerprints == null) {
+            return recordWrite(annotatedClazz, tableName, putItem(attributeValueMap, tableName, versionAttribute));
+        }
+
+        HashCode fingerprint = WriteFingerprints.fingerprint(attributeValueMap, versionAttribute);
+        Map<String, AttributeValue> key = keyOf(attributeValueMap, keyAttributeNames(annotatedClazz));
+        if (writeFingerprints.isUnchanged(tableName, key, fingerprint)) {
+            if (metrics != null) {
+                metrics.unchangedWritesSkipped(tableName, 1);
             }
+            return new PutItemResult().withAttributes(attributeValueMap);
         }
 
-        return putItem(serialized, tableName, autoGeneratedAttributes);
+        writeFingerprints.invalidate(tableName, key);
+        PutItemResult putItemResult = recordWrite(annotatedClazz, tableName, putItem(attributeValueMap, tableName, versionAttribute));
+        writeFingerprints.recordSave(tableName, key, fingerprint);
+        return putItemResult;
+    }
+
+    private PutItemResult recordWrite(Class<?> clazz, String tableName, PutItemResult putItemResult) throws MappingException {
+        recordAccess(clazz, tableName, putItemResult.getAttributes());
+        if (sessionConsistency != null || queryCache != null) {
+            recordWrite(tableName, keyOf(putItemResult.getAttributes(), keyAttributeNames(clazz)), false);
+        }
+        return putItemResult;
     }
 
     public <T> void saveAll(Class<T> clazz, List<T> items) throws MappingException {
+        saveAll(clazz, items, null);
+    }
+
+    /**
+     * Saves items with BatchWriteItem calls of up to 25 items and 16MB each. When a rate limiter is provided, each call
+     * waits for write capacity and charges the capacity it consumed against the limiter.
+     * @throws ItemTooLargeException If an item is over 400KB; no items are written
+     * @throws MappingException On JSON errors, invalid class, or if unprocessed items remain after retrying
+     */
+    public <T> void saveAll(Class<T> clazz, List<T> items, @Nullable CapacityRateLimiter rateLimiter) throws MappingException {
         Class<?> annotatedClazz = findAnnotatedClass(clazz, DynamoDBTable.class);
         if (annotatedClazz == null) {
             throw new MappingException("Could not find annotated interface for provided class " + clazz);
@@ -131,35 +247,175 @@ public class JsonDynamoMapper {
         String tableName = tableName(clazz);
         List<String> autoGeneratedAttributes = autoGeneratedAttributes(clazz);
 
-        List<WriteRequest> writeRequests = new ArrayList<>();
+        List<String> keyAttributes = keyAttributeNames(clazz);
+        @Nullable String versionAttribute = writeFingerprints == null ? null : versionAttribute(annotatedClazz);
+
+        List<WriteRequest> writeRequests = new ArrayList<>(items.size());
+        List<Map<String, AttributeValue>> keys = new ArrayList<>(items.size());
+        List<HashCode> fingerprints = new ArrayList<>(items.size());
+        int[] sizes = new int[items.size()];
+        int skipped = 0;
         for (T item : items) {
-            JsonNode json = objectMapper.valueToTree(item);
-            Map<String, AttributeValue> attributeValueMap = generateKeys(JsonNodeAttributeValueMapper.convert(json),
-                    autoGeneratedAttributes);
+            Map<String, AttributeValue> attributeValueMap = encode(objectMapper.valueToTree(item), autoGeneratedAttributes);
+            if (writeFingerprints != null) {
+                HashCode fingerprint = WriteFingerprints.fingerprint(attributeValueMap, versionAttribute);
+                Map<String, AttributeValue> key = keyOf(attributeValueMap, keyAttributes);
+                if (writeFingerprints.isUnchanged(tableName, key, fingerprint)) {
+                    skipped++;
+                    continue;
+                }
+                // Forgotten before the put, so that a concurrent save of the key recording first is seen by recordSave
+                writeFingerprints.invalidate(tableName, key);
+                keys.add(key);
+                fingerprints.add(fingerprint);
+            }
+
+            attributeValueMap = shard(tableName, attributeValueMap);
+            sizes[writeRequests.size()] = itemSize(tableName, attributeValueMap);
             writeRequests.add(new WriteRequest(new PutRequest(attributeValueMap)));
         }
+        if (skipped > 0 && metrics != null) {
+            metrics.unchangedWritesSkipped(tableName, skipped);
+        }
 
-        Map<String, List<WriteRequest>> requestItems = new HashMap<>();
-        requestItems.put(tableName, writeRequests);
-        BatchWriteItemRequest writeRequest = new BatchWriteItemRequest(requestItems);
+        int written = 0;
+        for (List<WriteRequest> batch : partitionWrites(writeRequests, sizes)) {
+            Map<String, List<WriteRequest>> requestItems = new HashMap<>();
+            requestItems.put(tableName, batch);
+            batchWrite(requestItems, rateLimiter);
+            for (WriteRequest writeRequest : batch) {
+                recordWrite(tableName, keyOf(writeRequest.getPutRequest().getItem(), keyAttributes), false);
+                recordAccess(clazz, tableName, writeRequest.getPutRequest().getItem());
+                if (writeFingerprints != null) {
+                    writeFingerprints.recordSave(tableName, keys.get(written), fingerprints.get(written));
+                }
+                written++;
+            }
+        }
+    }
 
-        BatchWriteItemResult result = amazonDynamoDB.batchWriteItem(writeRequest);
-        int tries = 0;
-        do {
-            if (tries++ > BATCH_SAVE_UNPROCESSED_MAX_TRIES) {
-                throw new MappingException("Reached max number of tries to execute batch save for unprocessed items");
+    /**
+     * Converts an item to the attribute values saved by {@link #saveAll(Class, List)}, generating missing
+     * auto-generated keys and appending the shard to sharded hash keys
+     */
+    Map<String, AttributeValue> toItem(Class<?> clazz, Object item) throws MappingException {
+        return toItem(item, tableName(clazz), autoGeneratedAttributes(clazz));
+    }
+
+    private Map<String, AttributeValue> toItem(Object item, String tableName, List<String> autoGeneratedAttributes)
+            throws MappingException {
+        return shard(tableName, encode(objectMapper.valueToTree(item), autoGeneratedAttributes));
+    }
+
+    /**
+     * @return Attribute values of a serialized item, with missing auto-generated keys generated
+     */
+    private Map<String, AttributeValue> encode(JsonNode json, List<String> autoGeneratedAttributes) {
+        return generateKeys(JsonNodeAttributeValueMapper.convert(json, arrayEncoding), autoGeneratedAttributes);
+    }
+
+    /**
+     * Computes the size of an item about to be written, reporting it to the metrics
+     * @throws ItemTooLargeException If the item is over DynamoDB's item size limit
+     */
+    int itemSize(String tableName, Map<String, AttributeValue> item) throws ItemTooLargeException {
+        int size = ItemSize.of(item);
+        if (metrics != null) {
+            metrics.itemEncoded(tableName, item, size);
+        }
+        if (size > ItemSize.MAX_ITEM_SIZE) {
+            throw new ItemTooLargeException(String.format("Item of %d bytes for table %s is over the limit of %d bytes",
+                    size, tableName, ItemSize.MAX_ITEM_SIZE), size);
+        }
+        return size;
+    }
+
+    /**
+     * Splits writes into consecutive batches within the item count and size limits of BatchWriteItem
+     * @param sizes Size of each write's item or key
+     */
+    static <E> List<List<E>> partitionWrites(List<E> writes, int[] sizes) {
+        List<List<E>> batches = new ArrayList<>();
+        int from = 0;
+        long bytes = 0;
+        for (int i = 0; i < writes.size(); i++) {
+            if (i - from == BATCH_WRITE_MAX_ITEMS || bytes + sizes[i] > BATCH_WRITE_MAX_BYTES) {
+                batches.add(writes.subList(from, i));
+                from = i;
+                bytes = 0;
+            }
+            bytes += sizes[i];
+        }
+        if (from < writes.size()) {
+            batches.add(writes.subList(from, writes.size()));
+        }
+        return batches;
+    }
+
+    /**
+     * Loads items by primary key with BatchGetItem calls of up to 100 keys each. Missing items are omitted and the
+     * order of the results is unspecified. Reads are strongly consistent, or follow the mapper's
+     * {@link SessionConsistency} if it has one.
+     * @throws MappingException On JSON errors, invalid class, or if unprocessed keys remain after retrying
+     */
+    public <T> List<T> batchLoad(Class<T> clazz, Collection<Key> keys) throws MappingException {
+        if (sessionConsistency == null) {
+            return batchLoad(clazz, keys, true, null);
+        }
+
+        List<Key> recentlyWritten = new ArrayList<>();
+        List<Key> others = new ArrayList<>();
+        for (Key key : keys) {
+            (consistentRead(clazz, key) ? recentlyWritten : others).add(key);
+        }
+        List<T> results = batchLoad(clazz, others, false, null);
+        results.addAll(batchLoad(clazz, recentlyWritten, true, null));
+        return results;
+    }
+
+    /**
+     * Same as {@link #batchLoad(Class, Collection)}; when a rate limiter is provided, each call waits for read
+     * capacity and charges the capacity it consumed against the limiter.
+     */
+    public <T> List<T> batchLoad(Class<T> clazz, Collection<Key> keys, boolean consistentRead,
+                                 @Nullable CapacityRateLimiter rateLimiter) throws MappingException {
+        String tableName = tableName(clazz);
+
+        List<Map<String, AttributeValue>> keyMaps = new ArrayList<>();
+        int skipped = 0;
+        for (Key key : new LinkedHashSet<>(keys)) {
+            recordAccess(tableName, key.getHashKey(), false);
+            for (Map<String, AttributeValue> keyMap : shardKeys(tableName, keyAttributes(clazz, key))) {
+                if (mightExist(tableName, keyMap)) {
+                    keyMaps.add(keyMap);
+                } else {
+                    skipped++;
+                }
             }
+        }
+        if (skipped > 0 && metrics != null) {
+            metrics.existenceFilterSkipped(tableName, skipped);
+        }
+
+        List<T> results = new ArrayList<>();
+        for (List<Map<String, AttributeValue>> batch : Lists.partition(keyMaps, BATCH_GET_MAX_KEYS)) {
+            Map<String, KeysAndAttributes> requestItems = new HashMap<>();
+            requestItems.put(tableName, new KeysAndAttributes().withKeys(batch).withConsistentRead(consistentRead));
 
-            Map<String, List<WriteRequest>> unprocessedItems = result.getUnprocessedItems();
-            if (result.getUnprocessedItems().size() > 0) {
-                result = amazonDynamoDB.batchWriteItem(unprocessedItems);
+            List<Map<String, AttributeValue>> items = batchGet(requestItems, rateLimiter).get(tableName);
+            if (items != null) {
+                results.addAll(convertItems(clazz, items));
             }
+        }
 
-        } while (result.getUnprocessedItems().size() > 0);
+        return results;
     }
 
+    /**
+     * Loads an item with a strongly consistent read, or following the mapper's {@link SessionConsistency} if it has one
+     */
     public <T> Optional<T> load(Class<T> clazz, String hashKey) throws MappingException {
-        return load(clazz, hashKey, true);
+        return load(clazz, hashKey, consistentRead(clazz, Key.of(hashKey)));
     }
 
     public <T> Optional<T> load(Class<T> clazz, String hashKey, boolean consistentRead) throws MappingException {
@@ -167,130 +423,964 @@ public class JsonDynamoMapper {
             throw new IllegalArgumentException("HashKey can't be null or empty");
         }
 
-        GetItemResult item = amazonDynamoDB.getItem(tableName(clazz),
-                ImmutableMap.of(hashKeyAttribute(clazz), new AttributeValue().withS(hashKey)),
-                consistentRead);
+        String tableName = tableName(clazz);
+        if (writeShardings.containsKey(tableName)) {
+            return loadSharded(clazz, Key.of(hashKey), consistentRead);
+        }
+        recordAccess(tableName, hashKey, false);
+        Map<String, AttributeValue> key = ImmutableMap.of(hashKeyAttribute(clazz), new AttributeValue().withS(hashKey));
+        if (!mightExistOrRecordSkip(tableName, key)) {
+            return Optional.empty();
+        }
+
+        GetItemResult item = getItem(new GetItemRequest(tableName, key, consistentRead));
+
+        if (item.getItem() == null) {
+            return Optional.empty();
+        }
+
+        return Optional.of(convert(clazz, item.getItem()));
+    }
+
+    /**
+     * Loads an item with a strongly consistent read, or following the mapper's {@link SessionConsistency} if it has one
+     */
+    public <T> Optional<T> load(Class<T> clazz, String hashKey, String rangeKey) throws MappingException {
+        return load(clazz, hashKey, rangeKey, consistentRead(clazz, Key.of(hashKey, rangeKey)));
+    }
+
+    public <T> Optional<T> load(Class<T> clazz, String hashKey, String rangeKey, boolean consistentRead) throws MappingException {
+        if (hashKey == null || hashKey.trim().isEmpty()) {
+            throw new IllegalArgumentException("HashKey can't be null or empty");
+        }
+
+        if (rangeKey == null || rangeKey.trim().isEmpty()) {
+            throw new IllegalArgumentException("RangeKey can't be null or empty");
+        }
+
+        String tableName = tableName(clazz);
+        if (writeShardings.containsKey(tableName)) {
+            return loadSharded(clazz, Key.of(hashKey, rangeKey), consistentRead);
+        }
+        recordAccess(tableName, hashKey, false);
+        Map<String, AttributeValue> key = ImmutableMap.of(
+                hashKeyAttribute(clazz), new AttributeValue().withS(hashKey),
+                rangeKeyAttribute(clazz), new AttributeValue().withS(rangeKey));
+        if (!mightExistOrRecordSkip(tableName, key)) {
+            return Optional.empty();
+        }
+
+        GetItemResult item = getItem(new GetItemRequest(tableName, key, consistentRead));
+
+        if (item.getItem() == null) {
+            return Optional.empty();
+        }
+
+        return Optional.of(convert(clazz, item.getItem()));
+    }
+
+    private <T> Optional<T> loadSharded(Class<T> clazz, Key key, boolean consistentRead) throws MappingException {
+        List<T> items = loadShards(clazz, key, consistentRead);
+        if (items.size() > 1) {
+            throw new MappingException(key + " of " + clazz + " has items on " + items.size() + " shards; use loadShards");
+        }
+        return items.stream().findFirst();
+    }
+
+    /**
+     * Loads the items of a key of a sharded table from every shard with one BatchGetItem, with a strongly consistent
+     * read. Items written to random shards can be on several shards, such as the parts of a sharded counter.
+     * @return Items found, in unspecified order
+     * @throws MappingException On JSON errors or invalid class
+     * @see WriteSharding
+     */
+    public <T> List<T> loadShards(Class<T> clazz, Key key) throws MappingException {
+        return loadShards(clazz, key, true);
+    }
+
+    public <T> List<T> loadShards(Class<T> clazz, Key key, boolean consistentRead) throws MappingException {
+        return batchLoad(clazz, Collections.singleton(key), consistentRead, null);
+    }
+
+    public boolean exists(Class<?> clazz, String hashKey) throws MappingException {
+        Key key = Key.of(hashKey);
+        return exists(clazz, key, consistentRead(clazz, key));
+    }
+
+    public boolean exists(Class<?> clazz, String hashKey, String rangeKey) throws MappingException {
+        Key key = Key.of(hashKey, rangeKey);
+        return exists(clazz, key, consistentRead(clazz, key));
+    }
+
+    /**
+     * Checks whether an item exists, with a GetItem that only projects the hash key, or a BatchGetItem over the key's
+     * shards if the table is sharded: the item's attributes are neither transferred nor converted.
+     * @throws MappingException On invalid class
+     */
+    public boolean exists(Class<?> clazz, Key key, boolean consistentRead) throws MappingException {
+        String tableName = tableName(clazz);
+        if (writeShardings.containsKey(tableName)) {
+            return existsOnAnyShard(clazz, tableName, key, consistentRead);
+        }
+        recordAccess(tableName, key.getHashKey(), false);
+        Map<String, AttributeValue> keyMap = keyAttributes(clazz, key);
+        if (!mightExistOrRecordSkip(tableName, keyMap)) {
+            return false;
+        }
+
+        GetItemResult item = getItem(new GetItemRequest(tableName, keyMap, consistentRead)
+                .withProjectionExpression("#h")
+                .withExpressionAttributeNames(ImmutableMap.of("#h", hashKeyAttribute(clazz))));
+
+        return item.getItem() != null;
+    }
+
+    /**
+     * Same as {@link #exists(Class, Key, boolean)} for a sharded table, with BatchGetItem calls over the key's shards
+     * that only project the hash key, until one finds an item
+     */
+    private boolean existsOnAnyShard(Class<?> clazz, String tableName, Key key, boolean consistentRead)
+            throws MappingException {
+        recordAccess(tableName, key.getHashKey(), false);
+        List<Map<String, AttributeValue>> keyMaps = new ArrayList<>();
+        int skipped = 0;
+        for (Map<String, AttributeValue> keyMap : shardKeys(tableName, keyAttributes(clazz, key))) {
+            if (mightExist(tableName, keyMap)) {
+                keyMaps.add(keyMap);
+            } else {
+                skipped++;
+            }
+        }
+        if (skipped > 0 && metrics != null) {
+            metrics.existenceFilterSkipped(tableName, skipped);
+        }
+
+        for (List<Map<String, AttributeValue>> batch : Lists.partition(keyMaps, BATCH_GET_MAX_KEYS)) {
+            Map<String, KeysAndAttributes> requestItems = new HashMap<>();
+            requestItems.put(tableName, new KeysAndAttributes()
+                    .withKeys(batch)
+                    .withConsistentRead(consistentRead)
+                    .withProjectionExpression("#h")
+                    .withExpressionAttributeNames(ImmutableMap.of("#h", hashKeyAttribute(clazz))));
+
+            List<Map<String, AttributeValue>> items = batchGet(requestItems, null).get(tableName);
+            if (items != null && !items.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public <T> void delete(Class<T> clazz, String hashKey) throws MappingException {
+        if (hashKey == null || hashKey.trim().isEmpty()) {
+            throw new IllegalArgumentException("HashKey can't be null or empty");
+        }
+
+        String tableName = tableName(clazz);
+        Map<String, AttributeValue> key = ImmutableMap.of(hashKeyAttribute(clazz), new AttributeValue().withS(hashKey));
+        recordAccess(tableName, hashKey, true);
+        if (writeShardings.containsKey(tableName)) {
+            deleteKeys(tableName, shardKeys(tableName, key), DEFAULT_DELETE_PARALLELISM, null);
+            return;
+        }
+        call(Operation.DELETE_ITEM, () -> amazonDynamoDB.deleteItem(tableName, key));
+        recordWrite(tableName, key);
+    }
+
+    public <T> void delete(Class<T> clazz, String hashKey, String rangeKey) throws MappingException {
+        if (rangeKey == null || rangeKey.trim().isEmpty()) {
+            throw new IllegalArgumentException("RangeKey can't be null or empty");
+        }
+
+        String tableName = tableName(clazz);
+        Map<String, AttributeValue> key = ImmutableMap.of(
+                hashKeyAttribute(clazz), new AttributeValue().withS(hashKey),
+                rangeKeyAttribute(clazz), new AttributeValue().withS(rangeKey));
+        recordAccess(tableName, hashKey, true);
+        if (writeShardings.containsKey(tableName)) {
+            deleteKeys(tableName, shardKeys(tableName, key), DEFAULT_DELETE_PARALLELISM, null);
+            return;
+        }
+        call(Operation.DELETE_ITEM, () -> amazonDynamoDB.deleteItem(tableName, key));
+        recordWrite(tableName, key);
+    }
+
+    /**
+     * Deletes items by primary key with BatchWriteItem calls of up to 25 keys each, running up to
+     * {@value #DEFAULT_DELETE_PARALLELISM} calls at a time. Unprocessed keys are retried with the mapper's retry policy,
+     * or with an {@link ExponentialBackoffRetryPolicy} if it's {@link RetryPolicy#NO_BACKOFF}.
+     * @throws MappingException On invalid class, or if unprocessed keys remain after retrying
+     */
+    public void deleteAll(Class<?> clazz, Collection<Key> keys) throws MappingException {
+        deleteAll(clazz, keys, DEFAULT_DELETE_PARALLELISM, null);
+    }
+
+    /**
+     * Same as {@link #deleteAll(Class, Collection)}, running up to {@code parallelism} calls at a time. A rate limiter,
+     * if provided, is shared by all calls.
+     */
+    public void deleteAll(Class<?> clazz, Collection<Key> keys, int parallelism,
+                          @Nullable CapacityRateLimiter rateLimiter) throws MappingException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+
+        String tableName = tableName(clazz);
+        List<Map<String, AttributeValue>> keyMaps = new ArrayList<>();
+        for (Key key : new LinkedHashSet<>(keys)) {
+            recordAccess(tableName, key.getHashKey(), true);
+            keyMaps.addAll(shardKeys(tableName, keyAttributes(clazz, key)));
+        }
+        deleteKeys(tableName, keyMaps, parallelism, rateLimiter);
+    }
+
+    /**
+     * Deletes every item matching a query. Each page is read with a projection of only the table's key attributes and
+     * its keys are deleted with batched BatchWriteItem calls before the next page is read; items are never decoded.
+     * The expression's filter applies, and its projection and limit per page are ignored.
+     * @return Number of items deleted
+     * @throws MappingException On invalid class, or if unprocessed keys remain after retrying
+     */
+    public long deleteByQuery(Class<?> clazz, @NotNull DynamoDBQueryExpression queryExpr) throws MappingException {
+        return deleteByQuery(clazz, queryExpr, DEFAULT_DELETE_PARALLELISM, null);
+    }
+
+    /**
+     * Same as {@link #deleteByQuery(Class, DynamoDBQueryExpression)}, running up to {@code parallelism} delete calls
+     * at a time. A rate limiter, if provided, is charged for both the query pages and the deletes.
+     */
+    public long deleteByQuery(Class<?> clazz, @NotNull DynamoDBQueryExpression queryExpr, int parallelism,
+                              @Nullable CapacityRateLimiter rateLimiter) throws MappingException {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+
+        String tableName = tableName(clazz);
+
+        // The expression's projection is replaced, so only the names of its key condition and filter are kept
+        Map<String, String> attributeNames = new HashMap<>();
+        Map<String, String> usedNames = namesUsedBy(queryExpr.getExpressionAttributeNames(),
+                queryExpr.getKeyConditionExpression(), queryExpr.getFilterExpression());
+        if (usedNames != null) {
+            attributeNames.putAll(usedNames);
+        }
+        List<String> projection = new ArrayList<>();
+        for (String keyAttribute : keyAttributeNames(clazz)) {
+            String placeholder = "#key" + projection.size();
+            attributeNames.put(placeholder, keyAttribute);
+            projection.add(placeholder);
+        }
+
+        QueryRequest queryRequest = queryRequestForScanExpression(queryExpr)
+                .withTableName(tableName)
+                .withSelect((String) null)
+                .withProjectionExpression(String.join(", ", projection))
+                .withExpressionAttributeNames(attributeNames)
+                .withLimit(null);
+
+        long deleted = 0;
+        do {
+            QueryResult queryResult = query(queryRequest, rateLimiter);
+            deleteKeys(tableName, queryResult.getItems(), parallelism, rateLimiter);
+            deleted += queryResult.getItems().size();
+            queryRequest.setExclusiveStartKey(queryResult.getLastEvaluatedKey());
+        } while (queryRequest.getExclusiveStartKey() != null);
+
+        return deleted;
+    }
+
+    private void deleteKeys(String tableName, List<Map<String, AttributeValue>> keys, int parallelism,
+                            @Nullable CapacityRateLimiter rateLimiter) throws MappingException {
+        List<Callable<Void>> batches = new ArrayList<>();
+        for (List<Map<String, AttributeValue>> batch : Lists.partition(keys, BATCH_WRITE_MAX_ITEMS)) {
+            List<WriteRequest> deletes = new ArrayList<>(batch.size());
+            for (Map<String, AttributeValue> key : batch) {
+                deletes.add(new WriteRequest(new DeleteRequest(key)));
+            }
+            Map<String, List<WriteRequest>> requestItems = new HashMap<>();
+            requestItems.put(tableName, deletes);
+            batches.add(() -> {
+                batchWrite(requestItems, rateLimiter, deleteRetryPolicy);
+                for (Map<String, AttributeValue> key : batch) {
+                    recordWrite(tableName, key);
+                }
+                return null;
+            });
+        }
+        ParallelTasks.run(batches, parallelism);
+    }
+
+    /**
+     * Records a written or deleted key with the session consistency and the query cache, if any
+     */
+    void recordWrite(String tableName, Map<String, AttributeValue> key) {
+        recordWrite(tableName, key, true);
+    }
+
+    /**
+     * @param forgetFingerprint Whether to forget the key's fingerprint; saves forget it before their put instead, since
+     *                          forgetting it after could drop the fingerprint of a concurrent save of the key
+     */
+    private void recordWrite(String tableName, Map<String, AttributeValue> key, boolean forgetFingerprint) {
+        // Fingerprints and session consistency are checked by logical key, so they record writes without the shard
+        WriteSharding writeSharding = writeShardings.get(tableName);
+        Map<String, AttributeValue> logicalKey = writeSharding == null ? key : writeSharding.unshard(key);
+        if (forgetFingerprint && writeFingerprints != null) {
+            writeFingerprints.invalidate(tableName, logicalKey);
+        }
+        if (sessionConsistency != null) {
+            sessionConsistency.recordWrite(tableName, logicalKey);
+        }
+        if (queryCache != null) {
+            queryCache.invalidate(tableName, key);
+        }
+    }
+
+    /**
+     * Counts an access to a hash key with the hot key detector, if the access is sampled
+     */
+    private void recordAccess(String tableName, String hashKey, boolean write) {
+        if (hotKeyDetector != null && hotKeyDetector.sample()) {
+            hotKeyDetector.record(tableName, hashKey, write, metrics);
+        }
+    }
+
+    /**
+     * Counts a write of an item with the hot key detector, if the write is sampled
+     */
+    private void recordAccess(Class<?> clazz, String tableName, Map<String, AttributeValue> item) throws MappingException {
+        if (hotKeyDetector != null && hotKeyDetector.sample()) {
+            AttributeValue hashKey = unshard(clazz, item).get(hashKeyAttribute(clazz));
+            if (hashKey != null) {
+                hotKeyDetector.record(tableName, hashKey.getS() != null ? hashKey.getS() : hashKey.getN(), true, metrics);
+            }
+        }
+    }
+
+    /**
+     * @return The item with its hash key suffixed with a shard, if the table is sharded
+     */
+    private Map<String, AttributeValue> shard(String tableName, Map<String, AttributeValue> item) throws MappingException {
+        WriteSharding writeSharding = writeShardings.get(tableName);
+        return writeSharding == null ? item : writeSharding.shard(item);
+    }
+
+    /**
+     * @return The key on every shard if the table is sharded, otherwise the key itself
+     */
+    List<Map<String, AttributeValue>> shardKeys(String tableName, Map<String, AttributeValue> key) throws MappingException {
+        WriteSharding writeSharding = writeShardings.get(tableName);
+        return writeSharding == null ? Collections.singletonList(key) : writeSharding.shardKeys(key);
+    }
+
+    /**
+     * @return The item with the shard suffix removed from its hash key, if the class's table is sharded
+     */
+    private Map<String, AttributeValue> unshard(Class<?> clazz, Map<String, AttributeValue> item) {
+        if (writeShardings.isEmpty()) {
+            return item;
+        }
+        Optional<WriteSharding> writeSharding = writeShardingsByClass.computeIfAbsent(clazz, c -> {
+            Class<?> annotatedClazz = findAnnotatedClass(c, DynamoDBTable.class);
+            return annotatedClazz == null
+                    ? Optional.empty()
+                    : Optional.ofNullable(writeShardings.get(annotatedClazz.getAnnotation(DynamoDBTable.class).tableName()));
+        });
+        return writeSharding.isPresent() ? writeSharding.get().unshard(item) : item;
+    }
+
+    /**
+     * @return False if the table's existence filter knows that no item has the key
+     */
+    private boolean mightExist(String tableName, Map<String, AttributeValue> key) {
+        ExistenceFilter existenceFilter = existenceFilters.get(tableName);
+        return existenceFilter == null || existenceFilter.mightExist(key);
+    }
+
+    private boolean mightExistOrRecordSkip(String tableName, Map<String, AttributeValue> key) {
+        if (mightExist(tableName, key)) {
+            return true;
+        }
+        if (metrics != null) {
+            metrics.existenceFilterSkipped(tableName, 1);
+        }
+        return false;
+    }
+
+    /**
+     * Adds an item about to be put to its table's existence filter, so that a load racing the put isn't answered as
+     * missing
+     */
+    private void recordPut(String tableName, Map<String, AttributeValue> item) {
+        ExistenceFilter existenceFilter = existenceFilters.get(tableName);
+        if (existenceFilter != null) {
+            existenceFilter.put(item);
+        }
+    }
+
+    /**
+     * Builds the existence filter registered for a class's table with a parallel scan of the table's keys. Loads keep
+     * using the previous filter, if any, until the scan finishes; items the mapper puts during the scan are included.
+     * @return Number of keys scanned
+     * @throws MappingException On invalid class, or if the table has no existence filter
+     */
+    public long buildExistenceFilter(Class<?> clazz, int totalSegments, @Nullable CapacityRateLimiter rateLimiter)
+            throws MappingException {
+        if (totalSegments < 1) {
+            throw new IllegalArgumentException("totalSegments must be at least 1");
+        }
+        String tableName = tableName(clazz);
+        ExistenceFilter existenceFilter = existenceFilters.get(tableName);
+        if (existenceFilter == null) {
+            throw new MappingException("No existence filter for table " + tableName);
+        }
+
+        List<String> keyAttributes = existenceFilter.keyAttributes();
+        Map<String, String> names = new HashMap<>();
+        for (int i = 0; i < keyAttributes.size(); i++) {
+            names.put("#key" + i, keyAttributes.get(i));
+        }
+
+        List<Callable<Long>> segments = new ArrayList<>();
+        for (int segment = 0; segment < totalSegments; segment++) {
+            ScanRequest scanRequest = new ScanRequest()
+                    .withTableName(tableName)
+                    .withProjectionExpression(String.join(", ", names.keySet()))
+                    .withExpressionAttributeNames(names)
+                    .withTotalSegments(totalSegments)
+                    .withSegment(segment);
+            segments.add(() -> {
+                long keys = 0;
+                do {
+                    ScanResult scanResult = scan(scanRequest, rateLimiter);
+                    for (Map<String, AttributeValue> key : scanResult.getItems()) {
+                        existenceFilter.put(key);
+                    }
+                    keys += scanResult.getItems().size();
+                    scanRequest.setExclusiveStartKey(scanResult.getLastEvaluatedKey());
+                } while (scanRequest.getExclusiveStartKey() != null);
+                return keys;
+            });
+        }
+
+        existenceFilter.startBuild();
+        boolean succeeded = false;
+        try {
+            long keys = 0;
+            for (Long segmentKeys : ParallelTasks.run(segments, totalSegments)) {
+                keys += segmentKeys;
+            }
+            succeeded = true;
+            return keys;
+        } finally {
+            existenceFilter.finishBuild(succeeded);
+        }
+    }
+
+    /**
+     * @return Consistency of a read that doesn't specify one
+     */
+    private boolean consistentRead(Class<?> clazz, Key key) throws MappingException {
+        return sessionConsistency == null || sessionConsistency.requiresConsistentRead(tableName(clazz), keyAttributes(clazz, key));
+    }
+
+    public <T> ScanResultPage<T> scan(Class<T> clazz) throws MappingException {
+        return scan(clazz, new DynamoDBScanExpression());
+    }
+
+    public <T> List<T> scanAll(Class<T> clazz) throws MappingException {
+        return scanAll(clazz, new DynamoDBScanExpression(), null);
+    }
+
+    /**
+     * Scans the whole table associated with specified class, following pagination. When a rate limiter is provided,
+     * each page waits for read capacity and charges the capacity it consumed against the limiter.
+     * @throws MappingException On JSON errors or invalid class
+     */
+    public <T> List<T> scanAll(Class<T> clazz, @NotNull DynamoDBScanExpression scanExpression,
+                               @Nullable CapacityRateLimiter rateLimiter) throws MappingException {
+        return scanAll(clazz, scanRequestForScanExpression(scanExpression).withTableName(tableName(clazz)), rateLimiter);
+    }
+
+    /**
+     * Scans the whole table associated with specified class using a parallel scan with the provided number of
+     * segments, each scanned on its own thread. A rate limiter, if provided, is shared by all segments.
+     * @throws MappingException On JSON errors or invalid class
+     */
+    public <T> List<T> parallelScanAll(Class<T> clazz, @NotNull DynamoDBScanExpression scanExpression, int totalSegments,
+                                       @Nullable CapacityRateLimiter rateLimiter) throws MappingException {
+        if (totalSegments < 1) {
+            throw new IllegalArgumentException("totalSegments must be at least 1");
+        }
+
+        String tableName = tableName(clazz);
+
+        List<Callable<List<T>>> segments = new ArrayList<>();
+        for (int segment = 0; segment < totalSegments; segment++) {
+            ScanRequest scanRequest = scanRequestForScanExpression(scanExpression)
+                    .withTableName(tableName)
+                    .withExclusiveStartKey(null)
+                    .withTotalSegments(totalSegments)
+                    .withSegment(segment);
+            segments.add(() -> scanAll(clazz, scanRequest, rateLimiter));
+        }
+
+        List<T> results = new ArrayList<>();
+        for (List<T> segmentResults : ParallelTasks.run(segments, totalSegments)) {
+            results.addAll(segmentResults);
+        }
+        return results;
+    }
+
+    /**
+     * Scans the whole table associated with specified class into columns of the requested properties, for analytics that
+     * read a few attributes of every item. See {@link #scanColumnar(Class, DynamoDBScanExpression, int,
+     * CapacityRateLimiter, String...)}.
+     */
+    public ColumnarResult scanColumnar(Class<?> clazz, String... columns) throws MappingException {
+        return scanColumnar(clazz, new DynamoDBScanExpression(), 1, null, columns);
+    }
+
+    /**
+     * Scans the whole table associated with specified class into columns of the requested properties, using a parallel
+     * scan with the provided number of segments when more than one. Only the requested attributes are read, and each page
+     * is decoded from its attribute values directly into primitive arrays, without an object per item: integral
+     * properties into {@link LongColumn}s, floating-point ones into {@link DoubleColumn}s, and strings and enums into
+     * dictionary-encoded {@link StringColumn}s. The expression's projection is replaced by the columns; its filter
+     * applies. A rate limiter, if provided, is shared by all segments.
+     * @throws IllegalArgumentException If a column isn't a property of the class, or has an unsupported type
+     * @throws MappingException         If an item has a value of another type than its column's
+     */
+    public ColumnarResult scanColumnar(Class<?> clazz, @NotNull DynamoDBScanExpression scanExpression, int totalSegments,
+                                       @Nullable CapacityRateLimiter rateLimiter, String... columns) throws MappingException {
+        if (totalSegments < 1) {
+            throw new IllegalArgumentException("totalSegments must be at least 1");
+        }
+        if (columns.length == 0) {
+            throw new IllegalArgumentException("At least one column is required");
+        }
+
+        Map<String, Type> columnTypes = columnTypes(clazz, columns);
+        String tableName = tableName(clazz);
+        boolean sharded = writeShardings.containsKey(tableName);
+
+        // The expression's projection is replaced by the columns, so only the names of its filter are kept
+        Map<String, String> names = new HashMap<>();
+        Map<String, String> usedNames = namesUsedBy(scanExpression.getExpressionAttributeNames(),
+                scanExpression.getFilterExpression());
+        if (usedNames != null) {
+            names.putAll(usedNames);
+        }
+        List<String> projection = new ArrayList<>(columns.length);
+        for (int i = 0; i < columns.length; i++) {
+            names.put("#column" + i, columns[i]);
+            projection.add("#column" + i);
+        }
+
+        List<Callable<ColumnarResult>> segments = new ArrayList<>();
+        for (int segment = 0; segment < totalSegments; segment++) {
+            ScanRequest scanRequest = scanRequestForScanExpression(scanExpression)
+                    .withTableName(tableName)
+                    .withProjectionExpression(String.join(", ", projection))
+                    .withExpressionAttributeNames(names)
+                    .withSelect((String) null);
+            if (totalSegments > 1) {
+                scanRequest.withExclusiveStartKey(null)
+                        .withTotalSegments(totalSegments)
+                        .withSegment(segment);
+            }
+            segments.add(() -> {
+                List<Column> segmentColumns = new ArrayList<>(columnTypes.size());
+                columnTypes.forEach((column, type) -> segmentColumns.add(Column.forType(column, type)));
+                ColumnarResult result = new ColumnarResult(segmentColumns);
+                do {
+                    ScanResult scanResult = scan(scanRequest, rateLimiter);
+                    List<Map<String, AttributeValue>> items = scanResult.getItems();
+                    if (sharded) {
+                        items = new ArrayList<>(items.size());
+                        for (Map<String, AttributeValue> item : scanResult.getItems()) {
+                            items.add(unshard(clazz, item));
+                        }
+                    }
+                    result.append(items);
+                    scanRequest.setExclusiveStartKey(scanResult.getLastEvaluatedKey());
+                } while (scanRequest.getExclusiveStartKey() != null);
+                return result;
+            });
+        }
+
+        List<ColumnarResult> results = ParallelTasks.run(segments, totalSegments);
+        ColumnarResult result = results.get(0);
+        for (ColumnarResult segmentResult : results.subList(1, results.size())) {
+            result.appendAll(segmentResult);
+        }
+        result.trim();
+        return result;
+    }
+
+    /**
+     * @return Types of the properties of the class, in the order of the columns
+     * @throws IllegalArgumentException If a column isn't a property of the class, is repeated, or has an unsupported type
+     */
+    private Map<String, Type> columnTypes(Class<?> clazz, String[] columns) {
+        BeanDescription description = objectMapper.getSerializationConfig().introspect(objectMapper.constructType(clazz));
+        Map<String, Type> propertyTypes = new HashMap<>();
+        for (BeanPropertyDefinition definition : description.findProperties()) {
+            AnnotatedMember accessor = definition.getAccessor();
+            if (accessor != null) {
+                Member member = accessor.getMember();
+                propertyTypes.put(definition.getName(), member instanceof Method
+                        ? ((Method) member).getGenericReturnType()
+                        : ((Field) member).getGenericType());
+            }
+        }
+
+        Map<String, Type> columnTypes = new LinkedHashMap<>();
+        for (String column : columns) {
+            Type type = propertyTypes.get(column);
+            if (type == null) {
+                throw new IllegalArgumentException(clazz + " has no property " + column);
+            }
+            if (columnTypes.put(column, type) != null) {
+                throw new IllegalArgumentException("Column " + column + " is requested more than once");
+            }
+            // Fails on unsupported types before scanning
+            Column.forType(column, type);
+        }
+        return columnTypes;
+    }
+
+    /**
+     * Scan the table associated with specified class. All specifics of the scan should be specified in the provided
+     * DynamoDBScanExpression
+     * @throws MappingException On JSON errors or invalid class
+     */
+    public <T> ScanResultPage<T> scan(Class<T> clazz, @NotNull DynamoDBScanExpression scanExpression) throws MappingException {
+        return scan(clazz, scanExpression, null);
+    }
+
+    /**
+     * Same as {@link #scan(Class, DynamoDBScanExpression)}; when a rate limiter is provided, the scan waits for read
+     * capacity and charges the capacity it consumed against the limiter.
+     * @throws MappingException On JSON errors or invalid class
+     */
+    public <T> ScanResultPage<T> scan(Class<T> clazz, @NotNull DynamoDBScanExpression scanExpression,
+                                      @Nullable CapacityRateLimiter rateLimiter) throws MappingException {
+        return scanResultPage(clazz, scan(scanRequestForScanExpression(scanExpression)
+                .withTableName(tableName(clazz)), rateLimiter));
+    }
+
+    /**
+     * Same as {@link #scan(Class, DynamoDBScanExpression, CapacityRateLimiter)}, reading the page at a cursor; get the
+     * cursor of the following page with {@link Cursor#next(ScanResultPage)}. A cursor from
+     * {@link Cursor#start(int, int)} scans that segment of a parallel scan; the expression's exclusive start key and
+     * segment are ignored.
+     * @throws IllegalArgumentException If the expression has segments and the cursor doesn't
+     */
+    public <T> ScanResultPage<T> scan(Class<T> clazz, @NotNull DynamoDBScanExpression scanExpression, @NotNull Cursor cursor,
+                                      @Nullable CapacityRateLimiter rateLimiter) throws MappingException {
+        return scanResultPage(clazz, scan(cursor.applyTo(scanRequestForScanExpression(scanExpression)
+                .withTableName(tableName(clazz))), rateLimiter));
+    }
+
+    private <T> ScanResultPage<T> scanResultPage(Class<T> clazz, ScanResult scanResult) throws MappingException {
+        ScanResultPage<T> page = new ScanResultPage<>();
+        page.setConsumedCapacity(scanResult.getConsumedCapacity());
+        page.setCount(scanResult.getCount());
+        page.setScannedCount(scanResult.getScannedCount());
+        page.setLastEvaluatedKey(scanResult.getLastEvaluatedKey());
+        page.setResults(convertItems(clazz, scanResult.getItems()));
+        return page;
+    }
+
+    /**
+     * Same as {@link #scan(Class, DynamoDBScanExpression)}, returning lazy views of the items (see
+     * {@link #view(Class, Map)}), for scans that read a few properties of each item, for example to filter them
+     * @throws IllegalArgumentException If the class isn't an interface
+     */
+    public <T> ScanResultPage<T> scanViews(Class<T> clazz, @NotNull DynamoDBScanExpression scanExpression) throws MappingException {
+        return scanViews(clazz, scanExpression, null);
+    }
+
+    /**
+     * Same as {@link #scanViews(Class, DynamoDBScanExpression)}, waiting for and charging read capacity against a rate
+     * limiter when one is provided
+     */
+    public <T> ScanResultPage<T> scanViews(Class<T> clazz, @NotNull DynamoDBScanExpression scanExpression,
+                                           @Nullable CapacityRateLimiter rateLimiter) throws MappingException {
+        ScanResult scanResult = scan(scanRequestForScanExpression(scanExpression)
+                .withTableName(tableName(clazz)), rateLimiter);
+
+        List<T> views = new ArrayList<>(scanResult.getItems().size());
+        for (Map<String, AttributeValue> item : scanResult.getItems()) {
+            views.add(view(clazz, item));
+        }
+
+        ScanResultPage<T> page = new ScanResultPage<>();
+        page.setConsumedCapacity(scanResult.getConsumedCapacity());
+        page.setCount(scanResult.getCount());
+        page.setScannedCount(scanResult.getScannedCount());
+        page.setLastEvaluatedKey(scanResult.getLastEvaluatedKey());
+        page.setResults(views);
+        return page;
+    }
+
+    /**
+     * Fetches every item under a hash key of a table with a range key, for lookups by range key that are answered
+     * locally; the collection is only fetched again by {@link ItemCollection#refresh()}
+     * @throws MappingException On JSON errors, or if the class has no range key
+     */
+    public <T> ItemCollection<T> collection(Class<T> clazz, String hashKey) throws MappingException {
+        return new ItemCollection<>(this, clazz, hashKey, 0);
+    }
+
+    /**
+     * Same as {@link #collection(Class, String)}, fetching the collection again on the first access after
+     * {@code ttlMillis} have passed since the last fetch
+     */
+    public <T> ItemCollection<T> collection(Class<T> clazz, String hashKey, long ttlMillis) throws MappingException {
+        return new ItemCollection<>(this, clazz, hashKey, ttlMillis);
+    }
+
+    /**
+     * @return The items under a hash key, by range key in DynamoDB's order
+     */
+    <T> NavigableMap<String, T> loadCollection(Class<T> clazz, String hashKey) throws MappingException {
+        String rangeKeyAttribute = rangeKeyAttribute(clazz);
+        QueryRequest queryRequest = new QueryRequest()
+                .withTableName(tableName(clazz))
+                .withKeyConditionExpression("#h = :h")
+                .withExpressionAttributeNames(ImmutableMap.of("#h", hashKeyAttribute(clazz)))
+                .withExpressionAttributeValues(ImmutableMap.of(":h", new AttributeValue().withS(hashKey)))
+                .withConsistentRead(true);
+
+        NavigableMap<String, T> items = new TreeMap<>(RangeKeys.ORDER);
+        do {
+            QueryResult queryResult = query(queryRequest, null);
+            List<T> converted = convertItems(clazz, queryResult.getItems());
+            for (int i = 0; i < converted.size(); i++) {
+                items.put(queryResult.getItems().get(i).get(rangeKeyAttribute).getS(), converted.get(i));
+            }
+            queryRequest.setExclusiveStartKey(queryResult.getLastEvaluatedKey());
+        } while (queryRequest.getExclusiveStartKey() != null);
+
+        return items;
+    }
+
+    /**
+     * Queries the table associated with specified class. All specifics of the scan should be specified in the provided
+     * DynamoDBQueryExpression
+     * @throws MappingException On JSON errors or invalid class
+     */
+    public <T> List<T> queryAll(Class<T> clazz, @NotNull DynamoDBQueryExpression queryExpr) throws MappingException {
+        return queryAll(clazz, queryExpr, null);
+    }
+
+    /**
+     * Same as {@link #queryAll(Class, DynamoDBQueryExpression)}; when a rate limiter is provided, each page waits for
+     * read capacity and charges the capacity it consumed against the limiter. With a {@link QueryCache}, cached results
+     * are returned without any request.
+     * @throws MappingException On JSON errors or invalid class
+     */
+    public <T> List<T> queryAll(Class<T> clazz, @NotNull DynamoDBQueryExpression queryExpr,
+                                @Nullable CapacityRateLimiter rateLimiter) throws MappingException {
+        QueryRequest queryRequest = queryRequestForScanExpression(queryExpr).withTableName(tableName(clazz));
+        if (queryCache == null) {
+            return queryAll(clazz, queryRequest, rateLimiter);
+        }
+
+        String cacheKey = QueryCache.cacheKey(clazz, queryRequest);
+        List<T> cached = queryCache.get(cacheKey);
+        if (cached != null) {
+            return new ArrayList<>(cached);
+        }
+
+        long invalidations = queryCache.invalidations();
+        List<T> results = queryAll(clazz, queryRequest, rateLimiter);
+        queryCache.put(cacheKey, queryRequest, hashKeyAttribute(clazz), results, invalidations);
+        return results;
+    }
 
-        if (item.getItem() == null) {
-            return Optional.empty();
-        }
+    private <T> List<T> queryAll(Class<T> clazz, QueryRequest queryRequest,
+                                 @Nullable CapacityRateLimiter rateLimiter) throws MappingException {
+        List<T> results = new ArrayList<>();
+        do {
+            QueryResult queryResult = query(queryRequest, rateLimiter);
+            results.addAll(convertItems(clazz, queryResult.getItems()));
+            queryRequest.setExclusiveStartKey(queryResult.getLastEvaluatedKey());
+        } while (queryRequest.getExclusiveStartKey() != null);
 
-        return Optional.of(convert(clazz, item.getItem()));
+        return results;
     }
 
-    public <T> Optional<T> load(Class<T> clazz, String hashKey, String rangeKey) throws MappingException {
-        return load(clazz, hashKey, rangeKey, true);
 
+    /**
+     * Queries many hash keys of a table with a range key and merges their items by range key, returning at most
+     * {@code limit} items overall. The partitions are queried {@value #DEFAULT_QUERY_MANY_PARALLELISM} at a time.
+     * @see #queryMany(Class, Collection, DynamoDBQueryExpression, int, int, CapacityRateLimiter)
+     */
+    public <T> List<T> queryMany(Class<T> clazz, Collection<String> hashKeys, @Nullable DynamoDBQueryExpression rangeCondition,
+                                 int limit) throws MappingException {
+        return queryMany(clazz, hashKeys, rangeCondition, limit, DEFAULT_QUERY_MANY_PARALLELISM, null);
     }
 
-    public <T> Optional<T> load(Class<T> clazz, String hashKey, String rangeKey, boolean consistentRead) throws MappingException {
-        if (hashKey == null || hashKey.trim().isEmpty()) {
-            throw new IllegalArgumentException("HashKey can't be null or empty");
+    /**
+     * Queries many hash keys of a table with a range key and merges their items by range key, for example the latest
+     * items across many partitions. The first page of every partition is queried concurrently, sized to an even share
+     * of the limit; later pages of a partition are only queried once its items have been merged, and the merge stops as
+     * soon as {@code limit} items are found.
+     *
+     * The optional expression applies to every partition: its key condition expression, or legacy range key
+     * conditions, on the range key only, plus any filter, projection, names and values. Items are merged in ascending
+     * range key order, or descending with {@code withScanIndexForward(false)}; equal range keys keep the order of
+     * {@code hashKeys}. Its limit and exclusive start key are ignored, and projections must include the range key.
+     * @throws MappingException On JSON errors, or if the class has no range key
+     * @throws IllegalArgumentException If the expression names an index, or the limit or parallelism isn't positive
+     */
+    public <T> List<T> queryMany(Class<T> clazz, Collection<String> hashKeys, @Nullable DynamoDBQueryExpression rangeCondition,
+                                 int limit, int parallelism, @Nullable CapacityRateLimiter rateLimiter) throws MappingException {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
         }
-
-        if (rangeKey == null || rangeKey.trim().isEmpty()) {
-            throw new IllegalArgumentException("RangeKey can't be null or empty");
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
         }
-
-        GetItemResult item = amazonDynamoDB.getItem(tableName(clazz),
-                ImmutableMap.of(
-                        hashKeyAttribute(clazz), new AttributeValue().withS(hashKey),
-                        rangeKeyAttribute(clazz), new AttributeValue().withS(rangeKey)),
-                consistentRead);
-
-        if (item.getItem() == null) {
-            return Optional.empty();
+        DynamoDBQueryExpression expression = rangeCondition != null ? rangeCondition : new DynamoDBQueryExpression();
+        if (expression.getIndexName() != null) {
+            throw new IllegalArgumentException("queryMany doesn't support indexes");
         }
 
-        return Optional.of(convert(clazz, item.getItem()));
-    }
-
-    public <T> void delete(Class<T> clazz, String hashKey) throws MappingException {
-        if (hashKey == null || hashKey.trim().isEmpty()) {
-            throw new IllegalArgumentException("HashKey can't be null or empty");
+        String tableName = tableName(clazz);
+        String hashKeyAttribute = hashKeyAttribute(clazz);
+        String rangeKeyAttribute = rangeKeyAttribute(clazz);
+
+        List<QueryRequest> queries = new ArrayList<>();
+        for (String hashKey : new LinkedHashSet<>(hashKeys)) {
+            QueryRequest queryRequest = queryRequestForScanExpression(expression)
+                    .withTableName(tableName)
+                    .withExclusiveStartKey(null);
+            AttributeValue hashKeyValue = new AttributeValue().withS(hashKey);
+            if (queryRequest.getKeyConditions() != null && queryRequest.getKeyConditionExpression() == null) {
+                Map<String, Condition> keyConditions = new HashMap<>(queryRequest.getKeyConditions());
+                keyConditions.put(hashKeyAttribute, new Condition()
+                        .withComparisonOperator(ComparisonOperator.EQ.toString())
+                        .withAttributeValueList(Collections.singletonList(hashKeyValue)));
+                queryRequest.setKeyConditions(keyConditions);
+            } else {
+                Map<String, String> names = queryRequest.getExpressionAttributeNames() != null
+                        ? new HashMap<>(queryRequest.getExpressionAttributeNames()) : new HashMap<>();
+                Map<String, AttributeValue> values = queryRequest.getExpressionAttributeValues() != null
+                        ? new HashMap<>(queryRequest.getExpressionAttributeValues()) : new HashMap<>();
+                names.put("#queryManyHash", hashKeyAttribute);
+                values.put(":queryManyHash", hashKeyValue);
+                String keyCondition = "#queryManyHash = :queryManyHash";
+                queryRequest.setKeyConditionExpression(queryRequest.getKeyConditionExpression() == null
+                        ? keyCondition : keyCondition + " AND " + queryRequest.getKeyConditionExpression());
+                queryRequest.setExpressionAttributeNames(names);
+                queryRequest.setExpressionAttributeValues(values);
+            }
+            queries.add(queryRequest);
         }
 
-        amazonDynamoDB.deleteItem(
-                tableName(clazz),
-                ImmutableMap.of(hashKeyAttribute(clazz), new AttributeValue().withS(hashKey)));
+        return new QueryMerge<>(this, clazz, rangeKeyAttribute, rateLimiter)
+                .run(queries, !Boolean.FALSE.equals(expression.isScanIndexForward()), limit, parallelism);
     }
 
-    public <T> void delete(Class<T> clazz, String hashKey, String rangeKey) throws MappingException {
-        if (rangeKey == null || rangeKey.trim().isEmpty()) {
-            throw new IllegalArgumentException("RangeKey can't be null or empty");
+    /**
+     * Queries a hash key of a sharded table on every shard in parallel, merging the shards by range key like
+     * {@link #queryMany(Class, Collection, DynamoDBQueryExpression, int, int, CapacityRateLimiter)}.
+     * @throws MappingException On JSON errors, or if the class has no range key
+     * @throws IllegalArgumentException If the class's table isn't sharded
+     * @see WriteSharding
+     */
+    public <T> List<T> queryShards(Class<T> clazz, String hashKey, @Nullable DynamoDBQueryExpression rangeCondition,
+                                   int limit) throws MappingException {
+        String tableName = tableName(clazz);
+        WriteSharding writeSharding = writeShardings.get(tableName);
+        if (writeSharding == null) {
+            throw new IllegalArgumentException("Table " + tableName + " isn't sharded");
         }
-
-        amazonDynamoDB.deleteItem(tableName(clazz),
-                ImmutableMap.of(
-                        hashKeyAttribute(clazz), new AttributeValue().withS(hashKey),
-                        rangeKeyAttribute(clazz), new AttributeValue().withS(rangeKey)));
+        return queryMany(clazz, writeSharding.shardHashKeys(hashKey), rangeCondition, limit, writeSharding.getShards(), null);
     }
 
-    public <T> ScanResultPage<T> scan(Class<T> clazz) throws MappingException {
-        return scan(clazz, new DynamoDBScanExpression());
+    /**
+     * Counts the items matching a query, following pagination. Uses {@code Select.COUNT}, so no items are transferred;
+     * the expression's filter applies, and its projection and limit per page are ignored.
+     * @throws MappingException On invalid class
+     */
+    public long count(Class<?> clazz, @NotNull DynamoDBQueryExpression queryExpr) throws MappingException {
+        return count(clazz, queryExpr, null);
     }
 
-    public <T> List<T> scanAll(Class<T> clazz) throws MappingException {
-        List<T> results = new ArrayList<>();
-
-        ScanResultPage<T> scan = scan(clazz, new DynamoDBScanExpression());
-        results.addAll(scan.getResults());
-
-        while (scan.getLastEvaluatedKey() != null) {
-            scan = scan(clazz,
-                        new DynamoDBScanExpression()
-                                .withExclusiveStartKey(scan.getLastEvaluatedKey()));
-            results.addAll(scan.getResults());
-        }
+    /**
+     * Same as {@link #count(Class, DynamoDBQueryExpression)}; when a rate limiter is provided, each page waits for
+     * read capacity and charges the capacity it consumed against the limiter.
+     */
+    public long count(Class<?> clazz, @NotNull DynamoDBQueryExpression queryExpr,
+                      @Nullable CapacityRateLimiter rateLimiter) throws MappingException {
+        QueryRequest queryRequest = queryRequestForScanExpression(queryExpr)
+                .withTableName(tableName(clazz))
+                .withSelect(Select.COUNT.toString())
+                .withProjectionExpression(null)
+                .withExpressionAttributeNames(namesUsedBy(queryExpr.getExpressionAttributeNames(),
+                        queryExpr.getKeyConditionExpression(), queryExpr.getFilterExpression()))
+                .withLimit(null);
+
+        long count = 0;
+        do {
+            QueryResult queryResult = query(queryRequest, rateLimiter);
+            count += queryResult.getCount();
+            queryRequest.setExclusiveStartKey(queryResult.getLastEvaluatedKey());
+        } while (queryRequest.getExclusiveStartKey() != null);
 
-        return results;
+        return count;
     }
 
     /**
-     * Scan the table associated with specified class. All specifics of the scan should be specified in the provided
-     * DynamoDBScanExpression
-     * @throws MappingException On JSON errors or invalid class
+     * Counts the items matching a scan, following pagination. Uses {@code Select.COUNT}, so no items are transferred;
+     * the expression's filter applies, and its projection and limit per page are ignored.
+     * @throws MappingException On invalid class
      */
-    public <T> ScanResultPage<T> scan(Class<T> clazz, @NotNull DynamoDBScanExpression scanExpression) throws MappingException {
-        ScanResult scanResult = amazonDynamoDB.scan(scanRequestForScanExpression(scanExpression)
-                .withTableName(tableName(clazz)));
-
-        List<Map<String, AttributeValue>> items = scanResult.getItems();
-        ImmutableList.Builder<T> objectListBuilder = new ImmutableList.Builder<>();
-        for (Map<String, AttributeValue> item : items) {
-            objectListBuilder.add(convert(clazz, item));
-        }
-
-        ScanResultPage<T> page = new ScanResultPage<>();
-        page.setConsumedCapacity(scanResult.getConsumedCapacity());
-        page.setCount(scanResult.getCount());
-        page.setScannedCount(scanResult.getScannedCount());
-        page.setLastEvaluatedKey(scanResult.getLastEvaluatedKey());
-        page.setResults(objectListBuilder.build());
-        return page;
+    public long count(Class<?> clazz, @NotNull DynamoDBScanExpression scanExpression) throws MappingException {
+        return count(clazz, scanExpression, 1, null);
     }
 
     /**
-     * Queries the table associated with specified class. All specifics of the scan should be specified in the provided
-     * DynamoDBQueryExpression
-     * @throws MappingException On JSON errors or invalid class
+     * Same as {@link #count(Class, DynamoDBScanExpression)}, using a parallel scan with the provided number of
+     * segments, each counted on its own thread. A rate limiter, if provided, is shared by all segments.
      */
-    public <T> List<T> queryAll(Class<T> clazz, @NotNull DynamoDBQueryExpression queryExpr) throws MappingException {
-        List<T> results = new ArrayList<>();
+    public long count(Class<?> clazz, @NotNull DynamoDBScanExpression scanExpression, int totalSegments,
+                      @Nullable CapacityRateLimiter rateLimiter) throws MappingException {
+        if (totalSegments < 1) {
+            throw new IllegalArgumentException("totalSegments must be at least 1");
+        }
 
-        QueryResultPage<T> scan = query(clazz, queryExpr);
-        results.addAll(scan.getResults());
+        String tableName = tableName(clazz);
 
-        while (scan.getLastEvaluatedKey() != null) {
-            scan = query(clazz,
-                         queryExpr.withExclusiveStartKey(scan.getLastEvaluatedKey()));
-            results.addAll(scan.getResults());
+        List<Callable<Long>> segments = new ArrayList<>();
+        for (int segment = 0; segment < totalSegments; segment++) {
+            ScanRequest scanRequest = scanRequestForScanExpression(scanExpression)
+                    .withTableName(tableName)
+                    .withSelect(Select.COUNT.toString())
+                    .withProjectionExpression(null)
+                    .withExpressionAttributeNames(namesUsedBy(scanExpression.getExpressionAttributeNames(),
+                            scanExpression.getFilterExpression()))
+                    .withLimit(null);
+            if (totalSegments > 1) {
+                scanRequest.withExclusiveStartKey(null)
+                        .withTotalSegments(totalSegments)
+                        .withSegment(segment);
+            }
+            segments.add(() -> count(scanRequest, rateLimiter));
         }
 
-        return results;
+        long count = 0;
+        for (Long segmentCount : ParallelTasks.run(segments, totalSegments)) {
+            count += segmentCount;
+        }
+        return count;
     }
 
-
     /**
      * Queries the table associated with specified class. All specifics of the scan should be specified in the provided
      * DynamoDBQueryExpression
@@ -298,24 +1388,71 @@ public class JsonDynamoMapper {
      * @throws MappingException On JSON errors or invalid class
      */
     public <T> QueryResultPage<T> query(Class<T> clazz, @NotNull DynamoDBQueryExpression queryExpr) throws MappingException {
-        QueryResult queryResult = amazonDynamoDB.query(queryRequestForScanExpression(queryExpr)
-                                                            .withTableName(tableName(clazz)));
+        return query(clazz, queryExpr, null);
+    }
 
-        List<Map<String, AttributeValue>> items = queryResult.getItems();
-        ImmutableList.Builder<T> objectListBuilder = new ImmutableList.Builder<>();
-        for (Map<String, AttributeValue> item : items) {
-            objectListBuilder.add(convert(clazz, item));
-        }
+    /**
+     * Same as {@link #query(Class, DynamoDBQueryExpression)}; when a rate limiter is provided, the query waits for
+     * read capacity and charges the capacity it consumed against the limiter.
+     * @return includes last evaluated key, for pagination
+     * @throws MappingException On JSON errors or invalid class
+     */
+    public <T> QueryResultPage<T> query(Class<T> clazz, @NotNull DynamoDBQueryExpression queryExpr,
+                                        @Nullable CapacityRateLimiter rateLimiter) throws MappingException {
+        return queryResultPage(clazz, query(queryRequestForScanExpression(queryExpr)
+                                                .withTableName(tableName(clazz)), rateLimiter));
+    }
+
+    /**
+     * Same as {@link #query(Class, DynamoDBQueryExpression, CapacityRateLimiter)}, reading the page at a cursor; get
+     * the cursor of the following page with {@link Cursor#next(QueryResultPage)}. The expression's exclusive start key
+     * is ignored.
+     * @throws IllegalArgumentException If the cursor belongs to a scan segment
+     */
+    public <T> QueryResultPage<T> query(Class<T> clazz, @NotNull DynamoDBQueryExpression queryExpr, @NotNull Cursor cursor,
+                                        @Nullable CapacityRateLimiter rateLimiter) throws MappingException {
+        return queryResultPage(clazz, query(cursor.applyTo(queryRequestForScanExpression(queryExpr)
+                                                .withTableName(tableName(clazz))), rateLimiter));
+    }
 
+    private <T> QueryResultPage<T> queryResultPage(Class<T> clazz, QueryResult queryResult) throws MappingException {
         QueryResultPage<T> page = new QueryResultPage<>();
         page.setConsumedCapacity(queryResult.getConsumedCapacity());
         page.setCount(queryResult.getCount());
         page.setScannedCount(queryResult.getScannedCount());
         page.setLastEvaluatedKey(queryResult.getLastEvaluatedKey());
-        page.setResults(objectListBuilder.build());
+        page.setResults(convertItems(clazz, queryResult.getItems()));
         return page;
     }
 
+    /**
+     * Creates a rate limiter targeting a fraction of the provisioned read capacity of the table associated with
+     * specified class, for use with the rate-limited scan, query and batch load methods.
+     * @throws MappingException If the table has no provisioned read capacity, e.g. on-demand tables
+     */
+    public CapacityRateLimiter readCapacityLimiter(Class<?> clazz, double fraction) throws MappingException {
+        Long readCapacityUnits = provisionedThroughput(clazz, fraction).getReadCapacityUnits();
+        if (readCapacityUnits == null || readCapacityUnits <= 0) {
+            throw new MappingException("Table for " + clazz + " has no provisioned read capacity");
+        }
+
+        return new CapacityRateLimiter(readCapacityUnits * fraction);
+    }
+
+    /**
+     * Creates a rate limiter targeting a fraction of the provisioned write capacity of the table associated with
+     * specified class, for use with the rate-limited batch save methods.
+     * @throws MappingException If the table has no provisioned write capacity, e.g. on-demand tables
+     */
+    public CapacityRateLimiter writeCapacityLimiter(Class<?> clazz, double fraction) throws MappingException {
+        Long writeCapacityUnits = provisionedThroughput(clazz, fraction).getWriteCapacityUnits();
+        if (writeCapacityUnits == null || writeCapacityUnits <= 0) {
+            throw new MappingException("Table for " + clazz + " has no provisioned write capacity");
+        }
+
+        return new CapacityRateLimiter(writeCapacityUnits * fraction);
+    }
+
 
     /**
      * Basic method to convert a raw DynamoDB record (AttributeValue map) into an instance of a model class.
@@ -328,7 +1465,8 @@ public class JsonDynamoMapper {
      */
     @NotNull
     public <T> T convert(Class<T> clazz, Map<String, AttributeValue> attributeValueMap) throws MappingException {
-        ObjectNode converted = JsonNodeAttributeValueMapper.convert(attributeValueMap, objectMapper);
+        ObjectNode converted = JsonNodeAttributeValueMapper.convert(unshard(clazz, attributeValueMap), objectMapper,
+                stringInterner);
         try {
             return objectMapper.readValue(converted.traverse(), clazz);
         } catch (IOException e) {
@@ -336,48 +1474,305 @@ public class JsonDynamoMapper {
         }
     }
 
+    /**
+     * Returns a read-only view of an item as an interface, such as a FreeBuilder type, that decodes each property the
+     * first time it's read instead of converting the whole item up front. Cheaper than {@link #convert(Class, Map)}
+     * when only a few properties of wide items are read. Views support property getters, equals, hashCode and
+     * toString.
+     * @throws IllegalArgumentException If the class isn't an interface
+     */
+    public <T> T view(Class<T> clazz, Map<String, AttributeValue> attributeValueMap) throws MappingException {
+        return itemViews.view(clazz, unshard(clazz, attributeValueMap));
+    }
+
     public <T> Map<String, AttributeValue> convert(T item) throws MappingException {
         JsonNode serialized = objectMapper.valueToTree(item);
-        return JsonNodeAttributeValueMapper.convert(serialized);
+        return JsonNodeAttributeValueMapper.convert(serialized, arrayEncoding);
     }
 
-    @VisibleForTesting
-    PutItemResult putItem(JsonNode jsonNode, String table, List<String> autoGeneratedKeys) throws MappingException {
-        Map<String, AttributeValue> attributeValueMap = generateKeys(JsonNodeAttributeValueMapper.convert(jsonNode), autoGeneratedKeys);
-        return amazonDynamoDB.putItem(new PutItemRequest().withTableName(table).withItem(attributeValueMap))
-                             .withAttributes(attributeValueMap);
+    <T> List<T> convertItems(Class<T> clazz, List<Map<String, AttributeValue>> items) throws MappingException {
+        if (decodePool != null && items.size() >= parallelDecodeThreshold) {
+            Object[] results = new Object[items.size()];
+            int leafSize = Math.max(1, items.size() / (4 * decodePool.getParallelism()));
+            decodePool.invoke(new ConvertItemsTask(clazz, items, results, 0, items.size(), leafSize));
+            //noinspection unchecked
+            return (List<T>) ImmutableList.copyOf(results);
+        }
+
+        ImmutableList.Builder<T> objectListBuilder = new ImmutableList.Builder<>();
+        for (Map<String, AttributeValue> item : items) {
+            objectListBuilder.add(convert(clazz, item));
+        }
+        return objectListBuilder.build();
     }
 
-    @VisibleForTesting
-    PutItemResult putItem(JsonNode jsonNode, String table, List<String> autoGeneratedKeys, @NotNull String versionField) throws MappingException {
-        Map<String, AttributeValue> attributeValueMap = generateKeys(JsonNodeAttributeValueMapper.convert(jsonNode), autoGeneratedKeys);
+    private <T> List<T> scanAll(Class<T> clazz, ScanRequest scanRequest, @Nullable CapacityRateLimiter rateLimiter) throws MappingException {
+        List<T> results = new ArrayList<>();
+
+        do {
+            ScanResult scanResult = scan(scanRequest, rateLimiter);
+            results.addAll(convertItems(clazz, scanResult.getItems()));
+            scanRequest.setExclusiveStartKey(scanResult.getLastEvaluatedKey());
+        } while (scanRequest.getExclusiveStartKey() != null);
+
+        return results;
+    }
+
+    ObjectMapper objectMapper() {
+        return objectMapper;
+    }
+
+    ArrayEncoding arrayEncoding() {
+        return arrayEncoding;
+    }
+
+    ScanRequest scanRequest(Class<?> clazz, DynamoDBScanExpression scanExpression) throws MappingException {
+        return scanRequestForScanExpression(scanExpression).withTableName(tableName(clazz));
+    }
+
+    private long count(ScanRequest scanRequest, @Nullable CapacityRateLimiter rateLimiter) throws MappingException {
+        long count = 0;
+        do {
+            ScanResult scanResult = scan(scanRequest, rateLimiter);
+            count += scanResult.getCount();
+            scanRequest.setExclusiveStartKey(scanResult.getLastEvaluatedKey());
+        } while (scanRequest.getExclusiveStartKey() != null);
+
+        return count;
+    }
+
+    ScanResult scan(ScanRequest scanRequest, @Nullable CapacityRateLimiter rateLimiter) {
+        if (rateLimiter == null) {
+            return call(Operation.SCAN, () -> amazonDynamoDB.scan(scanRequest));
+        }
+
+        rateLimiter.acquire();
+        if (scanRequest.getReturnConsumedCapacity() == null
+                || ReturnConsumedCapacity.NONE.toString().equals(scanRequest.getReturnConsumedCapacity())) {
+            scanRequest.setReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        }
+        ScanResult scanResult = call(Operation.SCAN, () -> amazonDynamoDB.scan(scanRequest));
+        rateLimiter.consume(scanResult.getConsumedCapacity());
+        return scanResult;
+    }
+
+    QueryResult query(QueryRequest queryRequest, @Nullable CapacityRateLimiter rateLimiter) {
+        if (rateLimiter == null) {
+            return call(Operation.QUERY, () -> amazonDynamoDB.query(queryRequest));
+        }
+
+        rateLimiter.acquire();
+        if (queryRequest.getReturnConsumedCapacity() == null
+                || ReturnConsumedCapacity.NONE.toString().equals(queryRequest.getReturnConsumedCapacity())) {
+            queryRequest.setReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+        }
+        QueryResult queryResult = call(Operation.QUERY, () -> amazonDynamoDB.query(queryRequest));
+        rateLimiter.consume(queryResult.getConsumedCapacity());
+        return queryResult;
+    }
+
+    /**
+     * Executes a BatchWriteItem, retrying unprocessed items as long as the retry policy allows
+     */
+    void batchWrite(Map<String, List<WriteRequest>> requestItems, @Nullable CapacityRateLimiter rateLimiter) throws MappingException {
+        batchWrite(requestItems, rateLimiter, retryPolicy);
+    }
+
+    /**
+     * Same as {@link #batchWrite(Map, CapacityRateLimiter)}, retrying unprocessed items with the given policy instead
+     * of the mapper's
+     */
+    void batchWrite(Map<String, List<WriteRequest>> requestItems, @Nullable CapacityRateLimiter rateLimiter,
+                    RetryPolicy unprocessedRetryPolicy) throws MappingException {
+        if (!existenceFilters.isEmpty()) {
+            for (Map.Entry<String, List<WriteRequest>> tableWrites : requestItems.entrySet()) {
+                for (WriteRequest writeRequest : tableWrites.getValue()) {
+                    if (writeRequest.getPutRequest() != null) {
+                        recordPut(tableWrites.getKey(), writeRequest.getPutRequest().getItem());
+                    }
+                }
+            }
+        }
+
+        long start = System.nanoTime();
+        int attempts = 0;
+        while (true) {
+            BatchWriteItemRequest writeRequest = new BatchWriteItemRequest(requestItems);
+            if (rateLimiter != null) {
+                rateLimiter.acquire();
+                writeRequest.setReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+            }
+
+            BatchWriteItemResult result = call(Operation.BATCH_WRITE_ITEM, () -> amazonDynamoDB.batchWriteItem(writeRequest));
+            if (rateLimiter != null) {
+                rateLimiter.consume(result.getConsumedCapacity());
+            }
+
+            requestItems = result.getUnprocessedItems();
+            if (requestItems == null || requestItems.isEmpty()) {
+                return;
+            }
+            backOffUnprocessed(unprocessedRetryPolicy, ++attempts, start,
+                    "Reached max number of tries to execute batch save for unprocessed items");
+        }
+    }
+
+    /**
+     * Executes a BatchGetItem, retrying unprocessed keys as long as the retry policy allows
+     * @return Items found, by table
+     */
+    Map<String, List<Map<String, AttributeValue>>> batchGet(Map<String, KeysAndAttributes> requestItems,
+                                                           @Nullable CapacityRateLimiter rateLimiter) throws MappingException {
+        Map<String, List<Map<String, AttributeValue>>> responses = new HashMap<>();
+        long start = System.nanoTime();
+        int attempts = 0;
+        while (true) {
+            BatchGetItemRequest request = new BatchGetItemRequest(requestItems);
+            if (rateLimiter != null) {
+                rateLimiter.acquire();
+                request.setReturnConsumedCapacity(ReturnConsumedCapacity.TOTAL);
+            }
+
+            BatchGetItemResult result = call(Operation.BATCH_GET_ITEM, () -> amazonDynamoDB.batchGetItem(request));
+            if (rateLimiter != null) {
+                rateLimiter.consume(result.getConsumedCapacity());
+            }
+
+            for (Map.Entry<String, List<Map<String, AttributeValue>>> entry : result.getResponses().entrySet()) {
+                responses.computeIfAbsent(entry.getKey(), table -> new ArrayList<>()).addAll(entry.getValue());
+            }
+
+            requestItems = result.getUnprocessedKeys();
+            if (requestItems == null || requestItems.isEmpty()) {
+                return responses;
+            }
+            backOffUnprocessed(retryPolicy, ++attempts, start,
+                    "Reached max number of tries to execute batch load for unprocessed keys");
+        }
+    }
+
+    private GetItemResult getItem(GetItemRequest getItemRequest) throws MappingException {
+        if (hedgingPolicy == null) {
+            return call(Operation.GET_ITEM, () -> amazonDynamoDB.getItem(getItemRequest));
+        }
+
+        return hedgingPolicy.execute(() -> call(Operation.GET_ITEM, () -> amazonDynamoDB.getItem(getItemRequest)));
+    }
+
+    /**
+     * Executes a DynamoDB request under the concurrency limiter, retrying failures as long as the retry policy allows
+     */
+    private <R> R call(Operation operation, Supplier<R> request) throws MappingException {
+        long start = System.nanoTime();
+        int attempts = 0;
+        while (true) {
+            try {
+                return concurrencyLimiter == null ? request.get() : concurrencyLimiter.execute(operation, request);
+            } catch (AmazonClientException e) {
+                OptionalLong delay = retryPolicy.retryDelayMillis(e, ++attempts, elapsedMillis(start));
+                if (!delay.isPresent()) {
+                    throw e;
+                }
+                sleep(delay.getAsLong());
+            }
+        }
+    }
+
+    /**
+     * Waits before retrying unprocessed items of a batch request
+     * @throws MappingException If the retry policy gives up
+     */
+    private static void backOffUnprocessed(RetryPolicy retryPolicy, int attempts, long start, String giveUpMessage)
+            throws MappingException {
+        OptionalLong delay = retryPolicy.retryDelayMillis(null, attempts, elapsedMillis(start));
+        if (!delay.isPresent()) {
+            throw new MappingException(giveUpMessage);
+        }
+        sleep(delay.getAsLong());
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private static void sleep(long millis) throws MappingException {
+        if (millis <= 0) {
+            return;
+        }
+
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MappingException("Interrupted while waiting to retry", e);
+        }
+    }
+
+    private ProvisionedThroughputDescription provisionedThroughput(Class<?> clazz, double fraction) throws MappingException {
+        if (fraction <= 0 || fraction > 1) {
+            throw new IllegalArgumentException("Capacity fraction must be in (0, 1]");
+        }
 
-        @Nullable AttributeValue currentVersion = attributeValueMap.get(versionField);
+        String tableName = tableName(clazz);
+        return call(Operation.OTHER, () -> amazonDynamoDB.describeTable(tableName)).getTable().getProvisionedThroughput();
+    }
 
-        PutItemRequest putItemRequest = new PutItemRequest()
-                .withTableName(table)
-                .withExpressionAttributeNames(ImmutableMap.of("#v", versionField));
+    static Map<String, AttributeValue> keyAttributes(Class<?> clazz, Key key) throws MappingException {
+        if (!key.getRangeKey().isPresent()) {
+            return ImmutableMap.of(hashKeyAttribute(clazz), new AttributeValue().withS(key.getHashKey()));
+        }
 
-        if (currentVersion == null || currentVersion.getN() == null) {
-            putItemRequest = putItemRequest.withConditionExpression("attribute_not_exists(#v)");
-            ImmutableMap.Builder<String, AttributeValue> builder = new ImmutableMap.Builder<>();
+        return ImmutableMap.of(
+                hashKeyAttribute(clazz), new AttributeValue().withS(key.getHashKey()),
+                rangeKeyAttribute(clazz), new AttributeValue().withS(key.getRangeKey().get()));
+    }
 
-            attributeValueMap.entrySet()
-                    .stream()
-                    .filter(e -> !e.getKey().equals(versionField))
-                    .forEach(e -> builder.put(e.getKey(), e.getValue()));
+    @VisibleForTesting
+    PutItemResult putItem(JsonNode jsonNode, String table, List<String> autoGeneratedKeys) throws MappingException {
+        return putItem(encode(jsonNode, autoGeneratedKeys), table, null);
+    }
 
-            builder.put(versionField, new AttributeValue().withN("1"));
+    @VisibleForTesting
+    PutItemResult putItem(JsonNode jsonNode, String table, List<String> autoGeneratedKeys, @NotNull String versionField) throws MappingException {
+        return putItem(encode(jsonNode, autoGeneratedKeys), table, versionField);
+    }
 
-            attributeValueMap = builder.build();
-        } else {
-            putItemRequest = putItemRequest.withConditionExpression("#v = :vf")
-                    .withExpressionAttributeValues(ImmutableMap.of(":vf", new AttributeValue().withN(currentVersion.getN())));
-            int v = Integer.parseInt(currentVersion.getN());
-            currentVersion.setN(String.valueOf(v + 1));
+    /**
+     * Puts an encoded item, appending the shard to a sharded hash key. With a version field, the put is conditional on
+     * the stored version, and the item's version is incremented.
+     */
+    private PutItemResult putItem(Map<String, AttributeValue> item, String table, @Nullable String versionField) throws MappingException {
+        Map<String, AttributeValue> attributeValueMap = shard(table, item);
+        PutItemRequest putItemRequest = new PutItemRequest().withTableName(table);
+
+        if (versionField != null) {
+            @Nullable AttributeValue currentVersion = attributeValueMap.get(versionField);
+            putItemRequest = putItemRequest.withExpressionAttributeNames(ImmutableMap.of("#v", versionField));
+
+            if (currentVersion == null || currentVersion.getN() == null) {
+                putItemRequest = putItemRequest.withConditionExpression("attribute_not_exists(#v)");
+                ImmutableMap.Builder<String, AttributeValue> builder = new ImmutableMap.Builder<>();
+
+                attributeValueMap.entrySet()
+                        .stream()
+                        .filter(e -> !e.getKey().equals(versionField))
+                        .forEach(e -> builder.put(e.getKey(), e.getValue()));
+
+                builder.put(versionField, new AttributeValue().withN("1"));
+
+                attributeValueMap = builder.build();
+            } else {
+                putItemRequest = putItemRequest.withConditionExpression("#v = :vf")
+                        .withExpressionAttributeValues(ImmutableMap.of(":vf", new AttributeValue().withN(currentVersion.getN())));
+                int v = Integer.parseInt(currentVersion.getN());
+                currentVersion.setN(String.valueOf(v + 1));
+            }
         }
 
-        return amazonDynamoDB.putItem(putItemRequest.withItem(attributeValueMap))
+        itemSize(table, attributeValueMap);
+        recordPut(table, attributeValueMap);
+        PutItemRequest request = putItemRequest.withItem(attributeValueMap);
+        return call(Operation.PUT_ITEM, () -> amazonDynamoDB.putItem(request))
                              .withAttributes(attributeValueMap);
     }
 
@@ -402,7 +1797,7 @@ public class JsonDynamoMapper {
         return Collections.unmodifiableMap(newAttrBuilder);
     }
 
-    private static <T> String tableName(Class<T> clazz) throws MappingException {
+    static <T> String tableName(Class<T> clazz) throws MappingException {
         @Nullable DynamoDBTable tableAnnotation = clazz.getAnnotation(DynamoDBTable.class);
         if (tableAnnotation == null) {
             throw new MappingException("Class " + clazz + " missing required annotation " + DynamoDBTable.class);
@@ -447,6 +1842,44 @@ public class JsonDynamoMapper {
         throw new MappingException("Class " + clazz + " missing required annotation " + DynamoDBRangeKey.class);
     }
 
+    /**
+     * @return The hash key attribute, followed by the range key attribute if the class has one
+     */
+    static List<String> keyAttributeNames(Class<?> clazz) throws MappingException {
+        String hashKeyAttribute = hashKeyAttribute(clazz);
+        for (Method method : clazz.getMethods()) {
+            if (method.getAnnotation(DynamoDBRangeKey.class) != null) {
+                return ImmutableList.of(hashKeyAttribute, rangeKeyAttribute(clazz));
+            }
+        }
+        return ImmutableList.of(hashKeyAttribute);
+    }
+
+    /**
+     * @return The key attributes of an item
+     */
+    static Map<String, AttributeValue> keyOf(Map<String, AttributeValue> item, List<String> keyAttributes) {
+        Map<String, AttributeValue> key = new HashMap<>();
+        for (String keyAttribute : keyAttributes) {
+            key.put(keyAttribute, item.get(keyAttribute));
+        }
+        return key;
+    }
+
+    @Nullable
+    static String versionAttribute(Class<?> clazz) throws MappingException {
+        for (Method method : clazz.getMethods()) {
+            DynamoDBVersionAttribute versionAnnotation = method.getAnnotation(DynamoDBVersionAttribute.class);
+            if (versionAnnotation != null) {
+                if (versionAnnotation.attributeName().trim().isEmpty()) {
+                    throw new MappingException("Class " + clazz + " missing attributeName for annotation " + DynamoDBVersionAttribute.class);
+                }
+                return versionAnnotation.attributeName();
+            }
+        }
+        return null;
+    }
+
     private static <T> List<String> autoGeneratedAttributes(Class<T> clazz) throws MappingException {
         Method[] methods = clazz.getMethods();
 
@@ -517,6 +1950,32 @@ public class JsonDynamoMapper {
         return null;
     }
 
+    /**
+     * @return The expression attribute names that the expressions reference, or null if there are none, for requests
+     * whose projection is replaced: DynamoDB rejects names that no expression uses, and empty maps
+     */
+    @Nullable
+    private static Map<String, String> namesUsedBy(@Nullable Map<String, String> names, String... expressions) {
+        if (names == null) {
+            return null;
+        }
+
+        Map<String, String> used = new HashMap<>();
+        for (String expression : expressions) {
+            if (expression == null) {
+                continue;
+            }
+            Matcher placeholder = NAME_PLACEHOLDER.matcher(expression);
+            while (placeholder.find()) {
+                String name = names.get(placeholder.group());
+                if (name != null) {
+                    used.put(placeholder.group(), name);
+                }
+            }
+        }
+        return used.isEmpty() ? null : used;
+    }
+
     private static QueryRequest queryRequestForScanExpression(DynamoDBQueryExpression queryExpr) {
         QueryRequest queryRequest = new QueryRequest();
 
@@ -564,4 +2023,41 @@ public class JsonDynamoMapper {
 
         return scanRequest;
     }
+
+    /**
+     * Converts a range of a page's items into the same positions of an array, splitting the range in halves down to the
+     * leaf size.
+     */
+    private class ConvertItemsTask extends RecursiveAction {
+        private final Class<?> clazz;
+        private final List<Map<String, AttributeValue>> items;
+        private final Object[] results;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        ConvertItemsTask(Class<?> clazz, List<Map<String, AttributeValue>> items, Object[] results, int from, int to,
+                         int leafSize) {
+            this.clazz = clazz;
+            this.items = items;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leafSize) {
+                for (int i = from; i < to; i++) {
+                    results[i] = convert(clazz, items.get(i));
+                }
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new ConvertItemsTask(clazz, items, results, from, middle, leafSize),
+                    new ConvertItemsTask(clazz, items, results, middle, to, leafSize));
+        }
+    }
 }
@@ -0,0 +1,217 @@
+package com.scopely.mapper;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Optional behavior of a {@link JsonDynamoMapper}. All options are disabled by default, so that
+ * {@code new JsonDynamoMapper(amazonDynamoDB)} behaves like a plain mapper over the AmazonDynamoDB client.
+ *
+ * A config is read once, when the mapper is constructed.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class JsonDynamoMapperConfig {
+    public static final int DEFAULT_PARALLEL_DECODE_THRESHOLD = 128;
+
+    private RetryPolicy retryPolicy = RetryPolicy.NO_BACKOFF;
+    @Nullable private HedgingPolicy hedgingPolicy;
+    @Nullable private AdaptiveConcurrencyLimiter concurrencyLimiter;
+    @Nullable private ForkJoinPool decodePool;
+    private int parallelDecodeThreshold = DEFAULT_PARALLEL_DECODE_THRESHOLD;
+    private ArrayEncoding arrayEncoding = ArrayEncoding.SETS;
+    @Nullable private MapperMetrics metrics;
+    @Nullable private SessionConsistency sessionConsistency;
+    @Nullable private QueryCache queryCache;
+    @Nullable private HotKeyDetector hotKeyDetector;
+    @Nullable private WriteFingerprints writeFingerprints;
+    @Nullable private StringInterner stringInterner;
+    private final List<ExistenceFilter> existenceFilters = new ArrayList<>();
+    private final List<WriteSharding> writeShardings = new ArrayList<>();
+
+    @NotNull
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    /**
+     * Retry policy applied to every DynamoDB request the mapper makes, and to unprocessed items of batch requests.
+     */
+    public JsonDynamoMapperConfig withRetryPolicy(@NotNull RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    public Optional<HedgingPolicy> getHedgingPolicy() {
+        return Optional.ofNullable(hedgingPolicy);
+    }
+
+    /**
+     * Hedging policy applied to the GetItem requests made by {@code load}.
+     */
+    public JsonDynamoMapperConfig withHedgingPolicy(@Nullable HedgingPolicy hedgingPolicy) {
+        this.hedgingPolicy = hedgingPolicy;
+        return this;
+    }
+
+    public Optional<AdaptiveConcurrencyLimiter> getConcurrencyLimiter() {
+        return Optional.ofNullable(concurrencyLimiter);
+    }
+
+    /**
+     * Concurrency limiter applied to every attempt of every DynamoDB request the mapper makes. Retry delays are not
+     * counted against the limit.
+     */
+    public JsonDynamoMapperConfig withConcurrencyLimiter(@Nullable AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+        return this;
+    }
+
+    public Optional<ForkJoinPool> getDecodePool() {
+        return Optional.ofNullable(decodePool);
+    }
+
+    /**
+     * Pool on which the items of scan, query and batch load pages are converted to objects in parallel, when a page has
+     * at least {@link #getParallelDecodeThreshold()} items. Results keep the order of the page. For example,
+     * {@code ForkJoinPool.commonPool()}.
+     */
+    public JsonDynamoMapperConfig withDecodePool(@Nullable ForkJoinPool decodePool) {
+        this.decodePool = decodePool;
+        return this;
+    }
+
+    public int getParallelDecodeThreshold() {
+        return parallelDecodeThreshold;
+    }
+
+    /**
+     * Minimum number of items in a page for it to be converted on the decode pool; smaller pages are converted on the
+     * calling thread, where the cost of forking outweighs the gain. Defaults to
+     * {@value #DEFAULT_PARALLEL_DECODE_THRESHOLD}.
+     */
+    public JsonDynamoMapperConfig withParallelDecodeThreshold(int parallelDecodeThreshold) {
+        if (parallelDecodeThreshold < 1) {
+            throw new IllegalArgumentException("parallelDecodeThreshold must be at least 1");
+        }
+
+        this.parallelDecodeThreshold = parallelDecodeThreshold;
+        return this;
+    }
+
+    @NotNull
+    public ArrayEncoding getArrayEncoding() {
+        return arrayEncoding;
+    }
+
+    /**
+     * How arrays of only strings or only numbers are saved; {@link ArrayEncoding#SETS} by default. Items can be read
+     * back with either encoding.
+     */
+    public JsonDynamoMapperConfig withArrayEncoding(@NotNull ArrayEncoding arrayEncoding) {
+        this.arrayEncoding = arrayEncoding;
+        return this;
+    }
+
+    public Optional<MapperMetrics> getMetrics() {
+        return Optional.ofNullable(metrics);
+    }
+
+    /**
+     * Metrics that the mapper reports measurements to, such as the size of every item it writes.
+     */
+    public JsonDynamoMapperConfig withMetrics(@Nullable MapperMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    public Optional<SessionConsistency> getSessionConsistency() {
+        return Optional.ofNullable(sessionConsistency);
+    }
+
+    /**
+     * Makes reads that don't specify a consistency, such as {@code load(Class, hashKey)}, eventually consistent except
+     * for keys the mapper wrote recently. Without it, they're always strongly consistent.
+     */
+    public JsonDynamoMapperConfig withSessionConsistency(@Nullable SessionConsistency sessionConsistency) {
+        this.sessionConsistency = sessionConsistency;
+        return this;
+    }
+
+    public Optional<QueryCache> getQueryCache() {
+        return Optional.ofNullable(queryCache);
+    }
+
+    /**
+     * Cache of {@code queryAll} results, evicted by the mapper's writes to the queried hash keys.
+     */
+    public JsonDynamoMapperConfig withQueryCache(@Nullable QueryCache queryCache) {
+        this.queryCache = queryCache;
+        return this;
+    }
+
+    public Optional<HotKeyDetector> getHotKeyDetector() {
+        return Optional.ofNullable(hotKeyDetector);
+    }
+
+    /**
+     * Detector of the hottest hash keys loaded, saved and deleted, which reports them to the metrics.
+     */
+    public JsonDynamoMapperConfig withHotKeyDetector(@Nullable HotKeyDetector hotKeyDetector) {
+        this.hotKeyDetector = hotKeyDetector;
+        return this;
+    }
+
+    public Optional<WriteFingerprints> getWriteFingerprints() {
+        return Optional.ofNullable(writeFingerprints);
+    }
+
+    /**
+     * Fingerprints of saved items, with which saves of unchanged items are skipped.
+     */
+    public JsonDynamoMapperConfig withWriteFingerprints(@Nullable WriteFingerprints writeFingerprints) {
+        this.writeFingerprints = writeFingerprints;
+        return this;
+    }
+
+    public Optional<StringInterner> getStringInterner() {
+        return Optional.ofNullable(stringInterner);
+    }
+
+    /**
+     * Interner of the attribute names and configured values of decoded items, to save heap on large result sets.
+     */
+    public JsonDynamoMapperConfig withStringInterner(@Nullable StringInterner stringInterner) {
+        this.stringInterner = stringInterner;
+        return this;
+    }
+
+    public List<ExistenceFilter> getExistenceFilters() {
+        return Collections.unmodifiableList(existenceFilters);
+    }
+
+    /**
+     * Adds an existence filter, which lets loads of keys missing from its table skip the request once it's built.
+     */
+    public JsonDynamoMapperConfig withExistenceFilter(ExistenceFilter existenceFilter) {
+        this.existenceFilters.add(existenceFilter);
+        return this;
+    }
+
+    public List<WriteSharding> getWriteShardings() {
+        return Collections.unmodifiableList(writeShardings);
+    }
+
+    /**
+     * Adds a write sharding, which spreads the items of each hash key of its table over several shards.
+     */
+    public JsonDynamoMapperConfig withWriteSharding(WriteSharding writeSharding) {
+        this.writeShardings.add(writeSharding);
+        return this;
+    }
+}
@@ -4,118 +4,131 @@ import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.JsonNodeType;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 @SuppressWarnings("WeakerAccess")
 public final class JsonNodeAttributeValueMapper {
     public static Map<String, AttributeValue> convert(JsonNode node) throws MappingException {
+        return convert(node, ArrayEncoding.SETS);
+    }
+
+    public static Map<String, AttributeValue> convert(JsonNode node, ArrayEncoding arrayEncoding) throws MappingException {
         if (!node.isObject()) {
             throw new MappingException("Cannot convert non-object of type " + node.getNodeType());
         }
-        return makeAVMapForObject(node);
+        return makeAVMapForObject(node, arrayEncoding);
     }
 
     public static ObjectNode convert(Map<String, AttributeValue> map, ObjectMapper objectMapper) throws MappingException {
-        ObjectNode root = objectMapper.createObjectNode();
+        return convert(map, objectMapper, null);
+    }
+
+    /**
+     * @param interner Interner of the attribute names and configured values of the node, if any
+     */
+    public static ObjectNode convert(Map<String, AttributeValue> map, ObjectMapper objectMapper,
+                                     @Nullable StringInterner interner) throws MappingException {
+        JsonNodeFactory nodeFactory = objectMapper.getNodeFactory();
+        ObjectNode root = nodeFactory.objectNode();
 
         for (Map.Entry<String, AttributeValue> entry : map.entrySet()) {
-            AttributeValue attributeValue = entry.getValue();
-
-            //noinspection PointlessBooleanExpression
-            if (attributeValue.getNULL() != null) {
-                root.putNull(entry.getKey());
-            } else if (attributeValue.getBOOL() != null) {
-                root.put(entry.getKey(), attributeValue.getBOOL());
-            } else if (attributeValue.getS() != null) {
-                root.put(entry.getKey(), attributeValue.getS());
-            } else if (attributeValue.getB() != null) {
-                root.put(entry.getKey(), attributeValue.getB().array());
-            } else if (attributeValue.getN() != null) {
-                // Since Dynamo also has non-interpreted numerals, this should work
-                String numeric = attributeValue.getN();
+            String name = StringInterner.intern(interner, entry.getKey());
+            root.set(name, makeNode(name, entry.getValue(), nodeFactory, interner));
+        }
+
+        return root;
+    }
+
+    static JsonNode makeNode(String name, AttributeValue attributeValue, JsonNodeFactory nodeFactory)
+            throws MappingException {
+        return makeNode(name, attributeValue, nodeFactory, null);
+    }
+
+    static JsonNode makeNode(String name, AttributeValue attributeValue, JsonNodeFactory nodeFactory,
+                             @Nullable StringInterner interner) throws MappingException {
+        //noinspection PointlessBooleanExpression
+        if (attributeValue.getNULL() != null) {
+            return nodeFactory.nullNode();
+        } else if (attributeValue.getBOOL() != null) {
+            return nodeFactory.booleanNode(attributeValue.getBOOL());
+        } else if (attributeValue.getS() != null) {
+            return nodeFactory.textNode(StringInterner.internValue(interner, name, attributeValue.getS()));
+        } else if (attributeValue.getB() != null) {
+            return nodeFactory.binaryNode(attributeValue.getB().array());
+        } else if (attributeValue.getN() != null) {
+            // Since Dynamo also has non-interpreted numerals, this should work
+            String numeric = attributeValue.getN();
+            try {
+                return nodeFactory.numberNode(Integer.parseInt(numeric));
+            } catch (NumberFormatException e) {
                 try {
-                    root.put(entry.getKey(), Integer.parseInt(numeric));
-                } catch (NumberFormatException e) {
-                    try {
-                        root.put(entry.getKey(), Long.parseLong(numeric));
-                    } catch (NumberFormatException e2) {
-                        root.put(entry.getKey(), new BigDecimal(numeric));
-                    }
-                }
-            } else if (attributeValue.getM() != null) {
-                ObjectNode childNode = root.putObject(entry.getKey());
-                ObjectNode convertedMap = convert(attributeValue.getM(), objectMapper);
-                childNode.setAll(convertedMap);
-            } else if (attributeValue.getSS() != null) {
-                List<String> ss = attributeValue.getSS();
-                ArrayNode arrayNode = root.arrayNode();
-                ss.forEach(arrayNode::add);
-                root.put(entry.getKey(), arrayNode);
-            } else if (attributeValue.getNS() != null) {
-                List<String> ns = attributeValue.getNS();
-                ArrayNode arrayNode = root.arrayNode();
-                ns.forEach(n -> arrayNode.add(new BigDecimal(n)));
-                root.set(entry.getKey(), arrayNode);
-            } else if (attributeValue.getL() != null) {
-                List<AttributeValue> l = attributeValue.getL();
-                ArrayNode arrayNode = root.arrayNode();
-                for (AttributeValue av : l) {
-                    ObjectNode convert = convert(av.getM(), objectMapper);
-                    arrayNode.add(convert);
+                    return nodeFactory.numberNode(Long.parseLong(numeric));
+                } catch (NumberFormatException e2) {
+                    return nodeFactory.numberNode(new BigDecimal(numeric));
                 }
-                root.set(entry.getKey(), arrayNode);
-            } else {
-                throw new MappingException(String.format("Couldn't interpret %s => %s", entry.getKey(), entry.getValue()));
             }
+        } else if (attributeValue.getM() != null) {
+            ObjectNode objectNode = nodeFactory.objectNode();
+            for (Map.Entry<String, AttributeValue> entry : attributeValue.getM().entrySet()) {
+                String key = StringInterner.intern(interner, entry.getKey());
+                objectNode.set(key, makeNode(key, entry.getValue(), nodeFactory, interner));
+            }
+            return objectNode;
+        } else if (attributeValue.getSS() != null) {
+            ArrayNode arrayNode = nodeFactory.arrayNode();
+            attributeValue.getSS().forEach(s -> arrayNode.add(StringInterner.internValue(interner, name, s)));
+            return arrayNode;
+        } else if (attributeValue.getNS() != null) {
+            ArrayNode arrayNode = nodeFactory.arrayNode();
+            attributeValue.getNS().forEach(n -> arrayNode.add(new BigDecimal(n)));
+            return arrayNode;
+        } else if (attributeValue.getL() != null) {
+            ArrayNode arrayNode = nodeFactory.arrayNode();
+            for (AttributeValue element : attributeValue.getL()) {
+                arrayNode.add(makeNode(name, element, nodeFactory, interner));
+            }
+            return arrayNode;
+        } else {
+            throw new MappingException(String.format("Couldn't interpret %s => %s", name, attributeValue));
         }
-
-        return root;
     }
 
-    private static Optional<AttributeValue> makeAV(JsonNode node) throws MappingException {
+    /**
+     * @return Attribute value for the node, or null for an empty array, which DynamoDB can't store as a set
+     */
+    @Nullable
+    static AttributeValue makeAV(JsonNode node, ArrayEncoding arrayEncoding) throws MappingException {
         JsonNodeType nodeType = node.getNodeType();
 
-        AttributeValue attributeValue = new AttributeValue();
-
         switch (nodeType) {
             case NULL:
-                attributeValue.setNULL(true);
-                return Optional.of(attributeValue);
+                return new AttributeValue().withNULL(true);
             case BOOLEAN:
-                attributeValue.setBOOL(node.asBoolean());
-                return Optional.of(attributeValue);
+                return new AttributeValue().withBOOL(node.booleanValue());
             case STRING:
-                if (node.asText().isEmpty()) {
-                    attributeValue.setNULL(true);
-                } else {
-                    attributeValue.setS(node.asText());
-                }
-                return Optional.of(attributeValue);
+                return makeStringAV(node.textValue());
             case NUMBER:
-                attributeValue.setN(node.asText());
-                return Optional.of(attributeValue);
+                return new AttributeValue().withN(node.asText());
             case OBJECT:
-                attributeValue.setM(makeAVMapForObject(node));
-                return Optional.of(attributeValue);
+                return new AttributeValue().withM(makeAVMapForObject(node, arrayEncoding));
             case ARRAY:
-                return setAVForArray(node, attributeValue);
+                return node.size() == 0 ? null : makeAVForArray(node, arrayEncoding);
             case BINARY:
                 try {
-                    attributeValue.setB(ByteBuffer.wrap(node.binaryValue()));
-                    return Optional.of(attributeValue);
+                    return new AttributeValue().withB(ByteBuffer.wrap(node.binaryValue()));
                 } catch (IOException e) {
                     throw new MappingException("Binary node exception", e);
                 }
@@ -125,52 +138,72 @@ public final class JsonNodeAttributeValueMapper {
         }
     }
 
-    private static Optional<AttributeValue> setAVForArray(JsonNode node, AttributeValue value) throws MappingException {
-        ImmutableList<JsonNode> jsonNodes = ImmutableList.copyOf(node.elements());
+    private static AttributeValue makeStringAV(String text) {
+        return text.isEmpty() ? new AttributeValue().withNULL(true) : new AttributeValue().withS(text);
+    }
 
-        if (jsonNodes.isEmpty()) {
-            return Optional.empty();
+    /**
+     * Converts an array in a single pass over its elements. With {@link ArrayEncoding#SETS}, elements are collected as
+     * set members while they all have the type of the first one, a string or a number; at the first element that
+     * doesn't, the members collected so far are turned into list elements and the array continues as a list.
+     */
+    private static AttributeValue makeAVForArray(JsonNode node, ArrayEncoding arrayEncoding) throws MappingException {
+        int size = node.size();
+
+        JsonNodeType setType = null;
+        if (arrayEncoding == ArrayEncoding.SETS) {
+            JsonNodeType firstType = node.get(0).getNodeType();
+            if (firstType == JsonNodeType.STRING || firstType == JsonNodeType.NUMBER) {
+                setType = firstType;
+            }
         }
 
-        Set<JsonNodeType> types = jsonNodes.stream().map(JsonNode::getNodeType).collect(Collectors.toSet());
+        List<String> members = setType != null ? new ArrayList<>(size) : null;
+        List<AttributeValue> elements = setType == null ? new ArrayList<>(size) : null;
+        for (int i = 0; i < size; i++) {
+            JsonNode element = node.get(i);
 
-        if (types.size() > 1) {
-            throw new MappingException("Mismatched types: " + types);
-        }
-
-        JsonNodeType type = types.iterator().next();
+            if (members != null) {
+                if (element.getNodeType() == setType) {
+                    members.add(setType == JsonNodeType.STRING ? element.textValue() : element.asText());
+                    continue;
+                }
 
-        switch (type) {
-            case STRING:
-                value.setSS(jsonNodes.stream().map(JsonNode::asText).collect(Collectors.toList()));
-                return Optional.of(value);
-            case NUMBER:
-                value.setNS(jsonNodes.stream().map(JsonNode::asText).collect(Collectors.toList()));
-                return Optional.of(value);
-            case OBJECT:
-                ImmutableList.Builder<AttributeValue> list = ImmutableList.builder();
-                for (JsonNode jsonNode : jsonNodes) {
-                    list.add(new AttributeValue().withM(makeAVMapForObject(jsonNode)));
+                elements = new ArrayList<>(size);
+                for (String member : members) {
+                    elements.add(setType == JsonNodeType.STRING ? makeStringAV(member) : new AttributeValue().withN(member));
                 }
-                value.setL(list.build());
-                return Optional.of(value);
-            default:
-                throw new MappingException("Unsupported list type " + type);
+                members = null;
+            }
+
+            AttributeValue attributeValue = makeAV(element, arrayEncoding);
+            // Keeps empty arrays in lists, so that element positions are preserved
+            elements.add(attributeValue != null ? attributeValue : new AttributeValue().withL(new ArrayList<>()));
+        }
+
+        if (members != null) {
+            return setType == JsonNodeType.STRING ? new AttributeValue().withSS(members) : new AttributeValue().withNS(members);
         }
+        return new AttributeValue().withL(elements);
     }
 
-    private static Map<String, AttributeValue> makeAVMapForObject(JsonNode node) throws MappingException {
-        ImmutableMap.Builder<String, AttributeValue> builder = ImmutableMap.builder();
+    /**
+     * @return Unmodifiable map of the object's fields, in the order of the object
+     */
+    private static Map<String, AttributeValue> makeAVMapForObject(JsonNode node, ArrayEncoding arrayEncoding)
+            throws MappingException {
+        // Sized so that it never rehashes
+        Map<String, AttributeValue> map = new LinkedHashMap<>((int) (node.size() / 0.75f) + 1);
 
         Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
         while (fields.hasNext()) {
             Map.Entry<String, JsonNode> entry = fields.next();
-            Optional<AttributeValue> attributeValue = makeAV(entry.getValue());
-            if (attributeValue.isPresent()) {
-                builder.put(entry.getKey(), attributeValue.get());
+            AttributeValue attributeValue = makeAV(entry.getValue(), arrayEncoding);
+            if (attributeValue != null) {
+                map.put(entry.getKey(), attributeValue);
             }
         }
 
-        return builder.build();
+        return Collections.unmodifiableMap(map);
     }
 }
@@ -0,0 +1,71 @@
+package com.scopely.mapper;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Primary key of a single item: a hash key and, for tables that have one, a range key. Used by the mapper's batch
+ * operations, which take many keys at once.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public final class Key {
+    private final String hashKey;
+    @Nullable private final String rangeKey;
+
+    private Key(String hashKey, @Nullable String rangeKey) {
+        this.hashKey = hashKey;
+        this.rangeKey = rangeKey;
+    }
+
+    public static Key of(String hashKey) {
+        if (hashKey == null || hashKey.trim().isEmpty()) {
+            throw new IllegalArgumentException("HashKey can't be null or empty");
+        }
+
+        return new Key(hashKey, null);
+    }
+
+    public static Key of(String hashKey, String rangeKey) {
+        if (hashKey == null || hashKey.trim().isEmpty()) {
+            throw new IllegalArgumentException("HashKey can't be null or empty");
+        }
+
+        if (rangeKey == null || rangeKey.trim().isEmpty()) {
+            throw new IllegalArgumentException("RangeKey can't be null or empty");
+        }
+
+        return new Key(hashKey, rangeKey);
+    }
+
+    @NotNull
+    public String getHashKey() {
+        return hashKey;
+    }
+
+    public Optional<String> getRangeKey() {
+        return Optional.ofNullable(rangeKey);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        Key key = (Key) o;
+
+        return hashKey.equals(key.hashKey) && Objects.equals(rangeKey, key.rangeKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * hashKey.hashCode() + (rangeKey != null ? rangeKey.hashCode() : 0);
+    }
+
+    @Override
+    public String toString() {
+        return rangeKey == null ? hashKey : hashKey + "/" + rangeKey;
+    }
+}
@@ -0,0 +1,71 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import org.jetbrains.annotations.Nullable;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+
+/**
+ * Column of an integral number attribute
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public final class LongColumn extends Column {
+    private long[] values = new long[0];
+
+    LongColumn(String name) {
+        super(name);
+    }
+
+    public long get(int row) {
+        checkRow(row);
+        return values[row];
+    }
+
+    /**
+     * @return Value of every row, 0 for null rows
+     */
+    public long[] getValues() {
+        return values;
+    }
+
+    @Override
+    void append(@Nullable AttributeValue value) throws MappingException {
+        if (value == null || value.getNULL() != null) {
+            appendNull();
+        } else if (value.getN() != null) {
+            values[size] = parse(value);
+            size++;
+        } else {
+            throw unexpected(value, "an integral number");
+        }
+    }
+
+    private long parse(AttributeValue value) throws MappingException {
+        try {
+            return Long.parseLong(value.getN());
+        } catch (NumberFormatException e) {
+            try {
+                return new BigDecimal(value.getN()).longValueExact();
+            } catch (ArithmeticException e2) {
+                throw unexpected(value, "an integral number");
+            }
+        }
+    }
+
+    @Override
+    void appendRow(Column other, int row) {
+        values[size] = ((LongColumn) other).values[row];
+        size++;
+    }
+
+    @Override
+    int capacity() {
+        return values.length;
+    }
+
+    @Override
+    void resize(int capacity) {
+        values = Arrays.copyOf(values, capacity);
+    }
+}
@@ -0,0 +1,41 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Receives measurements from a {@link JsonDynamoMapper}, for example to publish them to a metrics registry. Every
+ * method does nothing by default. Methods are called on the threads making requests, so they must be thread-safe
+ * and cheap.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public interface MapperMetrics {
+    /**
+     * Called for every item encoded to be written, before it's sent
+     * @param item Attribute values of the item; must not be modified
+     * @param size Size of the item, as computed by {@link ItemSize}
+     */
+    default void itemEncoded(String tableName, Map<String, AttributeValue> item, int size) {
+    }
+
+    /**
+     * Called when keys are answered as missing by an {@link ExistenceFilter}, without a request
+     */
+    default void existenceFilterSkipped(String tableName, int keys) {
+    }
+
+    /**
+     * Called when saves are skipped by {@link WriteFingerprints} because the items haven't changed
+     */
+    default void unchangedWritesSkipped(String tableName, int items) {
+    }
+
+    /**
+     * Called at the end of every window of a {@link HotKeyDetector} in which the table was accessed
+     * @param hotKeys Hottest hash keys of the table over the window, hottest first
+     */
+    default void hotKeys(String tableName, List<HotKey> hotKeys) {
+    }
+}
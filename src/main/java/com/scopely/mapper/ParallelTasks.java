@@ -0,0 +1,78 @@
+package com.scopely.mapper;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs a set of blocking DynamoDB tasks (scan segments, batches) on a short-lived pool, the same way the SDK's
+ * DynamoDBMapper runs parallel scans. The first failure cancels the remaining tasks and is rethrown to the caller.
+ */
+final class ParallelTasks {
+    private ParallelTasks() {
+    }
+
+    /**
+     * @return Task results, in the same order as the tasks
+     */
+    static <R> List<R> run(List<? extends Callable<R>> tasks, int parallelism) throws MappingException {
+        if (tasks.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        if (tasks.size() == 1) {
+            try {
+                return new ArrayList<>(Collections.singletonList(tasks.get(0).call()));
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new MappingException("Exception running task", e);
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(tasks.size(), parallelism),
+                new ThreadFactoryBuilder().setNameFormat("json-dynamo-mapper-%d").setDaemon(true).build());
+        try {
+            CompletionService<R> completionService = new ExecutorCompletionService<>(executor);
+            List<Future<R>> futures = new ArrayList<>(tasks.size());
+            for (Callable<R> task : tasks) {
+                futures.add(completionService.submit(task));
+            }
+
+            for (int i = 0; i < tasks.size(); i++) {
+                Future<R> completed = completionService.take();
+                try {
+                    completed.get();
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    throw new MappingException("Exception running task", cause);
+                }
+            }
+
+            List<R> results = new ArrayList<>(tasks.size());
+            for (Future<R> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MappingException("Interrupted while waiting for tasks", e);
+        } catch (ExecutionException e) {
+            throw new MappingException("Exception running task", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
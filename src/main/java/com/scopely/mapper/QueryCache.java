@@ -0,0 +1,202 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Opt-in cache of whole, decoded {@link JsonDynamoMapper#queryAll} results, for queries repeated on slowly changing
+ * partitions. Results are keyed by a canonical form of the query -- target class, table, index, key condition,
+ * filter, projection, and sorted expression names and values -- and expire after a TTL; the least recently used
+ * results are evicted when the cached results hold more than {@code maxItems} items in total.
+ *
+ * Any write the mapper makes (save, saveAll, delete, deleteAll, deleteByQuery, UnitOfWork) to a hash key evicts the
+ * cached queries on that hash key. Queries whose hash key can't be determined, such as queries of global secondary
+ * indexes, are evicted by any write to their table. Writes made by other mappers, processes or a
+ * {@link TableImporter} aren't seen, so the TTL bounds how stale results can get.
+ *
+ * Cached results share their objects between callers, which must not modify them.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class QueryCache {
+    private static final Pattern EQUALITY = Pattern.compile("([#\\w.]+)\\s*=\\s*(:\\w+)");
+
+    private final Cache<String, Entry> cache;
+    private final ConcurrentHashMap<List<Object>, Set<String>> keysByTag = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * @param ttlMillis How long a result is served after it was queried
+     * @param maxItems  Maximum number of items in all cached results together
+     */
+    public QueryCache(long ttlMillis, long maxItems) {
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("ttlMillis must be positive");
+        }
+        if (maxItems < 1) {
+            throw new IllegalArgumentException("maxItems must be at least 1");
+        }
+
+        this.cache = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                .maximumWeight(maxItems)
+                .<String, Entry>weigher((key, entry) -> entry.results.size() + 1)
+                .<String, Entry>removalListener(notification -> keysByTag.computeIfPresent(notification.getValue().tag,
+                        (tag, keys) -> {
+                            keys.remove(notification.getKey());
+                            return keys.isEmpty() ? null : keys;
+                        }))
+                .build();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return Canonical form of a query for results of the given class
+     */
+    static String cacheKey(Class<?> clazz, QueryRequest queryRequest) {
+        return new StringBuilder()
+                .append(clazz.getName())
+                .append('|').append(queryRequest.getTableName())
+                .append('|').append(queryRequest.getIndexName())
+                .append('|').append(normalize(queryRequest.getKeyConditionExpression()))
+                .append('|').append(sorted(queryRequest.getKeyConditions()))
+                .append('|').append(normalize(queryRequest.getFilterExpression()))
+                .append('|').append(sorted(queryRequest.getQueryFilter()))
+                .append('|').append(queryRequest.getConditionalOperator())
+                .append('|').append(normalize(queryRequest.getProjectionExpression()))
+                .append('|').append(queryRequest.getSelect())
+                .append('|').append(sorted(queryRequest.getExpressionAttributeNames()))
+                .append('|').append(sorted(queryRequest.getExpressionAttributeValues()))
+                .append('|').append(sorted(queryRequest.getExclusiveStartKey()))
+                .append('|').append(queryRequest.isScanIndexForward())
+                .append('|').append(queryRequest.isConsistentRead())
+                .append('|').append(queryRequest.getLimit())
+                .toString();
+    }
+
+    /**
+     * @return Number of invalidations so far; pass it to {@link #put} to discard results that a concurrent write may
+     * have made stale
+     */
+    long invalidations() {
+        return invalidations.get();
+    }
+
+    @Nullable
+    <T> List<T> get(String cacheKey) {
+        Entry entry = cache.getIfPresent(cacheKey);
+        //noinspection unchecked
+        return entry == null ? null : (List<T>) entry.results;
+    }
+
+    /**
+     * Caches results, unless there was an invalidation since {@code invalidationsBefore} was read
+     */
+    void put(String cacheKey, QueryRequest queryRequest, String hashKeyAttribute, List<?> results, long invalidationsBefore) {
+        List<Object> tag = tag(queryRequest, hashKeyAttribute);
+        cache.put(cacheKey, new Entry(tag, ImmutableList.copyOf(results)));
+        // Indexed after inserting, since inserting notifies the removal of a replaced or expired entry for the same key
+        keysByTag.compute(tag, (t, keys) -> {
+            Set<String> tagKeys = keys != null ? keys : ConcurrentHashMap.newKeySet();
+            tagKeys.add(cacheKey);
+            return tagKeys;
+        });
+
+        // Checked after indexing, so that a concurrent invalidation either finds the entry or is seen here
+        if (invalidations.get() != invalidationsBefore) {
+            cache.invalidate(cacheKey);
+        }
+    }
+
+    /**
+     * Evicts the queries on any of a written item's key attributes, and the queries of its table with an unknown hash
+     * key
+     */
+    void invalidate(String tableName, Map<String, AttributeValue> key) {
+        invalidations.incrementAndGet();
+        invalidateTag(ImmutableList.of(tableName));
+        for (Map.Entry<String, AttributeValue> attribute : key.entrySet()) {
+            invalidateTag(ImmutableList.of(tableName, attribute.getKey(), attribute.getValue()));
+        }
+    }
+
+    private void invalidateTag(List<Object> tag) {
+        Set<String> keys = keysByTag.get(tag);
+        if (keys != null && !keys.isEmpty()) {
+            cache.invalidateAll(ImmutableList.copyOf(keys));
+        }
+    }
+
+    /**
+     * @return (table, hash key attribute, value) when the key condition pins the table's hash key, otherwise (table)
+     */
+    private static List<Object> tag(QueryRequest queryRequest, String hashKeyAttribute) {
+        String tableName = queryRequest.getTableName();
+        String keyCondition = queryRequest.getKeyConditionExpression();
+        if (keyCondition != null && queryRequest.getExpressionAttributeValues() != null) {
+            Matcher matcher = EQUALITY.matcher(keyCondition);
+            while (matcher.find()) {
+                String name = matcher.group(1);
+                if (queryRequest.getExpressionAttributeNames() != null && queryRequest.getExpressionAttributeNames().containsKey(name)) {
+                    name = queryRequest.getExpressionAttributeNames().get(name);
+                }
+                AttributeValue value = queryRequest.getExpressionAttributeValues().get(matcher.group(2));
+                if (name.equals(hashKeyAttribute) && value != null) {
+                    return ImmutableList.of(tableName, hashKeyAttribute, value);
+                }
+            }
+        }
+
+        Map<String, Condition> keyConditions = queryRequest.getKeyConditions();
+        if (keyConditions != null && keyConditions.containsKey(hashKeyAttribute)) {
+            Condition condition = keyConditions.get(hashKeyAttribute);
+            if ("EQ".equals(condition.getComparisonOperator()) && condition.getAttributeValueList().size() == 1) {
+                return ImmutableList.of(tableName, hashKeyAttribute, condition.getAttributeValueList().get(0));
+            }
+        }
+
+        return ImmutableList.of(tableName);
+    }
+
+    @Nullable
+    private static String normalize(@Nullable String expression) {
+        return expression == null ? null : expression.trim().replaceAll("\\s+", " ");
+    }
+
+    @Nullable
+    private static String sorted(@Nullable Map<String, ?> map) {
+        return map == null ? null : new TreeMap<>(map).toString();
+    }
+
+    private static final class Entry {
+        private final List<Object> tag;
+        private final List<?> results;
+
+        private Entry(List<Object> tag, List<?> results) {
+            this.tag = tag;
+            this.results = results;
+        }
+    }
+}
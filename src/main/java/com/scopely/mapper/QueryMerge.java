@@ -0,0 +1,114 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.amazonaws.services.dynamodbv2.model.QueryResult;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+
+/**
+ * K-way merge of the queries of several partitions by range key. Every partition's results arrive in range key order,
+ * so the next item overall is the smallest (or largest) head among the partitions; a partition's next page is only
+ * requested once its buffered items have been merged, and never for more items than are still needed.
+ */
+final class QueryMerge<T> {
+    private final JsonDynamoMapper mapper;
+    private final Class<T> clazz;
+    private final String rangeKeyAttribute;
+    @Nullable private final CapacityRateLimiter rateLimiter;
+
+    QueryMerge(JsonDynamoMapper mapper, Class<T> clazz, String rangeKeyAttribute, @Nullable CapacityRateLimiter rateLimiter) {
+        this.mapper = mapper;
+        this.clazz = clazz;
+        this.rangeKeyAttribute = rangeKeyAttribute;
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * @param queries    One query per partition, in the order used to break ties between equal range keys
+     * @param ascending  Whether the queries return ascending range keys
+     */
+    List<T> run(List<QueryRequest> queries, boolean ascending, int limit, int parallelism) throws MappingException {
+        List<Partition> partitions = new ArrayList<>(queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            partitions.add(new Partition(i, queries.get(i)));
+        }
+
+        // Even split of the limit for the first pages, which are fetched concurrently
+        int firstPageLimit = Math.max(1, (int) Math.min(limit, ((long) limit + partitions.size() - 1) / partitions.size()));
+        List<Callable<Void>> firstPages = new ArrayList<>(partitions.size());
+        for (Partition partition : partitions) {
+            firstPages.add(() -> {
+                partition.fetch(firstPageLimit);
+                return null;
+            });
+        }
+        ParallelTasks.run(firstPages, parallelism);
+
+        Comparator<String> rangeKeyOrder = ascending ? RangeKeys.ORDER : RangeKeys.ORDER.reversed();
+        PriorityQueue<Partition> heads = new PriorityQueue<>(Math.max(1, partitions.size()),
+                Comparator.<Partition, String>comparing(partition -> partition.rangeKeys.peekFirst(), rangeKeyOrder)
+                        .thenComparingInt(partition -> partition.index));
+        for (Partition partition : partitions) {
+            if (!partition.items.isEmpty()) {
+                heads.add(partition);
+            }
+        }
+
+        List<T> results = new ArrayList<>();
+        while (results.size() < limit && !heads.isEmpty()) {
+            Partition partition = heads.poll();
+            results.add(partition.items.pollFirst());
+            partition.rangeKeys.pollFirst();
+
+            if (partition.items.isEmpty() && !partition.exhausted && results.size() < limit) {
+                partition.fetch(limit - results.size());
+            }
+            if (!partition.items.isEmpty()) {
+                heads.add(partition);
+            }
+        }
+        return results;
+    }
+
+    private final class Partition {
+        private final int index;
+        private final QueryRequest queryRequest;
+        private final Deque<String> rangeKeys = new ArrayDeque<>();
+        private final Deque<T> items = new ArrayDeque<>();
+        private boolean exhausted;
+
+        private Partition(int index, QueryRequest queryRequest) {
+            this.index = index;
+            this.queryRequest = queryRequest;
+        }
+
+        /**
+         * Fetches pages of up to {@code pageLimit} items until one has items, since filters can leave pages empty
+         */
+        private void fetch(int pageLimit) throws MappingException {
+            do {
+                QueryResult queryResult = mapper.query(queryRequest.withLimit(pageLimit), rateLimiter);
+                for (Map<String, AttributeValue> item : queryResult.getItems()) {
+                    AttributeValue rangeKey = item.get(rangeKeyAttribute);
+                    if (rangeKey == null || rangeKey.getS() == null) {
+                        throw new MappingException("Item of " + clazz + " is missing range key attribute "
+                                + rangeKeyAttribute + "; projections must include it");
+                    }
+                    rangeKeys.addLast(rangeKey.getS());
+                }
+                items.addAll(mapper.convertItems(clazz, queryResult.getItems()));
+                queryRequest.setExclusiveStartKey(queryResult.getLastEvaluatedKey());
+                exhausted = queryResult.getLastEvaluatedKey() == null;
+            } while (items.isEmpty() && !exhausted);
+        }
+    }
+}
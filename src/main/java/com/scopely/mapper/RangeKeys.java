@@ -0,0 +1,29 @@
+package com.scopely.mapper;
+
+import java.util.Comparator;
+
+/**
+ * Ordering of string range keys as DynamoDB sorts them, by their UTF-8 bytes. This is code point order, which differs
+ * from {@link String#compareTo} for characters outside the Basic Multilingual Plane.
+ */
+final class RangeKeys {
+    static final Comparator<String> ORDER = RangeKeys::compare;
+
+    private RangeKeys() {
+    }
+
+    static int compare(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int ca = a.codePointAt(i);
+            int cb = b.codePointAt(j);
+            if (ca != cb) {
+                return Integer.compare(ca, cb);
+            }
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+}
@@ -0,0 +1,31 @@
+package com.scopely.mapper;
+
+import com.amazonaws.AmazonClientException;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.OptionalLong;
+
+/**
+ * Decides whether, and after how long, the mapper retries a DynamoDB request. The same policy is consulted for
+ * requests that failed with an exception and for batch requests that left unprocessed items or keys.
+ *
+ * @see ExponentialBackoffRetryPolicy
+ */
+@FunctionalInterface
+public interface RetryPolicy {
+    /**
+     * Never retries failed requests, and retries unprocessed batch items immediately, up to 4 times. This is the
+     * mapper's default, and relies on the retries of the AmazonDynamoDB client itself.
+     */
+    RetryPolicy NO_BACKOFF = (exception, attempts, elapsedMillis) ->
+            exception == null && attempts <= 4 ? OptionalLong.of(0) : OptionalLong.empty();
+
+    /**
+     * @param exception     Exception thrown by the last attempt, or null if the last attempt was a batch request that
+     *                      left unprocessed items
+     * @param attempts      Number of attempts made so far; at least 1
+     * @param elapsedMillis Time elapsed since the first attempt started
+     * @return Delay before the next attempt, or empty to give up
+     */
+    OptionalLong retryDelayMillis(@Nullable AmazonClientException exception, int attempts, long elapsedMillis);
+}
@@ -0,0 +1,87 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read-your-writes consistency for a {@link JsonDynamoMapper}, at the cost of eventually consistent reads. The mapper
+ * records the key of every item it writes or deletes, and reads that don't specify a consistency -- such as
+ * {@code load(Class, hashKey)} -- are strongly consistent only for keys written within the window, and eventually
+ * consistent, at half the read capacity, for every other key.
+ *
+ * At most {@code maxKeys} keys are tracked. When more keys are written within a window, the tracked keys are dropped
+ * and every read is strongly consistent until a full window has passed, so a read never misses one of the mapper's own
+ * writes. Writes by other mappers or processes are not tracked.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class SessionConsistency {
+    public static final int DEFAULT_MAX_KEYS = 100_000;
+
+    private final long windowNanos;
+    private final int maxKeys;
+    private final Ticker ticker;
+
+    private final ConcurrentHashMap<List<Object>, Long> writeDeadlines = new ConcurrentHashMap<>();
+    private volatile long consistentUntilNanos;
+
+    /**
+     * @param windowMillis How long reads of a written key stay strongly consistent; comfortably longer than
+     *                     DynamoDB's replication delay, which is typically well under a second
+     */
+    public SessionConsistency(long windowMillis) {
+        this(windowMillis, DEFAULT_MAX_KEYS);
+    }
+
+    public SessionConsistency(long windowMillis, int maxKeys) {
+        this(windowMillis, maxKeys, Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    SessionConsistency(long windowMillis, int maxKeys, Ticker ticker) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("windowMillis must be positive");
+        }
+        if (maxKeys < 1) {
+            throw new IllegalArgumentException("maxKeys must be at least 1");
+        }
+
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxKeys = maxKeys;
+        this.ticker = ticker;
+        this.consistentUntilNanos = ticker.read();
+    }
+
+    void recordWrite(String tableName, Map<String, AttributeValue> key) {
+        long now = ticker.read();
+        writeDeadlines.put(ImmutableList.of(tableName, key), now + windowNanos);
+
+        if (writeDeadlines.size() > maxKeys) {
+            writeDeadlines.values().removeIf(deadline -> deadline - now <= 0);
+            // Keeps some headroom, so that a full map isn't swept again on every write
+            if (writeDeadlines.size() > maxKeys * 3 / 4) {
+                consistentUntilNanos = now + windowNanos;
+                writeDeadlines.clear();
+            }
+        }
+    }
+
+    /**
+     * @return Whether a read of the key must be strongly consistent to see the mapper's own writes
+     */
+    boolean requiresConsistentRead(String tableName, Map<String, AttributeValue> key) {
+        long now = ticker.read();
+        if (consistentUntilNanos - now > 0) {
+            return true;
+        }
+
+        Long deadline = writeDeadlines.get(ImmutableList.of(tableName, key));
+        return deadline != null && deadline - now > 0;
+    }
+}
@@ -0,0 +1,126 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column of a string attribute, dictionary-encoded: each row holds the code of its string in the dictionary, in order of
+ * first appearance, so that each distinct string is kept once and rows can be grouped and compared by code.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public final class StringColumn extends Column {
+    public static final int NULL_CODE = -1;
+
+    private int[] codes = new int[0];
+    private final List<String> dictionary = new ArrayList<>();
+    private final Map<String, Integer> codesByString = new HashMap<>();
+
+    StringColumn(String name) {
+        super(name);
+    }
+
+    @Nullable
+    public String get(int row) {
+        checkRow(row);
+        return codes[row] == NULL_CODE ? null : dictionary.get(codes[row]);
+    }
+
+    public int getCode(int row) {
+        checkRow(row);
+        return codes[row];
+    }
+
+    /**
+     * @return Code of every row, {@link #NULL_CODE} for null rows
+     */
+    public int[] getCodes() {
+        return codes;
+    }
+
+    /**
+     * @return Distinct strings of the column, indexed by code
+     */
+    public List<String> getDictionary() {
+        return Collections.unmodifiableList(dictionary);
+    }
+
+    /**
+     * @return Code of the string, or {@link #NULL_CODE} if no row has it
+     */
+    public int codeOf(String string) {
+        Integer code = codesByString.get(string);
+        return code == null ? NULL_CODE : code;
+    }
+
+    @Override
+    void appendNull() {
+        codes[size] = NULL_CODE;
+        super.appendNull();
+    }
+
+    @Override
+    void append(@Nullable AttributeValue value) throws MappingException {
+        if (value == null || value.getNULL() != null) {
+            appendNull();
+        } else if (value.getS() != null) {
+            codes[size] = encode(value.getS());
+            size++;
+        } else {
+            throw unexpected(value, "a string");
+        }
+    }
+
+    private int encode(String string) {
+        Integer code = codesByString.get(string);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.add(string);
+            codesByString.put(string, code);
+        }
+        return code;
+    }
+
+    @Override
+    void appendAll(Column other) {
+        // Codes of the other column's dictionary in this one, translating each distinct string once
+        StringColumn strings = (StringColumn) other;
+        int[] translated = new int[strings.dictionary.size()];
+        for (int code = 0; code < translated.length; code++) {
+            translated[code] = encode(strings.dictionary.get(code));
+        }
+
+        reserve(strings.size);
+        for (int row = 0; row < strings.size; row++) {
+            int code = strings.codes[row];
+            if (code == NULL_CODE) {
+                appendNull();
+            } else {
+                codes[size] = translated[code];
+                size++;
+            }
+        }
+    }
+
+    @Override
+    void appendRow(Column other, int row) {
+        codes[size] = encode(((StringColumn) other).get(row));
+        size++;
+    }
+
+    @Override
+    int capacity() {
+        return codes.length;
+    }
+
+    @Override
+    void resize(int capacity) {
+        codes = Arrays.copyOf(codes, capacity);
+    }
+}
@@ -0,0 +1,91 @@
+package com.scopely.mapper;
+
+import com.google.common.collect.ImmutableSet;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Opt-in deduplication of the strings of decoded items, for jobs that hold many items in memory at once. Every item
+ * DynamoDB returns has its own copies of its attribute names and values; with an interner, the mapper replaces the
+ * attribute names of decoded items, at every depth, and the string values of the {@code valueAttributes}, with an equal
+ * string decoded before. Names end up in decoded objects as keys of map and {@link com.fasterxml.jackson.databind.JsonNode}
+ * properties; values should be those with few distinct values, such as statuses and types, since interning a value
+ * that's rarely repeated only costs time.
+ *
+ * The table is a fixed array of {@code capacity} slots indexed by the hash of the string, where a string replaces the
+ * one in its slot unless they're equal. It never grows and takes no locks: strings whose hashes collide evict each other,
+ * which only costs some deduplication, and concurrent decodes at worst overwrite each other's slots.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class StringInterner {
+    private final AtomicReferenceArray<String> table;
+    private final int mask;
+    private final Set<String> valueAttributes;
+
+    /**
+     * @param capacity        Number of slots, rounded up to a power of two; a few times the number of distinct strings
+     *                        interned keeps collisions rare
+     * @param valueAttributes Names of the attributes whose string and string set values are interned
+     */
+    public StringInterner(int capacity, Collection<String> valueAttributes) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("capacity must be in [1, 2^30]");
+        }
+
+        int size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+        this.table = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.valueAttributes = ImmutableSet.copyOf(valueAttributes);
+    }
+
+    /**
+     * @param capacity        Number of slots, rounded up to a power of two
+     * @param valueAttributes Names of the attributes whose string and string set values are interned
+     */
+    public StringInterner(int capacity, String... valueAttributes) {
+        this(capacity, Arrays.asList(valueAttributes));
+    }
+
+    /**
+     * @return An interned string equal to {@code string}, or {@code string} itself if none is interned
+     */
+    public String intern(String string) {
+        int slot = spread(string.hashCode()) & mask;
+        String interned = table.get(slot);
+        if (string.equals(interned)) {
+            return interned;
+        }
+        table.lazySet(slot, string);
+        return string;
+    }
+
+    /**
+     * @return The value interned if it's a value of a {@code valueAttributes} attribute, otherwise the value
+     */
+    String internValue(String attributeName, String value) {
+        return valueAttributes.contains(attributeName) ? intern(value) : value;
+    }
+
+    public Set<String> getValueAttributes() {
+        return valueAttributes;
+    }
+
+    /**
+     * Interns with the interner if there's one, so that decoding doesn't need to check
+     */
+    static String intern(@Nullable StringInterner interner, String string) {
+        return interner == null ? string : interner.intern(string);
+    }
+
+    static String internValue(@Nullable StringInterner interner, String attributeName, String value) {
+        return interner == null ? value : interner.internValue(attributeName, value);
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
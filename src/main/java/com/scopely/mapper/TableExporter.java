@@ -0,0 +1,341 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * Exports the table associated with a class to a directory, using a parallel scan. Each segment streams its items to
+ * its own file ({@code segment-00000.ndjson}, ...) through a buffered FileChannel, so memory use is bounded by one scan
+ * page per segment.
+ *
+ * After every page, the segment's file is flushed to disk and the page's LastEvaluatedKey is checkpointed next to it
+ * ({@code segment-00000.checkpoint}). Running the same export again resumes every unfinished segment from its last
+ * checkpoint, discarding anything written after it, and skips finished segments.
+ *
+ * <pre>{@code
+ * long exported = new TableExporter(mapper, HashAndRange.class, Paths.get("/tmp/export"))
+ *         .withFormat(ExportFormat.BINARY)
+ *         .withTotalSegments(8)
+ *         .withRateLimiter(mapper.readCapacityLimiter(HashAndRange.class, 0.25))
+ *         .export();
+ * }</pre>
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class TableExporter {
+    static final int BINARY_MAGIC = 0x4D415052; // "MAPR"
+    static final byte BINARY_VERSION = 1;
+    static final int BINARY_HEADER_SIZE = 5;
+
+    private static final int CHECKPOINT_MAGIC = 0x4D415043; // "MAPC"
+    private static final byte CHECKPOINT_VERSION = 1;
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final JsonDynamoMapper mapper;
+    private final Class<?> clazz;
+    private final Path directory;
+
+    private ExportFormat format = ExportFormat.NDJSON;
+    private int totalSegments = 1;
+    private DynamoDBScanExpression scanExpression = new DynamoDBScanExpression();
+    @Nullable private CapacityRateLimiter rateLimiter;
+
+    public TableExporter(JsonDynamoMapper mapper, Class<?> clazz, Path directory) {
+        this.mapper = mapper;
+        this.clazz = clazz;
+        this.directory = directory;
+    }
+
+    public TableExporter withFormat(@NotNull ExportFormat format) {
+        this.format = format;
+        return this;
+    }
+
+    /**
+     * Number of parallel scan segments, each exported on its own thread to its own file. Must not change when
+     * resuming an export.
+     */
+    public TableExporter withTotalSegments(int totalSegments) {
+        if (totalSegments < 1) {
+            throw new IllegalArgumentException("totalSegments must be at least 1");
+        }
+
+        this.totalSegments = totalSegments;
+        return this;
+    }
+
+    /**
+     * Scan expression for filters and projections; its segment and exclusive start key are ignored.
+     */
+    public TableExporter withScanExpression(@NotNull DynamoDBScanExpression scanExpression) {
+        this.scanExpression = scanExpression;
+        return this;
+    }
+
+    /**
+     * Rate limiter shared by all segments.
+     */
+    public TableExporter withRateLimiter(@Nullable CapacityRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+        return this;
+    }
+
+    /**
+     * Exports the table, or resumes a previous export into the same directory.
+     *
+     * @return Total number of items in the export, including items exported by previous runs
+     * @throws MappingException On I/O errors, JSON errors, invalid class, or a checkpoint from a different export
+     */
+    public long export() throws MappingException {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new MappingException("Couldn't create export directory " + directory, e);
+        }
+
+        List<Callable<Long>> segments = new ArrayList<>();
+        for (int segment = 0; segment < totalSegments; segment++) {
+            int s = segment;
+            segments.add(() -> exportSegment(s));
+        }
+
+        long total = 0;
+        for (Long items : ParallelTasks.run(segments, totalSegments)) {
+            total += items;
+        }
+        return total;
+    }
+
+    static Path segmentFile(Path directory, int segment, ExportFormat format) {
+        return directory.resolve(String.format("segment-%05d.%s", segment, format.getExtension()));
+    }
+
+    static Path checkpointFile(Path directory, int segment) {
+        return directory.resolve(String.format("segment-%05d.checkpoint", segment));
+    }
+
+    private long exportSegment(int segment) throws MappingException {
+        Path dataFile = segmentFile(directory, segment, format);
+        Path checkpointFile = checkpointFile(directory, segment);
+
+        try {
+            Checkpoint checkpoint = Checkpoint.read(checkpointFile);
+            if (checkpoint == null) {
+                checkpoint = new Checkpoint(format, totalSegments, 0, 0, false, null);
+            } else if (checkpoint.format != format || checkpoint.totalSegments != totalSegments) {
+                throw new MappingException("Checkpoint " + checkpointFile + " belongs to an export with format "
+                        + checkpoint.format + " and " + checkpoint.totalSegments + " segments");
+            } else if (checkpoint.complete) {
+                return checkpoint.items;
+            }
+
+            try (FileChannel channel = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                channel.truncate(checkpoint.offset);
+                channel.position(checkpoint.offset);
+
+                SegmentWriter writer = new SegmentWriter(channel, format, mapper.objectMapper());
+                if (checkpoint.offset == 0 && format == ExportFormat.BINARY) {
+                    writer.writeHeader();
+                }
+
+                ScanRequest scanRequest = mapper.scanRequest(clazz, scanExpression)
+                        .withTotalSegments(totalSegments)
+                        .withSegment(segment)
+                        .withExclusiveStartKey(checkpoint.lastEvaluatedKey);
+
+                long items = checkpoint.items;
+                do {
+                    ScanResult scanResult = mapper.scan(scanRequest, rateLimiter);
+                    for (Map<String, AttributeValue> item : scanResult.getItems()) {
+                        writer.write(item);
+                    }
+                    writer.flush();
+                    channel.force(false);
+
+                    items += scanResult.getItems().size();
+                    Map<String, AttributeValue> lastEvaluatedKey = scanResult.getLastEvaluatedKey();
+                    new Checkpoint(format, totalSegments, channel.position(), items, lastEvaluatedKey == null,
+                            lastEvaluatedKey).write(checkpointFile);
+
+                    scanRequest.setExclusiveStartKey(lastEvaluatedKey);
+                } while (scanRequest.getExclusiveStartKey() != null);
+
+                return items;
+            }
+        } catch (IOException e) {
+            throw new MappingException("Exception exporting segment " + segment + " to " + dataFile, e);
+        }
+    }
+
+    /**
+     * Buffers encoded items and writes them to a channel.
+     */
+    private static class SegmentWriter {
+        private final FileChannel channel;
+        private final ExportFormat format;
+        private final ObjectMapper objectMapper;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final AttributeValueCodec.Output output = new AttributeValueCodec.Output(1024);
+
+        SegmentWriter(FileChannel channel, ExportFormat format, ObjectMapper objectMapper) {
+            this.channel = channel;
+            this.format = format;
+            this.objectMapper = objectMapper;
+        }
+
+        void writeHeader() throws IOException {
+            buffer.putInt(BINARY_MAGIC).put(BINARY_VERSION);
+        }
+
+        void write(Map<String, AttributeValue> item) throws IOException, MappingException {
+            if (format == ExportFormat.NDJSON) {
+                byte[] json = objectMapper.writeValueAsBytes(JsonNodeAttributeValueMapper.convert(item, objectMapper));
+                put(json, 0, json.length);
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                buffer.put((byte) '\n');
+            } else {
+                output.reset();
+                AttributeValueCodec.encode(item, output);
+                int length = output.size();
+
+                if (buffer.remaining() < 5) {
+                    flush();
+                }
+                while ((length & ~0x7F) != 0) {
+                    buffer.put((byte) ((length & 0x7F) | 0x80));
+                    length >>>= 7;
+                }
+                buffer.put((byte) length);
+                put(output.array(), 0, output.size());
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void put(byte[] bytes, int offset, int length) throws IOException {
+            if (length > buffer.remaining()) {
+                flush();
+            }
+
+            if (length > buffer.capacity()) {
+                ByteBuffer wrapped = ByteBuffer.wrap(bytes, offset, length);
+                while (wrapped.hasRemaining()) {
+                    channel.write(wrapped);
+                }
+            } else {
+                buffer.put(bytes, offset, length);
+            }
+        }
+    }
+
+    /**
+     * Progress of one segment: the scan's LastEvaluatedKey, and the size of the segment's file when it was written.
+     */
+    private static class Checkpoint {
+        final ExportFormat format;
+        final int totalSegments;
+        final long offset;
+        final long items;
+        final boolean complete;
+        @Nullable final Map<String, AttributeValue> lastEvaluatedKey;
+
+        Checkpoint(ExportFormat format, int totalSegments, long offset, long items, boolean complete,
+                   @Nullable Map<String, AttributeValue> lastEvaluatedKey) {
+            this.format = format;
+            this.totalSegments = totalSegments;
+            this.offset = offset;
+            this.items = items;
+            this.complete = complete;
+            this.lastEvaluatedKey = lastEvaluatedKey;
+        }
+
+        @Nullable
+        static Checkpoint read(Path file) throws IOException, MappingException {
+            byte[] bytes;
+            try {
+                bytes = Files.readAllBytes(file);
+            } catch (NoSuchFileException e) {
+                return null;
+            }
+
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes))) {
+                if (in.readInt() != CHECKPOINT_MAGIC || in.readByte() != CHECKPOINT_VERSION) {
+                    throw new MappingException("Unrecognized checkpoint " + file);
+                }
+
+                ExportFormat format = ExportFormat.valueOf(in.readUTF());
+                int totalSegments = in.readInt();
+                long offset = in.readLong();
+                long items = in.readLong();
+                boolean complete = in.readBoolean();
+
+                Map<String, AttributeValue> lastEvaluatedKey = null;
+                int keyLength = in.readInt();
+                if (keyLength >= 0) {
+                    byte[] key = new byte[keyLength];
+                    in.readFully(key);
+                    lastEvaluatedKey = AttributeValueCodec.decode(ByteBuffer.wrap(key));
+                }
+
+                return new Checkpoint(format, totalSegments, offset, items, complete, lastEvaluatedKey);
+            }
+        }
+
+        /**
+         * Replaces the checkpoint file atomically, so a crash leaves either the previous or the new checkpoint
+         */
+        void write(Path file) throws IOException, MappingException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeInt(CHECKPOINT_MAGIC);
+                out.writeByte(CHECKPOINT_VERSION);
+                out.writeUTF(format.name());
+                out.writeInt(totalSegments);
+                out.writeLong(offset);
+                out.writeLong(items);
+                out.writeBoolean(complete);
+
+                if (lastEvaluatedKey == null) {
+                    out.writeInt(-1);
+                } else {
+                    byte[] key = AttributeValueCodec.encode(lastEvaluatedKey);
+                    out.writeInt(key.length);
+                    out.write(key);
+                }
+            }
+
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temporary, bytes.toByteArray());
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
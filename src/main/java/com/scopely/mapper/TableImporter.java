@@ -0,0 +1,507 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Imports a file written by {@link TableExporter}, or any file of one JSON item per line, into the table associated
+ * with a class. The file is read sequentially, either streamed or memory-mapped, and split into batches of 25 items;
+ * batches are decoded on a pool of worker threads and written with BatchWriteItem by a bounded number of writer
+ * threads. Unprocessed items are retried with the importer's retry policy, and requests can be paced by a
+ * {@link CapacityRateLimiter}.
+ *
+ * Items are written as they are, without version checks or generated keys, and each batch must not contain the same
+ * key twice. An interrupted import can be resumed from the offset reported by its progress, or by the
+ * {@link ImportException} it failed with:
+ *
+ * <pre>{@code
+ * ImportProgress progress = new TableImporter(mapper, HashAndRange.class, Paths.get("/tmp/export/segment-00000.bin"))
+ *         .withFormat(ExportFormat.BINARY)
+ *         .withStartOffset(savedOffset)
+ *         .withProgressListener(p -> log.info("{}", p))
+ *         .importItems();
+ * }</pre>
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class TableImporter {
+    private static final int BATCH_SIZE = 25;
+    private static final int STREAMED_WINDOW_SIZE = 1024 * 1024;
+    private static final int MAPPED_WINDOW_SIZE = 256 * 1024 * 1024;
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final JsonDynamoMapper mapper;
+    private final Class<?> clazz;
+    private final Path file;
+
+    private ExportFormat format = ExportFormat.NDJSON;
+    private long startOffset;
+    private boolean memoryMapped;
+    private int decodeThreads = Runtime.getRuntime().availableProcessors();
+    private int writeConcurrency = 8;
+    private RetryPolicy retryPolicy = new ExponentialBackoffRetryPolicy();
+    @Nullable private CapacityRateLimiter rateLimiter;
+    @Nullable private Consumer<ImportProgress> progressListener;
+
+    public TableImporter(JsonDynamoMapper mapper, Class<?> clazz, Path file) {
+        this.mapper = mapper;
+        this.clazz = clazz;
+        this.file = file;
+    }
+
+    public TableImporter withFormat(@NotNull ExportFormat format) {
+        this.format = format;
+        return this;
+    }
+
+    /**
+     * Offset in the file to start reading from: 0, or the offset of an {@link ImportProgress} of a previous import of
+     * the same file.
+     */
+    public TableImporter withStartOffset(long startOffset) {
+        if (startOffset < 0) {
+            throw new IllegalArgumentException("startOffset can't be negative");
+        }
+
+        this.startOffset = startOffset;
+        return this;
+    }
+
+    /**
+     * Reads the file through memory-mapped windows instead of streaming it through heap buffers.
+     */
+    public TableImporter withMemoryMapped(boolean memoryMapped) {
+        this.memoryMapped = memoryMapped;
+        return this;
+    }
+
+    /**
+     * Number of threads decoding batches. Defaults to the number of processors.
+     */
+    public TableImporter withDecodeThreads(int decodeThreads) {
+        if (decodeThreads < 1) {
+            throw new IllegalArgumentException("decodeThreads must be at least 1");
+        }
+
+        this.decodeThreads = decodeThreads;
+        return this;
+    }
+
+    /**
+     * Maximum number of concurrent BatchWriteItem requests. Defaults to 8.
+     */
+    public TableImporter withWriteConcurrency(int writeConcurrency) {
+        if (writeConcurrency < 1) {
+            throw new IllegalArgumentException("writeConcurrency must be at least 1");
+        }
+
+        this.writeConcurrency = writeConcurrency;
+        return this;
+    }
+
+    /**
+     * Retry policy for unprocessed items of each batch. Defaults to {@link ExponentialBackoffRetryPolicy}; failed
+     * requests are retried with the mapper's policy.
+     */
+    public TableImporter withRetryPolicy(@NotNull RetryPolicy retryPolicy) {
+        this.retryPolicy = retryPolicy;
+        return this;
+    }
+
+    public TableImporter withRateLimiter(@Nullable CapacityRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+        return this;
+    }
+
+    /**
+     * Listener called with the import's progress about once a second while batches complete, and once when the import
+     * succeeds. It is called from writer threads and should return quickly.
+     */
+    public TableImporter withProgressListener(@Nullable Consumer<ImportProgress> progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    /**
+     * Imports the file, from the start offset to its end.
+     *
+     * @return Final progress of the import
+     * @throws ImportException If reading, decoding or writing fails; its progress tells where to resume from
+     * @throws MappingException On invalid class
+     */
+    public ImportProgress importItems() throws MappingException {
+        String tableName = JsonDynamoMapper.tableName(clazz);
+        Progress progress = new Progress(startOffset);
+
+        ExecutorService decodePool = Executors.newFixedThreadPool(decodeThreads,
+                new ThreadFactoryBuilder().setNameFormat("json-dynamo-mapper-import-decode-%d").setDaemon(true).build());
+        ExecutorService writePool = Executors.newFixedThreadPool(writeConcurrency,
+                new ThreadFactoryBuilder().setNameFormat("json-dynamo-mapper-import-write-%d").setDaemon(true).build());
+
+        // Bounds the batches held in memory while waiting to be decoded or written
+        int maxPendingBatches = 2 * (decodeThreads + writeConcurrency);
+        Semaphore pendingBatches = new Semaphore(maxPendingBatches);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        try {
+            try (Source source = memoryMapped ? new MappedSource(file) : new StreamedSource(file)) {
+                long offset = startOffset;
+                if (offset > source.size()) {
+                    throw new MappingException("Start offset " + offset + " is past the end of " + file);
+                }
+                if (format == ExportFormat.BINARY && offset < TableExporter.BINARY_HEADER_SIZE) {
+                    readHeader(source);
+                    offset = TableExporter.BINARY_HEADER_SIZE;
+                    progress.skipTo(offset);
+                }
+
+                long sequence = 0;
+                List<ByteBuffer> records = new ArrayList<>(BATCH_SIZE);
+                ByteBuffer window = source.window(offset, 1);
+                while (failure.get() == null) {
+                    boolean endOfFile = offset + window.limit() >= source.size();
+                    if (endOfFile && !window.hasRemaining()) {
+                        break;
+                    }
+
+                    ByteBuffer record = nextRecord(window, endOfFile, offset);
+                    if (record == null) {
+                        // Incomplete record: move the window to its start, growing it if the record is larger
+                        int minLength = window.position() == 0 ? Math.max(1, window.limit() * 2) : 1;
+                        offset += window.position();
+                        window = source.window(offset, minLength);
+                        continue;
+                    }
+
+                    records.add(record);
+                    if (records.size() == BATCH_SIZE) {
+                        pendingBatches.acquire();
+                        submit(new Batch(sequence++, offset + window.position(), records), tableName, decodePool,
+                                writePool, progress, pendingBatches, failure);
+                        records = new ArrayList<>(BATCH_SIZE);
+                    }
+                }
+
+                if (!records.isEmpty() && failure.get() == null) {
+                    pendingBatches.acquire();
+                    submit(new Batch(sequence, offset + window.position(), records), tableName, decodePool,
+                            writePool, progress, pendingBatches, failure);
+                }
+            } catch (IOException | RuntimeException e) {
+                failure.compareAndSet(null, e);
+            }
+
+            // Waits for the submitted batches, including after a failure, so that the progress is final
+            pendingBatches.acquire(maxPendingBatches);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure.compareAndSet(null, e);
+        } finally {
+            decodePool.shutdownNow();
+            writePool.shutdownNow();
+        }
+
+        ImportProgress finalProgress = progress.snapshot();
+        Throwable cause = failure.get();
+        if (cause != null) {
+            throw new ImportException("Import of " + file + " failed; items before offset "
+                    + finalProgress.getOffset() + " were written", cause, finalProgress);
+        }
+
+        if (progressListener != null) {
+            progressListener.accept(finalProgress);
+        }
+        return finalProgress;
+    }
+
+    private void submit(Batch batch, String tableName, ExecutorService decodePool, ExecutorService writePool,
+                        Progress progress, Semaphore pendingBatches, AtomicReference<Throwable> failure) {
+        CompletableFuture
+                .supplyAsync(() -> decode(batch.records), decodePool)
+                .thenApplyAsync(items -> {
+                    if (items.isEmpty() || failure.get() != null) {
+                        return 0;
+                    }
+                    write(tableName, items);
+                    return items.size();
+                }, writePool)
+                .whenComplete((writtenItems, e) -> {
+                    try {
+                        if (e != null) {
+                            failure.compareAndSet(null, e.getCause() != null ? e.getCause() : e);
+                        } else {
+                            progress.complete(batch, writtenItems, progressListener);
+                        }
+                    } finally {
+                        pendingBatches.release();
+                    }
+                });
+    }
+
+    private List<Map<String, AttributeValue>> decode(List<ByteBuffer> records) throws MappingException {
+        List<Map<String, AttributeValue>> items = new ArrayList<>(records.size());
+        for (ByteBuffer record : records) {
+            if (format == ExportFormat.BINARY) {
+                items.add(AttributeValueCodec.decode(record));
+                continue;
+            }
+
+            JsonNode node = readJson(mapper.objectMapper(), record);
+            if (node != null && !node.isMissingNode()) {
+                items.add(JsonNodeAttributeValueMapper.convert(node, mapper.arrayEncoding()));
+            }
+        }
+        return items;
+    }
+
+    private void write(String tableName, List<Map<String, AttributeValue>> items) throws MappingException {
+        List<WriteRequest> writeRequests = new ArrayList<>(items.size());
+        for (Map<String, AttributeValue> item : items) {
+            writeRequests.add(new WriteRequest().withPutRequest(new PutRequest().withItem(item)));
+        }
+
+        Map<String, List<WriteRequest>> requestItems = new HashMap<>();
+        requestItems.put(tableName, writeRequests);
+        mapper.batchWrite(requestItems, rateLimiter, retryPolicy);
+    }
+
+    /**
+     * @return Payload of the record at the window's position, advancing past it, or null if the record continues past
+     * the end of the window
+     */
+    @Nullable
+    private ByteBuffer nextRecord(ByteBuffer window, boolean endOfFile, long windowOffset) throws MappingException {
+        int start = window.position();
+
+        if (format == ExportFormat.NDJSON) {
+            for (int i = start; i < window.limit(); i++) {
+                if (window.get(i) == '\n') {
+                    window.position(i + 1);
+                    return slice(window, start, i);
+                }
+            }
+            if (!endOfFile) {
+                return null;
+            }
+            window.position(window.limit());
+            return slice(window, start, window.limit());
+        }
+
+        int length = 0;
+        int i = start;
+        for (int shift = 0; ; shift += 7) {
+            if (i == window.limit()) {
+                if (endOfFile) {
+                    throw new MappingException("Truncated record at offset " + (windowOffset + start));
+                }
+                return null;
+            }
+            if (shift == 35) {
+                throw new MappingException("Malformed record length at offset " + (windowOffset + start));
+            }
+
+            byte b = window.get(i++);
+            length |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+
+        if (length < 0) {
+            throw new MappingException("Malformed record length at offset " + (windowOffset + start));
+        }
+        if (window.limit() - i < length) {
+            if (endOfFile) {
+                throw new MappingException("Truncated record at offset " + (windowOffset + start));
+            }
+            return null;
+        }
+
+        window.position(i + length);
+        return slice(window, i, i + length);
+    }
+
+    private void readHeader(Source source) throws IOException, MappingException {
+        ByteBuffer header = source.window(0, TableExporter.BINARY_HEADER_SIZE);
+        if (header.limit() < TableExporter.BINARY_HEADER_SIZE
+                || header.getInt(0) != TableExporter.BINARY_MAGIC
+                || header.get(4) != TableExporter.BINARY_VERSION) {
+            throw new MappingException("Not a binary export: " + file);
+        }
+    }
+
+    @Nullable
+    private static JsonNode readJson(ObjectMapper objectMapper, ByteBuffer record) throws MappingException {
+        try {
+            JsonParser parser = record.hasArray()
+                    ? objectMapper.getFactory().createParser(record.array(), record.arrayOffset() + record.position(), record.remaining())
+                    : objectMapper.getFactory().createParser(new ByteBufferBackedInputStream(record));
+            return objectMapper.readTree(parser);
+        } catch (IOException e) {
+            throw new MappingException("Exception deserializing import record", e);
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int start, int end) {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.limit(end);
+        duplicate.position(start);
+        return duplicate.slice();
+    }
+
+    /**
+     * Records of up to 25 items, and the offset in the file right after them.
+     */
+    private static class Batch {
+        final long sequence;
+        final long endOffset;
+        final List<ByteBuffer> records;
+        // Number of items written from the records, which don't include blank lines; set once the batch completes
+        int items;
+
+        Batch(long sequence, long endOffset, List<ByteBuffer> records) {
+            this.sequence = sequence;
+            this.endOffset = endOffset;
+            this.records = records;
+        }
+    }
+
+    /**
+     * Tracks the offset before which every batch has been written, as batches complete out of order.
+     */
+    private static class Progress {
+        private final long startOffset;
+        private final long startNanos = System.nanoTime();
+        private final TreeMap<Long, Batch> completedOutOfOrder = new TreeMap<>();
+
+        private long nextSequence;
+        private long offset;
+        private long items;
+        private long lastReportNanos = startNanos;
+
+        Progress(long startOffset) {
+            this.startOffset = startOffset;
+            this.offset = startOffset;
+        }
+
+        synchronized void skipTo(long offset) {
+            this.offset = offset;
+        }
+
+        synchronized void complete(Batch batch, int writtenItems, @Nullable Consumer<ImportProgress> listener) {
+            batch.items = writtenItems;
+            completedOutOfOrder.put(batch.sequence, batch);
+
+            Batch next;
+            while ((next = completedOutOfOrder.remove(nextSequence)) != null) {
+                nextSequence++;
+                offset = next.endOffset;
+                items += next.items;
+            }
+
+            long now = System.nanoTime();
+            if (listener != null && now - lastReportNanos >= PROGRESS_INTERVAL_NANOS) {
+                lastReportNanos = now;
+                listener.accept(snapshot());
+            }
+        }
+
+        synchronized ImportProgress snapshot() {
+            return new ImportProgress(offset, offset - startOffset, items, System.nanoTime() - startNanos);
+        }
+    }
+
+    private interface Source extends Closeable {
+        long size();
+
+        /**
+         * @return The file's bytes from the offset, at least {@code minLength} of them unless the file ends first
+         */
+        ByteBuffer window(long offset, int minLength) throws IOException;
+    }
+
+    private static class StreamedSource implements Source {
+        private final FileChannel channel;
+        private final long size;
+
+        StreamedSource(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.size = channel.size();
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public ByteBuffer window(long offset, int minLength) throws IOException {
+            // A new buffer for every window, since records of the previous one may still be waiting to be decoded
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size - offset, Math.max(STREAMED_WINDOW_SIZE, minLength)));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, offset + buffer.position()) < 0) {
+                    break;
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static class MappedSource implements Source {
+        private final FileChannel channel;
+        private final long size;
+
+        MappedSource(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.size = channel.size();
+        }
+
+        @Override
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public ByteBuffer window(long offset, int minLength) throws IOException {
+            long length = Math.min(size - offset, Math.max(MAPPED_WINDOW_SIZE, minLength));
+            return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.DeleteRequest;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.google.common.collect.Lists;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * Collects puts, deletes and gets for any number of tables and executes them with as few round trips as possible:
+ * writes are packed into shared multi-table BatchWriteItem calls of up to 25 requests and 16MB, and gets into shared
+ * BatchGetItem calls of up to 100 keys. The calls of each kind run in parallel; all writes finish before any get is
+ * sent, so gets see the unit's own writes.
+ *
+ * A key written more than once keeps only its last write, the same outcome as running the writes one after another.
+ * Unprocessed items and keys are retried with the mapper's retry policy.
+ *
+ * <pre>{@code
+ * UnitOfWorkResult result = new UnitOfWork(mapper)
+ *         .put(Player.class, player)
+ *         .delete(Invite.class, Key.of(player.getId(), inviteId))
+ *         .get(Guild.class, Key.of(player.getGuildId()))
+ *         .execute();
+ * Optional<Guild> guild = result.get(Guild.class, Key.of(player.getGuildId()));
+ * }</pre>
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class UnitOfWork {
+    private static final int BATCH_GET_MAX_KEYS = 100;
+
+    private final JsonDynamoMapper mapper;
+
+    private final Map<String, Map<Map<String, AttributeValue>, TableEntry<WriteRequest>>> writes = new LinkedHashMap<>();
+    private final Map<String, Set<Map<String, AttributeValue>>> gets = new LinkedHashMap<>();
+    private final Map<String, List<String>> keyAttributeNames = new HashMap<>();
+
+    private int parallelism = 4;
+    private boolean consistentRead = true;
+    @Nullable private CapacityRateLimiter writeRateLimiter;
+    @Nullable private CapacityRateLimiter readRateLimiter;
+
+    public UnitOfWork(JsonDynamoMapper mapper) {
+        this.mapper = mapper;
+    }
+
+    /**
+     * Maximum number of batch calls of each kind in flight at a time
+     */
+    public UnitOfWork withParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    public UnitOfWork withConsistentRead(boolean consistentRead) {
+        this.consistentRead = consistentRead;
+        return this;
+    }
+
+    /**
+     * Rate limiters charged for the writes and the gets respectively. They're shared by all the parallel calls of
+     * their kind and, since calls span tables, should budget for all of the unit's tables together.
+     */
+    public UnitOfWork withRateLimiters(@Nullable CapacityRateLimiter writeRateLimiter,
+                                       @Nullable CapacityRateLimiter readRateLimiter) {
+        this.writeRateLimiter = writeRateLimiter;
+        this.readRateLimiter = readRateLimiter;
+        return this;
+    }
+
+    public <T> UnitOfWork put(Class<T> clazz, T item) throws MappingException {
+        String tableName = JsonDynamoMapper.tableName(clazz);
+        Map<String, AttributeValue> attributeValues = mapper.toItem(clazz, item);
+
+        Map<String, AttributeValue> key = new HashMap<>();
+        for (String keyAttribute : keyAttributeNames(tableName, clazz)) {
+            AttributeValue value = attributeValues.get(keyAttribute);
+            if (value == null) {
+                throw new MappingException("Item of " + clazz + " is missing key attribute " + keyAttribute);
+            }
+            key.put(keyAttribute, value);
+        }
+
+        addWrite(tableName, key, new WriteRequest(new PutRequest(attributeValues)), mapper.itemSize(tableName, attributeValues));
+        return this;
+    }
+
+    public UnitOfWork delete(Class<?> clazz, Key key) throws MappingException {
+        String tableName = JsonDynamoMapper.tableName(clazz);
+        keyAttributeNames(tableName, clazz);
+        for (Map<String, AttributeValue> keyAttributes : mapper.shardKeys(tableName, JsonDynamoMapper.keyAttributes(clazz, key))) {
+            addWrite(tableName, keyAttributes, new WriteRequest(new DeleteRequest(keyAttributes)), ItemSize.of(keyAttributes));
+        }
+        return this;
+    }
+
+    /**
+     * Loads an item when the unit is executed; read it with {@link UnitOfWorkResult#get(Class, Key)}
+     */
+    public UnitOfWork get(Class<?> clazz, Key key) throws MappingException {
+        String tableName = JsonDynamoMapper.tableName(clazz);
+        keyAttributeNames(tableName, clazz);
+        gets.computeIfAbsent(tableName, table -> new LinkedHashSet<>()).add(JsonDynamoMapper.keyAttributes(clazz, key));
+        return this;
+    }
+
+    /**
+     * Sends the writes, then the gets.
+     * @throws MappingException On JSON errors, or if unprocessed items or keys remain after retrying; writes of other
+     * batches may have been applied
+     */
+    public UnitOfWorkResult execute() throws MappingException {
+        List<TableEntry<WriteRequest>> writeEntries = new ArrayList<>();
+        for (Map<Map<String, AttributeValue>, TableEntry<WriteRequest>> tableWrites : writes.values()) {
+            writeEntries.addAll(tableWrites.values());
+        }
+        int[] sizes = new int[writeEntries.size()];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = writeEntries.get(i).size;
+        }
+
+        List<Callable<Void>> writeBatches = new ArrayList<>();
+        for (List<TableEntry<WriteRequest>> batch : JsonDynamoMapper.partitionWrites(writeEntries, sizes)) {
+            Map<String, List<WriteRequest>> requestItems = new HashMap<>();
+            for (TableEntry<WriteRequest> entry : batch) {
+                requestItems.computeIfAbsent(entry.tableName, table -> new ArrayList<>()).add(entry.value);
+            }
+            writeBatches.add(() -> {
+                mapper.batchWrite(requestItems, writeRateLimiter);
+                return null;
+            });
+        }
+        ParallelTasks.run(writeBatches, parallelism);
+        for (Map.Entry<String, Map<Map<String, AttributeValue>, TableEntry<WriteRequest>>> tableWrites : writes.entrySet()) {
+            for (Map<String, AttributeValue> key : tableWrites.getValue().keySet()) {
+                mapper.recordWrite(tableWrites.getKey(), key);
+            }
+        }
+
+        List<Callable<Map<String, List<Map<String, AttributeValue>>>>> getBatches = new ArrayList<>();
+        for (List<TableEntry<Map<String, AttributeValue>>> batch : Lists.partition(keys(gets), BATCH_GET_MAX_KEYS)) {
+            Map<String, KeysAndAttributes> requestItems = new HashMap<>();
+            for (TableEntry<Map<String, AttributeValue>> entry : batch) {
+                requestItems.computeIfAbsent(entry.tableName,
+                        table -> new KeysAndAttributes().withKeys(new ArrayList<>()).withConsistentRead(consistentRead))
+                        .getKeys().add(entry.value);
+            }
+            getBatches.add(() -> mapper.batchGet(requestItems, readRateLimiter));
+        }
+
+        Map<String, Map<Map<String, AttributeValue>, Map<String, AttributeValue>>> itemsByTable = new HashMap<>();
+        for (Map<String, List<Map<String, AttributeValue>>> responses : ParallelTasks.run(getBatches, parallelism)) {
+            for (Map.Entry<String, List<Map<String, AttributeValue>>> response : responses.entrySet()) {
+                List<String> keyAttributes = keyAttributeNames.get(response.getKey());
+                Map<Map<String, AttributeValue>, Map<String, AttributeValue>> items =
+                        itemsByTable.computeIfAbsent(response.getKey(), table -> new HashMap<>());
+                for (Map<String, AttributeValue> item : response.getValue()) {
+                    items.put(JsonDynamoMapper.keyOf(item, keyAttributes), item);
+                }
+            }
+        }
+
+        return new UnitOfWorkResult(mapper, itemsByTable);
+    }
+
+    private List<String> keyAttributeNames(String tableName, Class<?> clazz) throws MappingException {
+        List<String> names = keyAttributeNames.get(tableName);
+        if (names == null) {
+            names = JsonDynamoMapper.keyAttributeNames(clazz);
+            keyAttributeNames.put(tableName, names);
+        }
+        return names;
+    }
+
+    private void addWrite(String tableName, Map<String, AttributeValue> key, WriteRequest writeRequest, int size) {
+        writes.computeIfAbsent(tableName, table -> new LinkedHashMap<>()).put(key, new TableEntry<>(tableName, writeRequest, size));
+    }
+
+    private static List<TableEntry<Map<String, AttributeValue>>> keys(Map<String, Set<Map<String, AttributeValue>>> byTable) {
+        List<TableEntry<Map<String, AttributeValue>>> entries = new ArrayList<>();
+        for (Map.Entry<String, Set<Map<String, AttributeValue>>> table : byTable.entrySet()) {
+            for (Map<String, AttributeValue> key : table.getValue()) {
+                entries.add(new TableEntry<>(table.getKey(), key, 0));
+            }
+        }
+        return entries;
+    }
+
+    private static final class TableEntry<V> {
+        private final String tableName;
+        private final V value;
+        private final int size;
+
+        private TableEntry(String tableName, V value, int size) {
+            this.tableName = tableName;
+            this.value = value;
+            this.size = size;
+        }
+    }
+}
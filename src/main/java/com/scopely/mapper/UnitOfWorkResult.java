@@ -0,0 +1,49 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Items loaded by the gets of a {@link UnitOfWork}. Items are converted to their class when they're read.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class UnitOfWorkResult {
+    private final JsonDynamoMapper mapper;
+    private final Map<String, Map<Map<String, AttributeValue>, Map<String, AttributeValue>>> itemsByTable;
+
+    UnitOfWorkResult(JsonDynamoMapper mapper,
+                     Map<String, Map<Map<String, AttributeValue>, Map<String, AttributeValue>>> itemsByTable) {
+        this.mapper = mapper;
+        this.itemsByTable = itemsByTable;
+    }
+
+    /**
+     * @return The item with the given key, or empty if it doesn't exist or wasn't requested with
+     * {@link UnitOfWork#get(Class, Key)}
+     */
+    public <T> Optional<T> get(Class<T> clazz, Key key) throws MappingException {
+        Map<String, AttributeValue> item = items(clazz).get(JsonDynamoMapper.keyAttributes(clazz, key));
+        return item == null ? Optional.empty() : Optional.of(mapper.convert(clazz, item));
+    }
+
+    /**
+     * @return Every item found in the table of the given class, in no particular order
+     */
+    public <T> List<T> getAll(Class<T> clazz) throws MappingException {
+        List<T> results = new ArrayList<>();
+        for (Map<String, AttributeValue> item : items(clazz).values()) {
+            results.add(mapper.convert(clazz, item));
+        }
+        return results;
+    }
+
+    private Map<Map<String, AttributeValue>, Map<String, AttributeValue>> items(Class<?> clazz) throws MappingException {
+        Map<Map<String, AttributeValue>, Map<String, AttributeValue>> items = itemsByTable.get(JsonDynamoMapper.tableName(clazz));
+        return items == null ? Collections.emptyMap() : items;
+    }
+}
@@ -0,0 +1,167 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opt-in skipping of saves that wouldn't change anything, for jobs that save every item they see although most are
+ * unchanged. The mapper keeps a fingerprint of the attribute values of every item it saves, and a later
+ * {@code save} or {@code saveAll} of an item whose fingerprint matches is skipped without a request, and reported to
+ * {@link MapperMetrics#unchangedWritesSkipped}. The version attribute isn't part of the fingerprint, so a versioned
+ * item reloaded after its save is still recognized as unchanged; a skipped save returns the item as given, and its
+ * version isn't incremented.
+ *
+ * Fingerprints are 128-bit hashes of the item, independent of the order of attributes and set elements, kept for at
+ * most {@code maxKeys} keys and {@code ttlMillis}. The mapper's own deletes and {@link UnitOfWork} writes forget the
+ * key's fingerprint, but writes by other mappers or processes aren't seen: until the fingerprint expires, saving an item
+ * back to the content this mapper last wrote is skipped even if it has been changed since, and a versioned save isn't
+ * checked for conflicts.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class WriteFingerprints {
+    private final Cache<List<Object>, HashCode> fingerprints;
+
+    /**
+     * @param maxKeys   Number of keys whose fingerprint is kept, least recently saved first evicted
+     * @param ttlMillis How long a fingerprint is trusted after the save that recorded it
+     */
+    public WriteFingerprints(long maxKeys, long ttlMillis) {
+        if (maxKeys < 1) {
+            throw new IllegalArgumentException("maxKeys must be at least 1");
+        }
+        if (ttlMillis <= 0) {
+            throw new IllegalArgumentException("ttlMillis must be positive");
+        }
+
+        this.fingerprints = CacheBuilder.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    public long size() {
+        return fingerprints.size();
+    }
+
+    public void invalidateAll() {
+        fingerprints.invalidateAll();
+    }
+
+    /**
+     * @return Whether the item with the key was last saved with the same fingerprint
+     */
+    boolean isUnchanged(String tableName, Map<String, AttributeValue> key, HashCode fingerprint) {
+        return fingerprint.equals(fingerprints.getIfPresent(ImmutableList.of(tableName, key)));
+    }
+
+    /**
+     * Records the fingerprint of a completed save, whose key was {@link #invalidate invalidated} before the save was
+     * sent. If another write of the key recorded a fingerprint in between, which of the two saves DynamoDB kept isn't
+     * known, so neither fingerprint is kept.
+     */
+    void recordSave(String tableName, Map<String, AttributeValue> key, HashCode fingerprint) {
+        List<Object> cacheKey = ImmutableList.of(tableName, key);
+        HashCode recorded = fingerprints.asMap().putIfAbsent(cacheKey, fingerprint);
+        if (recorded != null && !recorded.equals(fingerprint)) {
+            fingerprints.invalidate(cacheKey);
+        }
+    }
+
+    void invalidate(String tableName, Map<String, AttributeValue> key) {
+        fingerprints.invalidate(ImmutableList.of(tableName, key));
+    }
+
+    /**
+     * @return Hash of every attribute of the item except the version attribute
+     */
+    static HashCode fingerprint(Map<String, AttributeValue> item, @Nullable String versionAttribute) {
+        Hasher hasher = Hashing.murmur3_128().newHasher();
+        putMap(hasher, item, versionAttribute);
+        return hasher.hash();
+    }
+
+    private static void putMap(Hasher hasher, Map<String, AttributeValue> map, @Nullable String skippedAttribute) {
+        List<String> names = new ArrayList<>(map.keySet());
+        names.remove(skippedAttribute);
+        names.sort(null);
+
+        hasher.putInt(names.size());
+        for (String name : names) {
+            putString(hasher, name);
+            putValue(hasher, map.get(name));
+        }
+    }
+
+    private static void putValue(Hasher hasher, AttributeValue value) {
+        if (value.getS() != null) {
+            hasher.putByte((byte) 1);
+            putString(hasher, value.getS());
+        } else if (value.getN() != null) {
+            hasher.putByte((byte) 2);
+            putString(hasher, value.getN());
+        } else if (value.getB() != null) {
+            hasher.putByte((byte) 3);
+            putBytes(hasher, value.getB());
+        } else if (value.getSS() != null) {
+            hasher.putByte((byte) 4);
+            putStrings(hasher, value.getSS());
+        } else if (value.getNS() != null) {
+            hasher.putByte((byte) 5);
+            putStrings(hasher, value.getNS());
+        } else if (value.getBS() != null) {
+            hasher.putByte((byte) 6);
+            List<ByteBuffer> sorted = new ArrayList<>(value.getBS());
+            sorted.sort(null);
+            hasher.putInt(sorted.size());
+            for (ByteBuffer element : sorted) {
+                putBytes(hasher, element);
+            }
+        } else if (value.getM() != null) {
+            hasher.putByte((byte) 7);
+            putMap(hasher, value.getM(), null);
+        } else if (value.getL() != null) {
+            hasher.putByte((byte) 8);
+            hasher.putInt(value.getL().size());
+            for (AttributeValue element : value.getL()) {
+                putValue(hasher, element);
+            }
+        } else if (value.getBOOL() != null) {
+            hasher.putByte(value.getBOOL() ? (byte) 10 : (byte) 11);
+        } else {
+            hasher.putByte((byte) 9);
+        }
+    }
+
+    private static void putStrings(Hasher hasher, Collection<String> strings) {
+        List<String> sorted = new ArrayList<>(strings);
+        sorted.sort(null);
+        hasher.putInt(sorted.size());
+        for (String string : sorted) {
+            putString(hasher, string);
+        }
+    }
+
+    private static void putString(Hasher hasher, String string) {
+        hasher.putInt(string.length()).putString(string, StandardCharsets.UTF_8);
+    }
+
+    private static void putBytes(Hasher hasher, ByteBuffer bytes) {
+        byte[] array = new byte[bytes.remaining()];
+        bytes.duplicate().get(array);
+        hasher.putInt(array.length).putBytes(array);
+    }
+}
@@ -0,0 +1,164 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.collect.ImmutableList;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ToIntFunction;
+
+/**
+ * Spreads the writes of a table's hash keys over several partitions, for hash keys that get more writes than a
+ * partition takes, such as global counters. Register it with {@link JsonDynamoMapperConfig#withWriteSharding}.
+ *
+ * Every item the mapper writes to the table gets a shard suffix appended to its hash key, {@code "key#3"} for shard 3,
+ * and the suffix is removed when items are converted back. The shard is random, or computed from the encoded item by a
+ * shard function: with a random shard, each save writes the item to one of the shards, so a hash key holds up to one
+ * item per shard; a function of the item's range key keeps each item on a single shard, and is required for versioned
+ * classes.
+ *
+ * Reads by logical key fan out to every shard: {@code load}, {@code exists} and {@code batchLoad} read all the shard
+ * keys with one BatchGetItem, {@link JsonDynamoMapper#loadShards} returns every shard's item, {@code delete},
+ * {@code deleteAll} and {@link UnitOfWork} deletes delete from every shard, and {@link JsonDynamoMapper#queryShards}
+ * queries the shards in parallel and merges them by range key. Scans, query expressions, counts, item collections and
+ * UnitOfWork gets address the stored, suffixed hash keys.
+ *
+ * Changing the number of shards of a table that has items leaves items on shards that are no longer read.
+ */
+@SuppressWarnings({"WeakerAccess", "unused"})
+public class WriteSharding {
+    static final char SEPARATOR = '#';
+
+    private final String tableName;
+    private final String hashKeyAttribute;
+    private final int shards;
+    @Nullable private final ToIntFunction<Map<String, AttributeValue>> shardFunction;
+
+    /**
+     * Writes each item to a random shard
+     * @throws MappingException         If the class isn't a table class
+     * @throws IllegalArgumentException If the class is versioned
+     */
+    public WriteSharding(Class<?> clazz, int shards) throws MappingException {
+        this(clazz, shards, null);
+    }
+
+    /**
+     * @param shardFunction Shard of an encoded item, taken modulo {@code shards}; random if null
+     * @throws MappingException         If the class isn't a table class
+     * @throws IllegalArgumentException If the class is versioned and there's no shard function, since version checks
+     *                                  only see the shard they're written to
+     */
+    public WriteSharding(Class<?> clazz, int shards,
+                         @Nullable ToIntFunction<Map<String, AttributeValue>> shardFunction) throws MappingException {
+        if (shards < 2) {
+            throw new IllegalArgumentException("shards must be at least 2");
+        }
+        if (shardFunction == null && JsonDynamoMapper.versionAttribute(clazz) != null) {
+            throw new IllegalArgumentException("Versioned " + clazz + " requires a shard function");
+        }
+
+        this.tableName = JsonDynamoMapper.tableName(clazz);
+        this.hashKeyAttribute = JsonDynamoMapper.keyAttributeNames(clazz).get(0);
+        this.shards = shards;
+        this.shardFunction = shardFunction;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    /**
+     * @return The item with its hash key suffixed with its shard
+     * @throws MappingException If the item's hash key isn't a string
+     */
+    Map<String, AttributeValue> shard(Map<String, AttributeValue> item) throws MappingException {
+        int shard = shardFunction == null
+                ? ThreadLocalRandom.current().nextInt(shards)
+                : Math.floorMod(shardFunction.applyAsInt(item), shards);
+        Map<String, AttributeValue> sharded = new HashMap<>(item);
+        sharded.put(hashKeyAttribute, new AttributeValue(shardHashKey(hashKey(item), shard)));
+        return sharded;
+    }
+
+    /**
+     * @return The item with the shard suffix removed from its hash key; items without a suffix, such as those written
+     * before the table was sharded, are returned as is
+     */
+    Map<String, AttributeValue> unshard(Map<String, AttributeValue> item) {
+        AttributeValue hashKey = item.get(hashKeyAttribute);
+        if (hashKey == null || hashKey.getS() == null) {
+            return item;
+        }
+
+        int separator = hashKey.getS().lastIndexOf(SEPARATOR);
+        if (separator < 0 || !isShard(hashKey.getS().substring(separator + 1))) {
+            return item;
+        }
+        Map<String, AttributeValue> unsharded = new HashMap<>(item);
+        unsharded.put(hashKeyAttribute, new AttributeValue(hashKey.getS().substring(0, separator)));
+        return unsharded;
+    }
+
+    /**
+     * @return The key on every shard
+     * @throws MappingException If the key's hash key isn't a string
+     */
+    List<Map<String, AttributeValue>> shardKeys(Map<String, AttributeValue> key) throws MappingException {
+        String hashKey = hashKey(key);
+        ImmutableList.Builder<Map<String, AttributeValue>> shardKeys = ImmutableList.builder();
+        for (int shard = 0; shard < shards; shard++) {
+            Map<String, AttributeValue> shardKey = new HashMap<>(key);
+            shardKey.put(hashKeyAttribute, new AttributeValue(shardHashKey(hashKey, shard)));
+            shardKeys.add(shardKey);
+        }
+        return shardKeys.build();
+    }
+
+    /**
+     * @return The hash key on every shard
+     */
+    List<String> shardHashKeys(String hashKey) {
+        ImmutableList.Builder<String> shardHashKeys = ImmutableList.builder();
+        for (int shard = 0; shard < shards; shard++) {
+            shardHashKeys.add(shardHashKey(hashKey, shard));
+        }
+        return shardHashKeys.build();
+    }
+
+    private String hashKey(Map<String, AttributeValue> item) throws MappingException {
+        AttributeValue hashKey = item.get(hashKeyAttribute);
+        if (hashKey == null || hashKey.getS() == null) {
+            throw new MappingException("Sharded hash key " + hashKeyAttribute + " of table " + tableName
+                    + " must be a string");
+        }
+        return hashKey.getS();
+    }
+
+    /**
+     * @return Whether the suffix is one this sharding writes: a shard number in {@code [0, shards)}, without sign or
+     * leading zeros
+     */
+    private boolean isShard(String suffix) {
+        if (suffix.isEmpty() || suffix.length() > 1 && suffix.charAt(0) == '0') {
+            return false;
+        }
+        for (int i = 0; i < suffix.length(); i++) {
+            if (suffix.charAt(i) < '0' || suffix.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return suffix.length() <= 9 && Integer.parseInt(suffix) < shards;
+    }
+
+    private static String shardHashKey(String hashKey, int shard) {
+        return hashKey + SEPARATOR + shard;
+    }
+}
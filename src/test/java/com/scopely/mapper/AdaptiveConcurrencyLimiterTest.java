@@ -0,0 +1,153 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdaptiveConcurrencyLimiterTest {
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void throttling_decreasesLimit() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 100, 0, 0);
+
+        try {
+            limiter.execute(() -> {
+                throw new ProvisionedThroughputExceededException("throttled");
+            });
+        } catch (ProvisionedThroughputExceededException expected) {
+            // expected
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(9);
+        assertThat(limiter.getInFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void successes_increaseLimit() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 100, 0, 0);
+
+        for (int i = 0; i < 20; i++) {
+            limiter.execute(() -> {
+                sleep(2);
+                return null;
+            });
+        }
+
+        assertThat(limiter.getLimit()).isGreaterThan(1);
+    }
+
+    @Test
+    public void slowOperations_comparedWithTheirOwnLatency() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 100, 0, 0);
+
+        for (int i = 0; i < 5; i++) {
+            limiter.execute(AdaptiveConcurrencyLimiter.Operation.GET_ITEM, () -> null);
+        }
+        for (int i = 0; i < 5; i++) {
+            limiter.execute(AdaptiveConcurrencyLimiter.Operation.SCAN, () -> {
+                sleep(20);
+                return null;
+            });
+        }
+
+        assertThat(limiter.getLimit()).isEqualTo(10);
+    }
+
+    @Test
+    public void overLimit_rejectedFast() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 0, 0);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<?> holder = executor.submit(() -> limiter.execute(() -> {
+            started.countDown();
+            await(release);
+            return null;
+        }));
+        started.await();
+
+        try {
+            limiter.execute(() -> null);
+            throw new AssertionError("Expected rejection");
+        } catch (ConcurrencyLimitExceededException expected) {
+            assertThat(limiter.getRejectedCount()).isEqualTo(1);
+        }
+
+        release.countDown();
+        holder.get();
+        assertThat(limiter.execute(() -> "value")).isEqualTo("value");
+    }
+
+    @Test
+    public void overLimit_queuedUntilPermitAvailable() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 5000);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<?> holder = executor.submit(() -> limiter.execute(() -> {
+            started.countDown();
+            await(release);
+            return null;
+        }));
+        started.await();
+
+        Future<String> queued = executor.submit(() -> limiter.execute(() -> "queued"));
+        while (limiter.getQueueDepth() == 0) {
+            Thread.sleep(1);
+        }
+
+        release.countDown();
+        holder.get();
+        assertThat(queued.get()).isEqualTo("queued");
+        assertThat(limiter.getQueueDepth()).isEqualTo(0);
+    }
+
+    @Test(expected = ConcurrencyLimitExceededException.class)
+    public void queueTimeout_rejects() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 10);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        executor.submit(() -> limiter.execute(() -> {
+            started.countDown();
+            await(release);
+            return null;
+        }));
+        started.await();
+
+        try {
+            limiter.execute(() -> null);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AttributeValueCodecTest {
+    @Test
+    public void roundTrip_allTypes() throws Exception {
+        Map<String, AttributeValue> item = ImmutableMap.<String, AttributeValue>builder()
+                .put("s", new AttributeValue("caf\u00e9"))
+                .put("n", new AttributeValue().withN("12.50"))
+                .put("b", new AttributeValue().withB(ByteBuffer.wrap(new byte[]{1, 2, 3})))
+                .put("ss", new AttributeValue().withSS("a", "b"))
+                .put("ns", new AttributeValue().withNS("1", "2"))
+                .put("bs", new AttributeValue().withBS(ByteBuffer.wrap(new byte[]{4}), ByteBuffer.wrap(new byte[0])))
+                .put("m", new AttributeValue().withM(ImmutableMap.of("inner", new AttributeValue().withBOOL(false))))
+                .put("l", new AttributeValue().withL(new AttributeValue().withBOOL(true), new AttributeValue().withNULL(true)))
+                .build();
+
+        byte[] encoded = AttributeValueCodec.encode(item);
+
+        assertThat(AttributeValueCodec.decode(ByteBuffer.wrap(encoded))).isEqualTo(item);
+    }
+
+    @Test
+    public void decode_advancesPastItem() throws Exception {
+        byte[] first = AttributeValueCodec.encode(ImmutableMap.of("hashKey", new AttributeValue("1")));
+        byte[] second = AttributeValueCodec.encode(ImmutableMap.of("hashKey", new AttributeValue("2")));
+        ByteBuffer buffer = ByteBuffer.allocate(first.length + second.length).put(first).put(second);
+        buffer.flip();
+
+        assertThat(AttributeValueCodec.decode(buffer)).containsEntry("hashKey", new AttributeValue("1"));
+        assertThat(AttributeValueCodec.decode(buffer)).containsEntry("hashKey", new AttributeValue("2"));
+        assertThat(buffer.hasRemaining()).isFalse();
+    }
+
+    @Test(expected = MappingException.class)
+    public void decode_truncated_throws() throws Exception {
+        byte[] encoded = AttributeValueCodec.encode(ImmutableMap.of("hashKey", new AttributeValue("value")));
+
+        AttributeValueCodec.decode(ByteBuffer.wrap(Arrays.copyOf(encoded, encoded.length - 2)));
+    }
+}
@@ -0,0 +1,61 @@
+package com.scopely.mapper;
+
+import com.google.common.base.Ticker;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CapacityRateLimiterTest {
+    private final FakeTicker ticker = new FakeTicker();
+
+    @Test
+    public void acquire_available_whenNotInDebt() throws Exception {
+        CapacityRateLimiter limiter = new CapacityRateLimiter(10, 10, ticker);
+
+        assertThat(limiter.nanosUntilAvailable()).isEqualTo(0);
+    }
+
+    @Test
+    public void consume_waitsUntilDebtRefilled() throws Exception {
+        CapacityRateLimiter limiter = new CapacityRateLimiter(10, 10, ticker);
+
+        limiter.consume(5);
+        assertThat(limiter.nanosUntilAvailable()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+
+        ticker.advance(TimeUnit.MILLISECONDS.toNanos(250));
+        assertThat(limiter.nanosUntilAvailable()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(250));
+
+        ticker.advance(TimeUnit.MILLISECONDS.toNanos(250));
+        assertThat(limiter.nanosUntilAvailable()).isEqualTo(0);
+    }
+
+    @Test
+    public void idle_accumulatesUpToMaxBurst() throws Exception {
+        CapacityRateLimiter limiter = new CapacityRateLimiter(10, 10, ticker);
+
+        ticker.advance(TimeUnit.SECONDS.toNanos(10));
+        limiter.consume(15);
+
+        assertThat(limiter.nanosUntilAvailable()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rate_mustBePositive() throws Exception {
+        new CapacityRateLimiter(0);
+    }
+
+    private static class FakeTicker extends Ticker {
+        private long nanos;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+
+        void advance(long nanos) {
+            this.nanos += nanos;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.DynamoDBScanExpression;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class CriteriaTest {
+    private final JsonDynamoMapper mapper = new JsonDynamoMapper(null);
+
+    @Test
+    public void compilesConditionsAndProjection() throws Exception {
+        Criteria<SimpleFreeBuiltVersioned> criteria = new Criteria<>(mapper, SimpleFreeBuiltVersioned.class)
+                .eq("stringValue", "val")
+                .between("version", 1, 3)
+                .beginsWith("innerDocuments[0].requiredInnerValue", "value")
+                .notExists("innerDocuments[1]")
+                .project("hashKey", "innerDocuments[0].requiredInnerValue");
+
+        assertThat(criteria.getFilterExpression()).isEqualTo("#crit0 = :crit0 AND #crit1 BETWEEN :crit1 AND :crit2"
+                + " AND begins_with(#crit2[0].#crit3, :crit3) AND attribute_not_exists(#crit2[1])");
+        assertThat(criteria.getProjectionExpression()).isEqualTo("#crit4, #crit2[0].#crit3");
+        assertThat(criteria.getExpressionAttributeNames()).containsOnly(
+                entry("#crit0", "stringValue"), entry("#crit1", "version"), entry("#crit2", "innerDocuments"),
+                entry("#crit3", "requiredInnerValue"), entry("#crit4", "hashKey"));
+        assertThat(criteria.getExpressionAttributeValues()).containsOnly(
+                entry(":crit0", new AttributeValue("val")), entry(":crit1", new AttributeValue().withN("1")),
+                entry(":crit2", new AttributeValue().withN("3")), entry(":crit3", new AttributeValue("value")));
+    }
+
+    @Test
+    public void encodesValuesAsTheirProperty() throws Exception {
+        Criteria<SimpleFreeBuiltVersioned> criteria = new Criteria<>(mapper, SimpleFreeBuiltVersioned.class)
+                .eq("version", "2")
+                .gt("innerDocuments[0].optionalRequiredValue", 4);
+
+        assertThat(criteria.getExpressionAttributeValues()).containsOnly(
+                entry(":crit0", new AttributeValue().withN("2")), entry(":crit1", new AttributeValue().withN("4")));
+    }
+
+    @Test
+    public void applyTo_keepsExistingFilter() throws Exception {
+        DynamoDBScanExpression scanExpression = new Criteria<>(mapper, SimpleFreeBuiltVersioned.class)
+                .exists("stringValue")
+                .applyTo(new DynamoDBScanExpression()
+                        .withFilterExpression("hashKey = :hk")
+                        .withExpressionAttributeValues(ImmutableMap.of(":hk", new AttributeValue("a"))));
+
+        assertThat(scanExpression.getFilterExpression()).isEqualTo("(hashKey = :hk) AND attribute_exists(#crit0)");
+        assertThat(scanExpression.getExpressionAttributeNames()).containsOnly(entry("#crit0", "stringValue"));
+        assertThat(scanExpression.getExpressionAttributeValues()).containsOnly(entry(":hk", new AttributeValue("a")));
+    }
+
+    @Test
+    public void applyTo_numbersPlaceholdersAfterExistingOnes() throws Exception {
+        DynamoDBScanExpression scanExpression = new Criteria<>(mapper, SimpleFreeBuiltVersioned.class)
+                .eq("stringValue", "val")
+                .toScanExpression();
+        new Criteria<>(mapper, SimpleFreeBuiltVersioned.class)
+                .gt("version", 1)
+                .project("hashKey")
+                .applyTo(scanExpression);
+
+        assertThat(scanExpression.getFilterExpression()).isEqualTo("(#crit0 = :crit0) AND #crit1 > :crit1");
+        assertThat(scanExpression.getProjectionExpression()).isEqualTo("#crit2");
+        assertThat(scanExpression.getExpressionAttributeNames()).containsOnly(
+                entry("#crit0", "stringValue"), entry("#crit1", "version"), entry("#crit2", "hashKey"));
+        assertThat(scanExpression.getExpressionAttributeValues()).containsOnly(
+                entry(":crit0", new AttributeValue("val")), entry(":crit1", new AttributeValue().withN("1")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownProperty_fails() throws Exception {
+        new Criteria<>(mapper, SimpleFreeBuiltVersioned.class).eq("innerDocuments[0].missing", "a");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void valueOfWrongType_fails() throws Exception {
+        new Criteria<>(mapper, SimpleFreeBuiltVersioned.class).eq("version", "two");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void beginsWithOnNumber_fails() throws Exception {
+        new Criteria<>(mapper, SimpleFreeBuiltVersioned.class).beginsWith("version", "1");
+    }
+}
@@ -0,0 +1,60 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.datamodeling.ScanResultPage;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CursorTest {
+    private static final Map<String, AttributeValue> KEY = ImmutableMap.of(
+            "hashKey", new AttributeValue("h\u00e9"),
+            "rangeKey", new AttributeValue().withN("42"),
+            "binary", new AttributeValue().withB(ByteBuffer.wrap(new byte[]{1, 2, 3})));
+
+    @Test
+    public void encode_roundTrips() throws Exception {
+        Cursor cursor = Cursor.start().next(page(KEY)).get();
+        Cursor decoded = Cursor.decode(cursor.encode());
+
+        assertThat(decoded).isEqualTo(cursor);
+        assertThat(decoded.getExclusiveStartKey()).contains(KEY);
+        assertThat(decoded.getSegment().isPresent()).isFalse();
+        assertThat(cursor.encode()).matches("[A-Za-z0-9_-]+");
+    }
+
+    @Test
+    public void next_keepsSegment() throws Exception {
+        Cursor cursor = Cursor.decode(Cursor.start(3, 8).next(page(KEY)).get().encode());
+
+        assertThat(cursor.getSegment().getAsInt()).isEqualTo(3);
+        assertThat(cursor.getTotalSegments().getAsInt()).isEqualTo(8);
+        assertThat(cursor.getExclusiveStartKey()).contains(KEY);
+    }
+
+    @Test
+    public void next_lastPage_isEmpty() throws Exception {
+        assertThat(Cursor.start().next(page(null)).isPresent()).isFalse();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_truncated_fails() throws Exception {
+        String encoded = Cursor.start().next(page(KEY)).get().encode();
+        Cursor.decode(encoded.substring(0, encoded.length() - 4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void decode_garbage_fails() throws Exception {
+        Cursor.decode("not a cursor");
+    }
+
+    private static ScanResultPage<Object> page(Map<String, AttributeValue> lastEvaluatedKey) {
+        ScanResultPage<Object> page = new ScanResultPage<>();
+        page.setLastEvaluatedKey(lastEvaluatedKey);
+        return page;
+    }
+}
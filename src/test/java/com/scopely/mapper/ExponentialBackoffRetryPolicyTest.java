@@ -0,0 +1,62 @@
+package com.scopely.mapper;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
+import com.amazonaws.services.dynamodbv2.model.ProvisionedThroughputExceededException;
+import org.junit.Test;
+
+import java.util.OptionalLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExponentialBackoffRetryPolicyTest {
+    private final ExponentialBackoffRetryPolicy policy = new ExponentialBackoffRetryPolicy(10, 100, 5, 1000);
+
+    @Test
+    public void throttling_retried_withBoundedDelay() throws Exception {
+        for (int attempts = 1; attempts < 5; attempts++) {
+            OptionalLong delay = policy.retryDelayMillis(new ProvisionedThroughputExceededException("throttled"), attempts, 0);
+            assertThat(delay.isPresent()).isTrue();
+            assertThat(delay.getAsLong()).isBetween(0L, Math.min(100L, 10L << (attempts - 1)));
+        }
+    }
+
+    @Test
+    public void serverError_retried() throws Exception {
+        AmazonServiceException exception = new AmazonServiceException("unavailable");
+        exception.setStatusCode(503);
+
+        assertThat(policy.retryDelayMillis(exception, 1, 0).isPresent()).isTrue();
+    }
+
+    @Test
+    public void clientError_notRetried() throws Exception {
+        ConditionalCheckFailedException exception = new ConditionalCheckFailedException("failed");
+        exception.setStatusCode(400);
+
+        assertThat(policy.retryDelayMillis(exception, 1, 0).isPresent()).isFalse();
+    }
+
+    @Test
+    public void unprocessedItems_retried() throws Exception {
+        assertThat(policy.retryDelayMillis(null, 1, 0).isPresent()).isTrue();
+    }
+
+    @Test
+    public void givesUp_afterMaxAttempts() throws Exception {
+        assertThat(policy.retryDelayMillis(null, 5, 0).isPresent()).isFalse();
+    }
+
+    @Test
+    public void givesUp_afterDeadline() throws Exception {
+        assertThat(policy.retryDelayMillis(null, 1, 1001).isPresent()).isFalse();
+    }
+
+    @Test
+    public void noBackoff_retriesOnlyUnprocessedItems() throws Exception {
+        assertThat(RetryPolicy.NO_BACKOFF.retryDelayMillis(null, 4, 0)).isEqualTo(OptionalLong.of(0));
+        assertThat(RetryPolicy.NO_BACKOFF.retryDelayMillis(null, 5, 0).isPresent()).isFalse();
+        assertThat(RetryPolicy.NO_BACKOFF.retryDelayMillis(new ProvisionedThroughputExceededException("throttled"), 1, 0)
+                           .isPresent()).isFalse();
+    }
+}
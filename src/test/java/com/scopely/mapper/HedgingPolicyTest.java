@@ -0,0 +1,83 @@
+package com.scopely.mapper;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HedgingPolicyTest {
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void notHedged_untilLatenciesObserved() throws Exception {
+        HedgingPolicy policy = new HedgingPolicy(0.9, 0, executor);
+
+        assertThat(policy.getHedgeDelayMillis().isPresent()).isFalse();
+        assertThat(policy.execute(() -> "value")).isEqualTo("value");
+    }
+
+    @Test
+    public void delay_isLatencyPercentile() throws Exception {
+        HedgingPolicy policy = new HedgingPolicy(0.9, 0, executor);
+
+        for (int i = 0; i < 32; i++) {
+            policy.recordLatency(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        for (int i = 0; i < 32; i++) {
+            policy.recordLatency(TimeUnit.MILLISECONDS.toNanos(100));
+        }
+
+        assertThat(policy.getHedgeDelayMillis().getAsLong()).isEqualTo(100);
+    }
+
+    @Test
+    public void slowRequest_hedged() throws Exception {
+        HedgingPolicy policy = new HedgingPolicy(0.5, 0, executor);
+        for (int i = 0; i < 64; i++) {
+            policy.recordLatency(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+
+        AtomicInteger calls = new AtomicInteger();
+        String result = policy.execute(() -> {
+            if (calls.incrementAndGet() == 1) {
+                sleep(5000);
+                return "slow";
+            }
+            return "fast";
+        });
+
+        assertThat(result).isEqualTo("fast");
+        assertThat(calls.get()).isEqualTo(2);
+    }
+
+    @Test(expected = MappingException.class)
+    public void bothFailing_rethrows() throws Exception {
+        HedgingPolicy policy = new HedgingPolicy(0.5, 0, executor);
+        for (int i = 0; i < 64; i++) {
+            policy.recordLatency(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+
+        policy.execute(() -> {
+            sleep(20);
+            throw new MappingException("failed");
+        });
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
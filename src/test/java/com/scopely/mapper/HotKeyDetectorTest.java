@@ -0,0 +1,96 @@
+package com.scopely.mapper;
+
+import com.google.common.base.Ticker;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class HotKeyDetectorTest {
+    private final FakeTicker ticker = new FakeTicker();
+
+    @Test
+    public void hotKeys_reportsHottestKeysAtEndOfWindow() throws Exception {
+        HotKeyDetector detector = new HotKeyDetector(1, 2, 1000, ticker);
+        List<List<HotKey>> reports = new ArrayList<>();
+        MapperMetrics metrics = new MapperMetrics() {
+            @Override
+            public void hotKeys(String tableName, List<HotKey> hotKeys) {
+                reports.add(hotKeys);
+            }
+        };
+
+        for (int i = 0; i < 1000; i++) {
+            detector.record("table", "cold" + i, false, metrics);
+        }
+        for (int i = 0; i < 300; i++) {
+            detector.record("table", "hot", i % 3 == 0, metrics);
+        }
+        for (int i = 0; i < 100; i++) {
+            detector.record("table", "warm", false, metrics);
+        }
+        assertThat(reports).isEmpty();
+        assertThat(detector.hotKeys("table")).isEmpty();
+
+        ticker.advance(TimeUnit.SECONDS.toNanos(2));
+        detector.record("table", "cold0", false, metrics);
+
+        assertThat(reports).hasSize(1);
+        List<HotKey> hotKeys = detector.hotKeys("table");
+        assertThat(hotKeys).isEqualTo(reports.get(0));
+        assertThat(hotKeys).extracting(HotKey::getHashKey).containsExactly("hot", "warm");
+        assertThat(hotKeys.get(0).getReadsPerSecond()).isCloseTo(100, within(10.0));
+        assertThat(hotKeys.get(0).getWritesPerSecond()).isCloseTo(50, within(10.0));
+        assertThat(hotKeys.get(1).getWritesPerSecond()).isCloseTo(0, within(10.0));
+    }
+
+    @Test
+    public void hotKeys_scalesSampledCounts() throws Exception {
+        HotKeyDetector detector = new HotKeyDetector(0.1, 1, 1000, ticker);
+
+        int sampled = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (detector.sample()) {
+                detector.record("table", "hot", true, null);
+                sampled++;
+            }
+        }
+        assertThat(sampled).isBetween(800, 1200);
+
+        ticker.advance(TimeUnit.SECONDS.toNanos(1));
+        detector.record("table", "hot", true, null);
+
+        assertThat(detector.hotKeys("table")).hasSize(1);
+        assertThat(detector.hotKeys("table").get(0).getWritesPerSecond()).isCloseTo(sampled * 10, within(1.0));
+    }
+
+    @Test
+    public void hotKeys_isPerTable() throws Exception {
+        HotKeyDetector detector = new HotKeyDetector(1, 1, 1000, ticker);
+
+        detector.record("table", "a", false, null);
+        detector.record("other_table", "b", false, null);
+        ticker.advance(TimeUnit.SECONDS.toNanos(1));
+        detector.record("table", "a", false, null);
+
+        assertThat(detector.hotKeys("table")).extracting(HotKey::getHashKey).containsExactly("a");
+        assertThat(detector.hotKeys("other_table")).isEmpty();
+    }
+
+    private static class FakeTicker extends Ticker {
+        private long nanos;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+
+        void advance(long nanos) {
+            this.nanos += nanos;
+        }
+    }
+}
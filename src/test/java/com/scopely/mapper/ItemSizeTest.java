@@ -0,0 +1,59 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ItemSizeTest {
+    @Test
+    public void numberSize_countsSignificantDigits() throws Exception {
+        assertThat(ItemSize.numberSize("0")).isEqualTo(1);
+        assertThat(ItemSize.numberSize("7")).isEqualTo(2);
+        assertThat(ItemSize.numberSize("123")).isEqualTo(3);
+        assertThat(ItemSize.numberSize("-12.50")).isEqualTo(3);
+        assertThat(ItemSize.numberSize("1000")).isEqualTo(2);
+        assertThat(ItemSize.numberSize("0.001")).isEqualTo(2);
+        assertThat(ItemSize.numberSize("1.5E10")).isEqualTo(2);
+    }
+
+    @Test
+    public void of_countsNamesAndValues() throws Exception {
+        assertThat(ItemSize.of(ImmutableMap.of("name", new AttributeValue("caf\u00e9")))).isEqualTo(4 + 5);
+        assertThat(ItemSize.of(ImmutableMap.of("b", new AttributeValue().withB(ByteBuffer.wrap(new byte[10]))))).isEqualTo(1 + 10);
+        assertThat(ItemSize.of(ImmutableMap.of("ss", new AttributeValue().withSS("ab", "c")))).isEqualTo(2 + 3);
+        assertThat(ItemSize.of(ImmutableMap.of("ns", new AttributeValue().withNS("1", "123")))).isEqualTo(2 + 2 + 3);
+        assertThat(ItemSize.of(ImmutableMap.of("t", new AttributeValue().withBOOL(true)))).isEqualTo(1 + 1);
+    }
+
+    @Test
+    public void of_countsDocumentOverhead() throws Exception {
+        AttributeValue map = new AttributeValue().withM(ImmutableMap.of("a", new AttributeValue().withBOOL(true)));
+        assertThat(ItemSize.of(ImmutableMap.of("m", map))).isEqualTo(1 + 3 + 1 + (1 + 1));
+
+        AttributeValue list = new AttributeValue().withL(new AttributeValue().withNULL(true), new AttributeValue("ab"));
+        assertThat(ItemSize.of(ImmutableMap.of("l", list))).isEqualTo(1 + 3 + 2 + 1 + 2);
+    }
+
+    @Test
+    public void partitionWrites_respectsCountAndBytes() throws Exception {
+        List<Integer> writes = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            writes.add(i);
+        }
+
+        int[] small = new int[30];
+        Arrays.fill(small, 100);
+        assertThat(JsonDynamoMapper.partitionWrites(writes, small)).extracting(List::size).containsExactly(25, 5);
+
+        int[] large = new int[30];
+        Arrays.fill(large, 1024 * 1024);
+        assertThat(JsonDynamoMapper.partitionWrites(writes, large)).extracting(List::size).containsExactly(16, 14);
+    }
+}
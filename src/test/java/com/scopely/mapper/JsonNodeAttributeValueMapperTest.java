@@ -11,6 +11,7 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.nio.ByteBuffer;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 
@@ -44,16 +45,60 @@ public class JsonNodeAttributeValueMapperTest {
         assertThat(node.get("key").binaryValue()).isEqualTo(map.get("key").getB().array());
     }
 
-    @Test(expected = MappingException.class)
-    public void convert_array_mixedTypes_throws() throws Exception {
+    @Test
+    public void convert_array_mixedTypes_list() throws Exception {
         JsonNode node = new ObjectMapper().readTree("{\"key\": [1,2,\"3\"]}");
-        JsonNodeAttributeValueMapper.convert(node);
+        assertThat(JsonNodeAttributeValueMapper.convert(node)).isEqualTo(ImmutableMap.of("key", new AttributeValue().withL(
+                new AttributeValue().withN("1"), new AttributeValue().withN("2"), new AttributeValue().withS("3"))));
     }
 
-    @Test(expected = MappingException.class)
-    public void convert_array_booleans_throws() throws Exception {
-        JsonNode node = new ObjectMapper().readTree("{\"key\": [false, true]}");
-        JsonNodeAttributeValueMapper.convert(node);
+    @Test
+    public void convert_array_booleansAndNulls_list() throws Exception {
+        JsonNode node = new ObjectMapper().readTree("{\"key\": [false, null]}");
+        assertThat(JsonNodeAttributeValueMapper.convert(node)).isEqualTo(ImmutableMap.of("key", new AttributeValue().withL(
+                new AttributeValue().withBOOL(false), new AttributeValue().withNULL(true))));
+    }
+
+    @Test
+    public void convert_object_keepsFieldOrderAndIsUnmodifiable() throws Exception {
+        JsonNode node = new ObjectMapper().readTree("{\"z\": 1, \"a\": {\"y\": 2, \"b\": 3}, \"m\": 4}");
+        Map<String, AttributeValue> map = JsonNodeAttributeValueMapper.convert(node);
+
+        assertThat(map.keySet()).containsExactly("z", "a", "m");
+        assertThat(map.get("a").getM().keySet()).containsExactly("y", "b");
+        try {
+            map.put("other", new AttributeValue("value"));
+            throw new AssertionError("Expected an unmodifiable map");
+        } catch (UnsupportedOperationException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void convert_array_nested_list() throws Exception {
+        JsonNode node = new ObjectMapper().readTree("{\"key\": [[1, 2], [], [true]]}");
+        assertThat(JsonNodeAttributeValueMapper.convert(node)).isEqualTo(ImmutableMap.of("key", new AttributeValue().withL(
+                new AttributeValue().withNS("1", "2"),
+                new AttributeValue().withL(Collections.emptyList()),
+                new AttributeValue().withL(new AttributeValue().withBOOL(true)))));
+    }
+
+    @Test
+    public void convert_array_listEncoding_keepsOrderAndDuplicates() throws Exception {
+        JsonNode node = new ObjectMapper().readTree("{\"key\": [\"b\", \"a\", \"b\"]}");
+        assertThat(JsonNodeAttributeValueMapper.convert(node, ArrayEncoding.LISTS)).isEqualTo(ImmutableMap.of("key",
+                new AttributeValue().withL(new AttributeValue("b"), new AttributeValue("a"), new AttributeValue("b"))));
+    }
+
+    @Test
+    public void convert_list_roundTrips() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        JsonNode node = objectMapper.readTree("{\"key\": [1, \"a\", [true, null], [\"x\", \"y\"], {\"k\": [\"z\"]}]}");
+
+        for (ArrayEncoding arrayEncoding : ArrayEncoding.values()) {
+            Map<String, AttributeValue> converted = JsonNodeAttributeValueMapper.convert(node, arrayEncoding);
+            assertThat(JsonNodeAttributeValueMapper.convert(converted, objectMapper)).isEqualTo(node);
+        }
     }
 
     @Test(expected = MappingException.class)
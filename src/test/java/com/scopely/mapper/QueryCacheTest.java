@@ -0,0 +1,79 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.QueryRequest;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class QueryCacheTest {
+    private final QueryCache queryCache = new QueryCache(60_000, 100);
+
+    @Test
+    public void cacheKey_ignoresWhitespaceAndMapOrder() throws Exception {
+        QueryRequest first = new QueryRequest().withTableName("hash_and_range")
+                .withKeyConditionExpression("hashKey = :hk AND rangeKey > :rk")
+                .withExpressionAttributeValues(ImmutableMap.of(":hk", new AttributeValue("a"), ":rk", new AttributeValue("b")));
+        QueryRequest second = new QueryRequest().withTableName("hash_and_range")
+                .withKeyConditionExpression(" hashKey = :hk  AND rangeKey > :rk")
+                .withExpressionAttributeValues(ImmutableMap.of(":rk", new AttributeValue("b"), ":hk", new AttributeValue("a")));
+
+        assertThat(QueryCache.cacheKey(HashAndRange.class, first)).isEqualTo(QueryCache.cacheKey(HashAndRange.class, second));
+        assertThat(QueryCache.cacheKey(HashAndRange.class, first))
+                .isNotEqualTo(QueryCache.cacheKey(HashAndRange.class, second.withIndexName("index")));
+    }
+
+    @Test
+    public void invalidate_evictsQueriesOnWrittenHashKey() throws Exception {
+        put("a", query("hashKey = :hk", ImmutableMap.of(":hk", new AttributeValue("a"))));
+        put("b", query("#h = :hk", ImmutableMap.of(":hk", new AttributeValue("b"))).withExpressionAttributeNames(ImmutableMap.of("#h", "hashKey")));
+
+        queryCache.invalidate("hash_and_range", ImmutableMap.of("hashKey", new AttributeValue("b"), "rangeKey", new AttributeValue("1")));
+
+        assertThat(queryCache.<String>get("a")).containsExactly("a");
+        assertThat(queryCache.<String>get("b")).isNull();
+    }
+
+    @Test
+    public void invalidate_evictsQueriesWithUnknownHashKeyOnAnyWrite() throws Exception {
+        put("index", query("other = :o", ImmutableMap.of(":o", new AttributeValue("a"))).withIndexName("index"));
+
+        queryCache.invalidate("hash_and_range", ImmutableMap.of("hashKey", new AttributeValue("z")));
+
+        assertThat(queryCache.<String>get("index")).isNull();
+    }
+
+    @Test
+    public void put_discardsResultsOfQueriesConcurrentWithAWrite() throws Exception {
+        long invalidations = queryCache.invalidations();
+        queryCache.invalidate("hash_and_range", ImmutableMap.of("hashKey", new AttributeValue("z")));
+
+        queryCache.put("a", query("hashKey = :hk", ImmutableMap.of(":hk", new AttributeValue("a"))), "hashKey",
+                ImmutableList.of("a"), invalidations);
+
+        assertThat(queryCache.<String>get("a")).isNull();
+    }
+
+    @Test
+    public void put_evictsBeyondMaxItems() throws Exception {
+        QueryCache small = new QueryCache(60_000, 10);
+        for (int i = 0; i < 10; i++) {
+            small.put("q" + i, query("hashKey = :hk", ImmutableMap.of(":hk", new AttributeValue("" + i))), "hashKey",
+                    ImmutableList.of(1, 2, 3), small.invalidations());
+        }
+
+        assertThat(small.size()).isLessThan(10);
+    }
+
+    private void put(String cacheKey, QueryRequest queryRequest) {
+        queryCache.put(cacheKey, queryRequest, "hashKey", ImmutableList.of(cacheKey), queryCache.invalidations());
+    }
+
+    private static QueryRequest query(String keyCondition, ImmutableMap<String, AttributeValue> values) {
+        return new QueryRequest().withTableName("hash_and_range")
+                .withKeyConditionExpression(keyCondition)
+                .withExpressionAttributeValues(values);
+    }
+}
@@ -0,0 +1,95 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SessionConsistencyTest {
+    private final FakeTicker ticker = new FakeTicker();
+
+    @Test
+    public void requiresConsistentRead_onlyForRecentWrites() throws Exception {
+        SessionConsistency sessionConsistency = new SessionConsistency(1000, 10, ticker);
+
+        sessionConsistency.recordWrite("table", key("written"));
+
+        assertThat(sessionConsistency.requiresConsistentRead("table", key("written"))).isTrue();
+        assertThat(sessionConsistency.requiresConsistentRead("other_table", key("written"))).isFalse();
+        assertThat(sessionConsistency.requiresConsistentRead("table", key("other"))).isFalse();
+    }
+
+    @Test
+    public void requiresConsistentRead_matchesEqualKeys() throws Exception {
+        SessionConsistency sessionConsistency = new SessionConsistency(1000, 10, ticker);
+
+        sessionConsistency.recordWrite("table", ImmutableMap.of("hashKey", new AttributeValue("hk")));
+
+        Map<String, AttributeValue> key = new HashMap<>();
+        key.put("hashKey", new AttributeValue().withS("hk"));
+        assertThat(sessionConsistency.requiresConsistentRead("table", key)).isTrue();
+    }
+
+    @Test
+    public void requiresConsistentRead_expiresAfterWindow() throws Exception {
+        SessionConsistency sessionConsistency = new SessionConsistency(1000, 10, ticker);
+
+        sessionConsistency.recordWrite("table", key("written"));
+        ticker.advance(TimeUnit.MILLISECONDS.toNanos(999));
+        assertThat(sessionConsistency.requiresConsistentRead("table", key("written"))).isTrue();
+
+        ticker.advance(TimeUnit.MILLISECONDS.toNanos(1));
+        assertThat(sessionConsistency.requiresConsistentRead("table", key("written"))).isFalse();
+    }
+
+    @Test
+    public void tooManyWrites_makeEveryReadConsistentForAWindow() throws Exception {
+        SessionConsistency sessionConsistency = new SessionConsistency(1000, 10, ticker);
+
+        for (int i = 0; i < 11; i++) {
+            sessionConsistency.recordWrite("table", key("written" + i));
+        }
+        assertThat(sessionConsistency.requiresConsistentRead("table", key("never_written"))).isTrue();
+
+        ticker.advance(TimeUnit.MILLISECONDS.toNanos(1000));
+        assertThat(sessionConsistency.requiresConsistentRead("table", key("never_written"))).isFalse();
+        assertThat(sessionConsistency.requiresConsistentRead("table", key("written0"))).isFalse();
+    }
+
+    @Test
+    public void tooManyWrites_sweepsExpiredKeysFirst() throws Exception {
+        SessionConsistency sessionConsistency = new SessionConsistency(1000, 10, ticker);
+
+        for (int i = 0; i < 10; i++) {
+            sessionConsistency.recordWrite("table", key("old" + i));
+        }
+        ticker.advance(TimeUnit.MILLISECONDS.toNanos(1000));
+        sessionConsistency.recordWrite("table", key("new"));
+
+        assertThat(sessionConsistency.requiresConsistentRead("table", key("new"))).isTrue();
+        assertThat(sessionConsistency.requiresConsistentRead("table", key("never_written"))).isFalse();
+    }
+
+    private static Map<String, AttributeValue> key(String hashKey) {
+        return ImmutableMap.of("hashKey", new AttributeValue(hashKey));
+    }
+
+    private static class FakeTicker extends Ticker {
+        private long nanos;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+
+        void advance(long nanos) {
+            this.nanos += nanos;
+        }
+    }
+}
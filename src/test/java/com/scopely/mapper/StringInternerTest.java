@@ -0,0 +1,55 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StringInternerTest {
+    @Test
+    public void intern_returnsFirstEqualString() throws Exception {
+        StringInterner interner = new StringInterner(16);
+        String first = new String("active");
+        String second = new String("active");
+
+        assertThat(interner.intern(first)).isSameAs(first);
+        assertThat(interner.intern(second)).isSameAs(first);
+        assertThat(interner.intern("other")).isEqualTo("other");
+    }
+
+    @Test
+    public void intern_isBounded() throws Exception {
+        StringInterner interner = new StringInterner(4);
+        for (int i = 0; i < 1000; i++) {
+            assertThat(interner.intern("value" + i)).isEqualTo("value" + i);
+        }
+    }
+
+    @Test
+    public void convert_internsNamesAndConfiguredValues() throws Exception {
+        StringInterner interner = new StringInterner(64, "status");
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        ObjectNode first = JsonNodeAttributeValueMapper.convert(item(), objectMapper, interner);
+        ObjectNode second = JsonNodeAttributeValueMapper.convert(item(), objectMapper, interner);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(second.fieldNames().next()).isSameAs(first.fieldNames().next());
+        assertThat(second.get("status").textValue()).isSameAs(first.get("status").textValue());
+        assertThat(second.get("name").textValue()).isNotSameAs(first.get("name").textValue());
+        assertThat(second.get("profile").fieldNames().next()).isSameAs(first.get("profile").fieldNames().next());
+    }
+
+    private static Map<String, AttributeValue> item() {
+        return ImmutableMap.of(
+                new String("status"), new AttributeValue(new String("active")),
+                new String("name"), new AttributeValue(new String("player")),
+                new String("profile"), new AttributeValue().withM(ImmutableMap.of(
+                        new String("level"), new AttributeValue().withN("3"))));
+    }
+}
@@ -21,18 +21,28 @@ import com.amazonaws.services.dynamodbv2.model.ScalarAttributeType;
 import com.aws.dynamo.local.DynamoLocal;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 
 import org.junit.After;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 import javax.annotation.Nullable;
 
@@ -44,6 +54,9 @@ public class TablePersistenceTest {
     private AmazonDynamoDBClient amazonDynamoDBClient;
     private ObjectMapper objectMapper = new ObjectMapper();
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Before
     public void setUp() throws Exception {
         dynamoLocal = new DynamoLocal();
@@ -112,6 +125,63 @@ public class TablePersistenceTest {
         assertThat(jsonDynamoMapper.load(SimpleFreeBuilt.class, "hk").isPresent()).isFalse();
     }
 
+    @Test
+    public void scanViews_decodeOnAccess() throws Exception {
+        dynamoLocal.createTable(ctr -> {
+            ctr.setTableName("simple_free_built");
+            ctr.setKeySchema(ImmutableList.of(new KeySchemaElement("hashKey", KeyType.HASH)));
+            ctr.setAttributeDefinitions(ImmutableList.of(new AttributeDefinition("hashKey", ScalarAttributeType.S)));
+        });
+
+        JsonDynamoMapper jsonDynamoMapper = new JsonDynamoMapper(amazonDynamoDBClient);
+        jsonDynamoMapper.save(new SimpleFreeBuilt.Builder().setHashKey("hk1").setStringValue("val").build());
+        jsonDynamoMapper.save(new SimpleFreeBuilt.Builder().setHashKey("hk2").build());
+
+        List<SimpleFreeBuilt> views = jsonDynamoMapper.scanViews(SimpleFreeBuilt.class, new DynamoDBScanExpression())
+                .getResults();
+        views.sort(Comparator.comparing(SimpleFreeBuilt::getHashKey));
+
+        assertThat(views).hasSize(2);
+        assertThat(views.get(0).getHashKey()).isEqualTo("hk1");
+        assertThat(views.get(0).getStringValue()).isEqualTo("val");
+        assertThat(views.get(1).getHashKey()).isEqualTo("hk2");
+        assertThat(views.get(1).getStringValue()).isNull();
+        assertThat(views.get(0)).isEqualTo(jsonDynamoMapper.view(SimpleFreeBuilt.class,
+                jsonDynamoMapper.convert(jsonDynamoMapper.load(SimpleFreeBuilt.class, "hk1").get())));
+    }
+
+    @Test
+    public void scan_withCriteria_filtersAndProjectsServerSide() throws Exception {
+        dynamoLocal.createTable(ctr -> {
+            ctr.setTableName("simple_free_built_versioned");
+            ctr.setKeySchema(ImmutableList.of(new KeySchemaElement("hashKey", KeyType.HASH)));
+            ctr.setAttributeDefinitions(ImmutableList.of(new AttributeDefinition("hashKey", ScalarAttributeType.S)));
+        });
+
+        JsonDynamoMapper jsonDynamoMapper = new JsonDynamoMapper(amazonDynamoDBClient);
+        for (int i = 0; i < 10; i++) {
+            jsonDynamoMapper.save(new SimpleFreeBuiltVersioned.Builder()
+                    .setHashKey("hk" + i)
+                    .setStringValue(i % 2 == 0 ? "even" : "odd")
+                    .addInnerDocuments(new InnerDocument.Builder().setRequiredInnerValue("value" + i).build())
+                    .build());
+        }
+
+        List<SimpleFreeBuiltVersioned> results = jsonDynamoMapper.scanAll(SimpleFreeBuiltVersioned.class,
+                new Criteria<>(jsonDynamoMapper, SimpleFreeBuiltVersioned.class)
+                        .eq("stringValue", "even")
+                        .beginsWith("innerDocuments[0].requiredInnerValue", "value")
+                        .lt("version", 2)
+                        .project("hashKey", "stringValue", "version")
+                        .toScanExpression(), null);
+
+        assertThat(results).hasSize(5);
+        for (SimpleFreeBuiltVersioned result : results) {
+            assertThat(result.getStringValue()).isEqualTo("even");
+            assertThat(result.getInnerDocuments()).isEmpty();
+        }
+    }
+
     @Test
     public void simple_free_built_persists_emtpy_string() throws Exception {
         dynamoLocal.createTable(ctr -> {
@@ -258,6 +328,39 @@ public class TablePersistenceTest {
         jsonDynamoMapper.save(instance);
     }
 
+    @Test
+    public void save_unchanged_skippedWithFingerprints() throws Exception {
+        dynamoLocal.createTable(ctr -> {
+            ctr.setTableName("simple_free_built_versioned");
+            ctr.setKeySchema(ImmutableList.of(new KeySchemaElement("hashKey", KeyType.HASH)));
+            ctr.setAttributeDefinitions(ImmutableList.of(new AttributeDefinition("hashKey", ScalarAttributeType.S)));
+        });
+
+        AtomicInteger skipped = new AtomicInteger();
+        JsonDynamoMapper jsonDynamoMapper = new JsonDynamoMapper(amazonDynamoDBClient, new JsonDynamoMapperConfig()
+                .withWriteFingerprints(new WriteFingerprints(1000, 60_000))
+                .withMetrics(new MapperMetrics() {
+                    @Override
+                    public void unchangedWritesSkipped(String tableName, int items) {
+                        skipped.addAndGet(items);
+                    }
+                }));
+
+        SimpleFreeBuiltVersioned saved = jsonDynamoMapper.saveAndGet(new SimpleFreeBuiltVersioned.Builder()
+                .setHashKey("hk")
+                .setStringValue("val")
+                .build());
+
+        // The reloaded item only differs by its version, which isn't part of the fingerprint
+        SimpleFreeBuiltVersioned loaded = jsonDynamoMapper.load(SimpleFreeBuiltVersioned.class, "hk").get();
+        assertThat(jsonDynamoMapper.saveAndGet(loaded)).isEqualTo(saved);
+        assertThat(skipped.get()).isEqualTo(1);
+
+        jsonDynamoMapper.saveAndGet(new SimpleFreeBuiltVersioned.Builder().mergeFrom(loaded).setStringValue("changed").build());
+        assertThat(skipped.get()).isEqualTo(1);
+        assertThat(jsonDynamoMapper.load(SimpleFreeBuiltVersioned.class, "hk").get().getStringValue()).isEqualTo("changed");
+    }
+
     @Test
     public void load_missingItem_emptyReturn() throws Exception {
         dynamoLocal.createTable(ctr -> {
@@ -357,6 +460,14 @@ public class TablePersistenceTest {
         jsonDynamoMapper.save(har);
     }
 
+    @Test(expected = ItemTooLargeException.class)
+    public void save_tooLarge_failsWithoutRequest() throws Exception {
+        // No table, so the save would fail differently if it were sent
+        JsonDynamoMapper jsonDynamoMapper = new JsonDynamoMapper(amazonDynamoDBClient);
+        String value = Strings.repeat("x", ItemSize.MAX_ITEM_SIZE);
+        jsonDynamoMapper.save(new SimpleFreeBuilt.Builder().setHashKey("hk").setStringValue(value).build());
+    }
+
     @Test
     public void load_hashAndRange_notFound() throws Exception {
         dynamoLocal.createTable(ctr -> {
@@ -408,6 +519,41 @@ public class TablePersistenceTest {
         assertThat(results).hasSize(1000);
     }
 
+    @Test
+    public void scan_resumesFromEncodedCursor() throws Exception {
+        dynamoLocal.createTable(ctr -> {
+            ctr.setTableName("hash_and_range");
+            ctr.setKeySchema(ImmutableList.of(
+                    new KeySchemaElement("hashKey", KeyType.HASH),
+                    new KeySchemaElement("rangeKey", KeyType.RANGE)));
+            ctr.setAttributeDefinitions(ImmutableList.of(new AttributeDefinition("hashKey", ScalarAttributeType.S),
+                    new AttributeDefinition("rangeKey", ScalarAttributeType.S)));
+        });
+
+        JsonDynamoMapper jsonDynamoMapper = new JsonDynamoMapper(amazonDynamoDBClient);
+
+        List<HashAndRange> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(new HashAndRange.Builder().setHashKey("hk" + i % 7).setRangeKey("" + i).build());
+        }
+        jsonDynamoMapper.saveAll(HashAndRange.class, items);
+
+        List<HashAndRange> results = new ArrayList<>();
+        for (int segment = 0; segment < 2; segment++) {
+            String token = Cursor.start(segment, 2).encode();
+            while (token != null) {
+                Cursor cursor = Cursor.decode(token);
+                ScanResultPage<HashAndRange> page = jsonDynamoMapper.scan(HashAndRange.class,
+                        new DynamoDBScanExpression().withLimit(15), cursor, null);
+                results.addAll(page.getResults());
+                token = cursor.next(page).map(Cursor::encode).orElse(null);
+            }
+        }
+
+        assertThat(results).hasSize(100);
+        assertThat(results.stream().map(HashAndRange::getRangeKey).distinct().count()).isEqualTo(100);
+    }
+
     @Test
     public void scan_all() throws Exception {
         dynamoLocal.createTable(ctr -> {
@@ -503,6 +649,142 @@ public class TablePersistenceTest {
         assertThat(query).hasSize(1000);
     }
 
+    @Test
+    public void collection_servesRangeLookupsLocally() throws Exception {
+        dynamoLocal.createTable(ctr -> {
+            ctr.setTableName("hash_and_range");
+            ctr.setKeySchema(ImmutableList.of(
+                    new KeySchemaElement("hashKey", KeyType.HASH),
+                    new KeySchemaElement("rangeKey", KeyType.RANGE)));
+            ctr.setAttributeDefinitions(ImmutableList.of(new AttributeDefinition("hashKey", ScalarAttributeType.S),
+                    new AttributeDefinition("rangeKey", ScalarAttributeType.S)));
+        });
+
+        JsonDynamoMapper jsonDynamoMapper = new JsonDynamoMapper(amazonDynamoDBClient);
+
+        for (int i = 0; i < 10; i++) {
+            jsonDynamoMapper.save(new HashAndRange.Builder().setHashKey("hk").setRangeKey("a" + i).build());
+            jsonDynamoMapper.save(new HashAndRange.Builder().setHashKey("hk").setRangeKey("b" + i).build());
+            jsonDynamoMapper.save(new HashAndRange.Builder().setHashKey("other").setRangeKey("a" + i).build());
+        }
+
+        ItemCollection<HashAndRange> collection = jsonDynamoMapper.collection(HashAndRange.class, "hk");
+
+        assertThat(collection.size()).isEqualTo(20);
+        assertThat(collection.get("a3").get().getRangeKey()).isEqualTo("a3");
+        assertThat(collection.get("c0").isPresent()).isFalse();
+        assertThat(collection.range("a8", "b2").stream().map(HashAndRange::getRangeKey).collect(Collectors.toList()))
+                .containsExactly("a8", "a9", "b0", "b1");
+        assertThat(collection.beginsWith("b")).hasSize(10);
+
+        jsonDynamoMapper.save(new HashAndRange.Builder().setHashKey("hk").setRangeKey("c0").build());
+        assertThat(collection.get("c0").isPresent()).isFalse();
+        collection.refresh();
+        assertThat(collection.get("c0").isPresent()).isTrue();
+    }
+
+    @Test
+    public void queryMany_mergesPartitionsByRangeKey() throws Exception {
+        dynamoLocal.createTable(ctr -> {
+            ctr.setTableName("hash_and_range");
+            ctr.setKeySchema(ImmutableList.of(
+                    new KeySchemaElement("hashKey", KeyType.HASH),
+                    new KeySchemaElement("rangeKey", KeyType.RANGE)));
+            ctr.setAttributeDefinitions(ImmutableList.of(new AttributeDefinition("hashKey", ScalarAttributeType.S),
+                    new AttributeDefinition("rangeKey", ScalarAttributeType.S)));
+        });
+
+        JsonDynamoMapper jsonDynamoMapper = new JsonDynamoMapper(amazonDynamoDBClient);
+
+        List<HashAndRange> items = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            items.add(new HashAndRange.Builder().setHashKey("hk" + i % 3).setRangeKey(String.format("%03d", i)).build());
+        }
+        jsonDynamoMapper.saveAll(HashAndRange.class, items);
+
+        List<HashAndRange> latest = jsonDynamoMapper.queryMany(HashAndRange.class, ImmutableList.of("hk0", "hk1", "hk2"),
+                new DynamoDBQueryExpression().withScanIndexForward(false), 5);
+        assertThat(latest.stream().map(HashAndRange::getRangeKey).collect(Collectors.toList()))
+                .containsExactly("059", "058", "057", "056", "055");
+
+        List<HashAndRange> since = jsonDynamoMapper.queryMany(HashAndRange.class, ImmutableList.of("hk0", "hk2"),
+                new DynamoDBQueryExpression()
+                        .withKeyConditionExpression("rangeKey > :since")
+                        .withExpressionAttributeValues(ImmutableMap.of(":since", new AttributeValue("050"))),
+                100);
+        assertThat(since.stream().map(HashAndRange::getRangeKey).collect(Collectors.toList()))
+                .containsExactly("051", "053", "054", "056", "057", "059");
+    }
+
+    @Test
+    public void writeSharding_fansOutReads() throws Exception {
+        dynamoLocal.createTable(ctr -> {
+            ctr.setTableName("hash_and_range");
+            ctr.setKeySchema(ImmutableList.of(
+                    new KeySchemaElement("hashKey", KeyType.HASH),
+                    new KeySchemaElement("rangeKey", KeyType.RANGE)));
+            ctr.setAttributeDefinitions(ImmutableList.of(new AttributeDefinition("hashKey", ScalarAttributeType.S),
+                    new AttributeDefinition("rangeKey", ScalarAttributeType.S)));
+        });
+
+        JsonDynamoMapper jsonDynamoMapper = new JsonDynamoMapper(amazonDynamoDBClient, new JsonDynamoMapperConfig()
+                .withWriteSharding(new WriteSharding(HashAndRange.class, 4,
+                        item -> item.get("rangeKey").getS().hashCode())));
+
+        List<HashAndRange> items = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            items.add(new HashAndRange.Builder().setHashKey("hot").setRangeKey(String.format("%03d", i)).build());
+        }
+        jsonDynamoMapper.saveAll(HashAndRange.class, items);
+
+        // Items are stored under the shard's hash key, and read back under the logical one
+        List<String> storedHashKeys = new ArrayList<>();
+        for (Map<String, AttributeValue> item : amazonDynamoDBClient.scan("hash_and_range", ImmutableList.of("hashKey")).getItems()) {
+            storedHashKeys.add(item.get("hashKey").getS());
+        }
+        assertThat(storedHashKeys).doesNotContain("hot").contains("hot#0", "hot#3");
+        assertThat(jsonDynamoMapper.load(HashAndRange.class, "hot", "007")).contains(items.get(7));
+
+        List<HashAndRange> latest = jsonDynamoMapper.queryShards(HashAndRange.class, "hot",
+                new DynamoDBQueryExpression().withScanIndexForward(false), 3);
+        assertThat(latest).containsExactly(items.get(39), items.get(38), items.get(37));
+
+        jsonDynamoMapper.delete(HashAndRange.class, "hot", "007");
+        assertThat(jsonDynamoMapper.exists(HashAndRange.class, "hot", "007")).isFalse();
+        assertThat(jsonDynamoMapper.queryShards(HashAndRange.class, "hot", null, 100)).hasSize(39);
+    }
+
+    @Test
+    public void writeSharding_recordsLogicalKeysWithSessionConsistency() throws Exception {
+        dynamoLocal.createTable(ctr -> {
+            ctr.setTableName("hash_and_range");
+            ctr.setKeySchema(ImmutableList.of(
+                    new KeySchemaElement("hashKey", KeyType.HASH),
+                    new KeySchemaElement("rangeKey", KeyType.RANGE)));
+            ctr.setAttributeDefinitions(ImmutableList.of(new AttributeDefinition("hashKey", ScalarAttributeType.S),
+                    new AttributeDefinition("rangeKey", ScalarAttributeType.S)));
+        });
+
+        SessionConsistency sessionConsistency = new SessionConsistency(60_000);
+        JsonDynamoMapper jsonDynamoMapper = new JsonDynamoMapper(amazonDynamoDBClient, new JsonDynamoMapperConfig()
+                .withSessionConsistency(sessionConsistency)
+                .withWriteSharding(new WriteSharding(HashAndRange.class, 4,
+                        item -> item.get("rangeKey").getS().hashCode())));
+
+        jsonDynamoMapper.save(new HashAndRange.Builder().setHashKey("hot").setRangeKey("saved").build());
+        jsonDynamoMapper.saveAll(HashAndRange.class, ImmutableList.of(
+                new HashAndRange.Builder().setHashKey("hot").setRangeKey("batched").build()));
+        jsonDynamoMapper.delete(HashAndRange.class, "hot", "deleted");
+
+        for (String rangeKey : ImmutableList.of("saved", "batched", "deleted")) {
+            assertThat(sessionConsistency.requiresConsistentRead("hash_and_range",
+                    ImmutableMap.of("hashKey", new AttributeValue("hot"), "rangeKey", new AttributeValue(rangeKey))))
+                    .as(rangeKey)
+                    .isTrue();
+        }
+        assertThat(jsonDynamoMapper.load(HashAndRange.class, "hot", "saved")).isPresent();
+    }
+
     @Test
     public void simple_free_built_binary_persists() throws Exception {
         dynamoLocal.createTable(ctr -> {
@@ -555,6 +837,457 @@ public class TablePersistenceTest {
         }
     }
 
+    @Test
+    public void save_all_rateLimited_batchLoad() throws Exception {
+        dynamoLocal.createTable(ctr -> {
+            ctr.setTableName("hash_and_range");
+            ctr.setKeySchema(ImmutableList.of(
+                    new KeySchemaElement("hashKey", KeyType.HASH),
+                    new KeySchemaElement("rangeKey", KeyType.RANGE)));
+            ctr.setAttributeDefinitions(ImmutableList.of(
+                    new AttributeDefinition("hashKey", ScalarAttributeType.S),
+                    new AttributeDefinition("rangeKey", ScalarAttributeType.S)));
+        });
+
+        JsonDynamoMapper jsonDynamoMapper = new JsonDynamoMapper(amazonDynamoDBClient);
+        CapacityRateLimiter rateLimiter = new CapacityRateLimiter(1000);
+
+        List<HashAndRange> items = new ArrayList<>();
+        List<Key> keys = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            items.add(new HashAndRange.Builder().setHashKey("hk").setRangeKey("" + i).build());
+            keys.add(Key.of("hk", "" + i));
+        }
+
+        jsonDynamoMapper.saveAll(HashAndRange.class, items, rateLimiter);
+
+        List<HashAndRange> loaded = jsonDynamoMapper.batchLoad(HashAndRange.class, keys, true, rateLimiter);
+        assertThat(loaded).containsOnlyElementsOf(items).hasSize(60);
+
+        assertThat(jsonDynamoMapper.queryAll(HashAndRange.class,
+                new DynamoDBQueryExpression()
+                        .withKeyConditionExpression("hashKey = :hashKey")
+                        .withExpressionAttributeValues(ImmutableMap.of(":hashKey", new AttributeValue("hk"))),
+                rateLimiter)).hasSize(60);
+    }
+
+    @Test
+    public void parallel_scan_all() throws Exception {
+        dynamoLocal.createTable(ctr -> {
+            ctr.setTableName("hash_and_range");
+            ctr.setKeySchema(ImmutableList.of(
+                    new KeySchemaElement("hashKey", KeyType.HASH),
+                    new KeySchemaElement("rangeKey", KeyType.RANGE)));
+            ctr.setAttributeDefinitions(ImmutableList.of(new AttributeDefinition("hashKey", ScalarAttributeType.S),
+                    new AttributeDefinition("rangeKey", ScalarAttributeType.S)));
+        });
+
+        JsonDynamoMapper jsonDynamoMapper = new JsonDynamoMapper(amazonDynamoDBClient);
+
+        for (int i = 0; i < 100; i++) {
+            HashAndRange har = new HashAndRange.Builder().setHashKey("hk" + i).setRangeKey("" + i).build();
+            jsonDynamoMapper.save(har);
+        }
+
+        List<HashAndRange> scan = jsonDynamoMapper.parallelScanAll(HashAndRange.class,
+                new DynamoDBScanExpression().withLimit(10), 4, new CapacityRateLimiter(1000));
+        assertThat(scan).hasSize(100);
+    }
+
+    @Test
+    public void exists_and_count() throws Exception {
+        dynamoLocal.createTable(ctr -> {
+            ctr.setTableName("hash_and_range");
+            ctr.setKeySchema(ImmutableList.of(
+                    new KeySchemaElement("hashKey", KeyType.HASH),
+                    new KeySchemaElement("rangeKey", KeyType.RANGE)));
+            ctr.setAttributeDefinitions(ImmutableList.of(new AttributeDefinition("hashKey", ScalarAttributeType.S),
+                    new AttributeDefinition("rangeKey", ScalarAttributeType.S)));
+        });
+
+        JsonDynamoMapper jsonDynamoMapper = new JsonDynamoMapper(amazonDynamoDBClient);
+
+        for (int i = 0; i < 100; i++) {
+            HashAndRange har = new HashAndRange.Builder().setHashKey("hk" + (i % 4)).setRangeKey("" + i).build();
+            jsonDynamoMapper.save(har);
+        }
+
+        assertThat(jsonDynamoMapper.exists(HashAndRange.class, "hk1", "1")).isTrue();
+        assertThat(jsonDynamoMapper.exists(HashAndRange.class, "hk1", "2")).isFalse();
+
+        DynamoDBQueryExpression queryExpression = new DynamoDBQueryExpression()
+                .withKeyConditionExpression("hashKey = :hk")
+                .withExpressionAttributeValues(ImmutableMap.of(":hk", new AttributeValue("hk2")))
+                .withLimit(10);
+        assertThat(jsonDynamoMapper.count(HashAndRange.class, queryExpression)).isEqualTo(25);
+
+        assertThat(jsonDynamoMapper.count(HashAndRange.class, new DynamoDBScanExpression())).isEqualTo(100);
+        assertThat(jsonDynamoMapper.count(HashAndRange.class, new DynamoDBScanExpression(), 4, null)).isEqualTo(100);
+    }
+
+    @Test
+    public void count_withProjectedCriteria() throws Exception {
+        dynamoLocal.createTable(ctr -> {
+            ctr.setTableName("simple_free_built_versioned");
+            ctr.setKeySchema(ImmutableList.of(new KeySchemaElement("hashKey", KeyType.HASH)));
+            ctr.setAttributeDefinitions(ImmutableList.of(new AttributeDefinition("hashKey", ScalarAttributeType.S)));
+        });
+
+        JsonDynamoMapper jsonDynamoMapper = new JsonDynamoMapper(amazonDynamoDBClient);
+        for (int i = 0; i < 10; i++) {
+            jsonDynamoMapper.save(new SimpleFreeBuiltVersioned.Builder()
+                    .setHashKey("hk" + i)
+                    .setStringValue(i % 2 == 0 ? "even" : "odd")
+                    .build());
+        }
+
+        // The projection's names aren't used once count drops the projection
+        Criteria<SimpleFreeBuiltVersioned> criteria = new Criteria<>(jsonDynamoMapper, SimpleFreeBuiltVersioned.class)
+                .eq("stringValue", "even")
+                .project("hashKey", "stringValue", "version");
+        assertThat(jsonDynamoMapper.count(SimpleFreeBuiltVersioned.class, criteria.toScanExpression())).isEqualTo(5);
+        assertThat(jsonDynamoMapper.count(SimpleFreeBuiltVersioned.class, criteria.toScanExpression(), 2, null))
+                .isEqualTo(5);
+
+        DynamoDBQueryExpression<SimpleFreeBuiltVersioned> queryExpression = criteria.applyTo(
+                new DynamoDBQueryExpression<SimpleFreeBuiltVersioned>()
+                        .withKeyConditionExpression("hashKey = :hk")
+                        .withExpressionAttributeValues(ImmutableMap.of(":hk", new AttributeValue("hk2"))));
+        assertThat(jsonDynamoMapper.count(SimpleFreeBuiltVersioned.class, queryExpression)).isEqualTo(1);
+    }
+
+    @Test
+    public void deleteAll_and_deleteByQuery() throws Exception {
+        dynamoLocal.createTable(ctr -> {
+            ctr.setTableName("hash_and_range");
+            ctr.setKeySchema(ImmutableList.of(
+                    new KeySchemaElement("hashKey", KeyType.HASH),
+                    new KeySchemaElement("rangeKey", KeyType.RANGE)));
+            ctr.setAttributeDefinitions(ImmutableList.of(new AttributeDefinition("hashKey", ScalarAttributeType.S),
+                    new AttributeDefinition("rangeKey", ScalarAttributeType.S)));
+        });
+
+        JsonDynamoMapper jsonDynamoMapper = new JsonDynamoMapper(amazonDynamoDBClient);
+
+        List<HashAndRange> items = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            items.add(new HashAndRange.Builder().setHashKey("hk" + (i % 4)).setRangeKey("" + i).build());
+        }
+        jsonDynamoMapper.saveAll(HashAndRange.class, items);
+
+        List<Key> keys = new ArrayList<>();
+        for (int i = 0; i < 200; i += 4) {
+            keys.add(Key.of("hk0", "" + i));
+            keys.add(Key.of("hk0", "" + i));
+        }
+        jsonDynamoMapper.deleteAll(HashAndRange.class, keys);
+
+        assertThat(jsonDynamoMapper.exists(HashAndRange.class, "hk0", "0")).isFalse();
+        assertThat(jsonDynamoMapper.count(HashAndRange.class, new DynamoDBScanExpression())).isEqualTo(150);
+
+        DynamoDBQueryExpression queryExpression = new DynamoDBQueryExpression()
+                .withKeyConditionExpression("hashKey = :hk")
+                .withExpressionAttributeValues(ImmutableMap.of(":hk", new AttributeValue("hk2")))
+                .withLimit(10);
+        assertThat(jsonDynamoMapper.deleteByQuery(HashAndRange.class, queryExpression)).isEqualTo(50);
+
+        assertThat(jsonDynamoMapper.count(HashAndRange.class, queryExpression)).isEqualTo(0);
+        assertThat(jsonDynamoMapper.count(HashAndRange.class, new DynamoDBScanExpression())).isEqualTo(100);
+
+        // The projection's names aren't used by the key condition once deleteByQuery replaces it
+        DynamoDBQueryExpression<HashAndRange> projectedExpression = new Criteria<>(jsonDynamoMapper, HashAndRange.class)
+                .project("hashKey", "rangeKey")
+                .applyTo(new DynamoDBQueryExpression<HashAndRange>()
+                        .withKeyConditionExpression("hashKey = :hk")
+                        .withExpressionAttributeValues(ImmutableMap.of(":hk", new AttributeValue("hk3"))));
+        assertThat(jsonDynamoMapper.deleteByQuery(HashAndRange.class, projectedExpression)).isEqualTo(50);
+        assertThat(jsonDynamoMapper.count(HashAndRange.class, new DynamoDBScanExpression())).isEqualTo(50);
+    }
+
+    @Test
+    public void unitOfWork_spansTables() throws Exception {
+        dynamoLocal.createTable(ctr -> {
+            ctr.setTableName("simple_free_built");
+            ctr.setKeySchema(ImmutableList.of(new KeySchemaElement("hashKey", KeyType.HASH)));
+            ctr.setAttributeDefinitions(ImmutableList.of(new AttributeDefinition("hashKey", ScalarAttributeType.S)));
+        });
+        dynamoLocal.createTable(ctr -> {
+            ctr.setTableName("hash_and_range");
+            ctr.setKeySchema(ImmutableList.of(
+                    new KeySchemaElement("hashKey", KeyType.HASH),
+                    new KeySchemaElement("rangeKey", KeyType.RANGE)));
+            ctr.setAttributeDefinitions(ImmutableList.of(new AttributeDefinition("hashKey", ScalarAttributeType.S),
+                    new AttributeDefinition("rangeKey", ScalarAttributeType.S)));
+        });
+
+        JsonDynamoMapper jsonDynamoMapper = new JsonDynamoMapper(amazonDynamoDBClient);
+        jsonDynamoMapper.save(new SimpleFreeBuilt.Builder().setHashKey("deleted").setStringValue("val").build());
+
+        UnitOfWork unitOfWork = new UnitOfWork(jsonDynamoMapper);
+        for (int i = 0; i < 30; i++) {
+            unitOfWork.put(SimpleFreeBuilt.class, new SimpleFreeBuilt.Builder().setHashKey("hk" + i).setStringValue("v" + i).build());
+            unitOfWork.put(HashAndRange.class, new HashAndRange.Builder().setHashKey("hk").setRangeKey("" + i).build());
+        }
+        unitOfWork.put(SimpleFreeBuilt.class, new SimpleFreeBuilt.Builder().setHashKey("hk1").setStringValue("last").build());
+        unitOfWork.delete(SimpleFreeBuilt.class, Key.of("deleted"));
+        unitOfWork.get(SimpleFreeBuilt.class, Key.of("hk1"));
+        unitOfWork.get(SimpleFreeBuilt.class, Key.of("deleted"));
+        for (int i = 0; i < 120; i++) {
+            unitOfWork.get(HashAndRange.class, Key.of("hk", "" + i));
+        }
+
+        UnitOfWorkResult result = unitOfWork.execute();
+
+        assertThat(result.get(SimpleFreeBuilt.class, Key.of("hk1")).get().getStringValue()).isEqualTo("last");
+        assertThat(result.get(SimpleFreeBuilt.class, Key.of("deleted")).isPresent()).isFalse();
+        assertThat(result.getAll(HashAndRange.class)).hasSize(30);
+        assertThat(jsonDynamoMapper.count(SimpleFreeBuilt.class, new DynamoDBScanExpression())).isEqualTo(30);
+    }
+
+    @Test
+    public void scan_parallelDecode_keepsOrder() throws Exception {
+        dynamoLocal.createTable(ctr -> {
+            ctr.setTableName("hash_and_range");
+            ctr.setKeySchema(ImmutableList.of(
+                    new KeySchemaElement("hashKey", KeyType.HASH),
+                    new KeySchemaElement("rangeKey", KeyType.RANGE)));
+            ctr.setAttributeDefinitions(ImmutableList.of(new AttributeDefinition("hashKey", ScalarAttributeType.S),
+                    new AttributeDefinition("rangeKey", ScalarAttributeType.S)));
+        });
+
+        JsonDynamoMapper jsonDynamoMapper = new JsonDynamoMapper(amazonDynamoDBClient);
+        JsonDynamoMapper parallelMapper = new JsonDynamoMapper(amazonDynamoDBClient, new JsonDynamoMapperConfig()
+                .withDecodePool(new ForkJoinPool(4))
+                .withParallelDecodeThreshold(8));
+
+        for (int i = 0; i < 100; i++) {
+            HashAndRange har = new HashAndRange.Builder().setHashKey("hk" + i).setRangeKey("" + i).build();
+            jsonDynamoMapper.save(har);
+        }
+
+        List<HashAndRange> sequential = jsonDynamoMapper.scanAll(HashAndRange.class);
+        List<HashAndRange> parallel = parallelMapper.scanAll(HashAndRange.class);
+        assertThat(parallel).hasSize(100).containsExactlyElementsOf(sequential);
+    }
+
+    @Test
+    public void export_resumes_from_checkpoints() throws Exception {
+        dynamoLocal.createTable(ctr -> {
+            ctr.setTableName("hash_and_range");
+            ctr.setKeySchema(ImmutableList.of(
+                    new KeySchemaElement("hashKey", KeyType.HASH),
+                    new KeySchemaElement("rangeKey", KeyType.RANGE)));
+            ctr.setAttributeDefinitions(ImmutableList.of(new AttributeDefinition("hashKey", ScalarAttributeType.S),
+                    new AttributeDefinition("rangeKey", ScalarAttributeType.S)));
+        });
+
+        JsonDynamoMapper jsonDynamoMapper = new JsonDynamoMapper(amazonDynamoDBClient);
+
+        for (int i = 0; i < 100; i++) {
+            HashAndRange har = new HashAndRange.Builder().setHashKey("hk" + i).setRangeKey("" + i).build();
+            jsonDynamoMapper.save(har);
+        }
+
+        Path directory = temporaryFolder.newFolder().toPath();
+        TableExporter exporter = new TableExporter(jsonDynamoMapper, HashAndRange.class, directory)
+                .withScanExpression(new DynamoDBScanExpression().withLimit(10))
+                .withTotalSegments(3);
+        assertThat(exporter.export()).isEqualTo(100);
+
+        // Segment 0 starts over; finished segments 1 and 2 are skipped
+        Files.delete(TableExporter.checkpointFile(directory, 0));
+        assertThat(exporter.export()).isEqualTo(100);
+
+        long lines = 0;
+        for (int segment = 0; segment < 3; segment++) {
+            lines += Files.readAllLines(TableExporter.segmentFile(directory, segment, ExportFormat.NDJSON)).size();
+        }
+        assertThat(lines).isEqualTo(100);
+    }
+
+    @Test
+    public void export_binary() throws Exception {
+        dynamoLocal.createTable(ctr -> {
+            ctr.setTableName("simple_free_built");
+            ctr.setKeySchema(ImmutableList.of(new KeySchemaElement("hashKey", KeyType.HASH)));
+            ctr.setAttributeDefinitions(ImmutableList.of(new AttributeDefinition("hashKey", ScalarAttributeType.S)));
+        });
+
+        JsonDynamoMapper jsonDynamoMapper = new JsonDynamoMapper(amazonDynamoDBClient);
+
+        for (int i = 0; i < 30; i++) {
+            jsonDynamoMapper.save(new SimpleFreeBuilt.Builder().setHashKey("hk" + i).setStringValue("v" + i).build());
+        }
+
+        Path directory = temporaryFolder.newFolder().toPath();
+        assertThat(new TableExporter(jsonDynamoMapper, SimpleFreeBuilt.class, directory)
+                .withFormat(ExportFormat.BINARY)
+                .export()).isEqualTo(30);
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(TableExporter.segmentFile(directory, 0, ExportFormat.BINARY)));
+        buffer.position(TableExporter.BINARY_HEADER_SIZE);
+        List<SimpleFreeBuilt> items = new ArrayList<>();
+        while (buffer.hasRemaining()) {
+            AttributeValueCodec.readVarint(buffer);
+            items.add(jsonDynamoMapper.convert(SimpleFreeBuilt.class, AttributeValueCodec.decode(buffer)));
+        }
+        assertThat(items).hasSize(30)
+                .contains(new SimpleFreeBuilt.Builder().setHashKey("hk7").setStringValue("v7").build());
+    }
+
+    @Test
+    public void existenceFilter_skipsMissingKeys() throws Exception {
+        dynamoLocal.createTable(ctr -> {
+            ctr.setTableName("simple_free_built");
+            ctr.setKeySchema(ImmutableList.of(new KeySchemaElement("hashKey", KeyType.HASH)));
+            ctr.setAttributeDefinitions(ImmutableList.of(new AttributeDefinition("hashKey", ScalarAttributeType.S)));
+        });
+
+        AtomicInteger skipped = new AtomicInteger();
+        ExistenceFilter filter = new ExistenceFilter(SimpleFreeBuilt.class, 1000, 0.001);
+        JsonDynamoMapper jsonDynamoMapper = new JsonDynamoMapper(amazonDynamoDBClient, new JsonDynamoMapperConfig()
+                .withExistenceFilter(filter)
+                .withMetrics(new MapperMetrics() {
+                    @Override
+                    public void existenceFilterSkipped(String tableName, int keys) {
+                        skipped.addAndGet(keys);
+                    }
+                }));
+
+        for (int i = 0; i < 20; i++) {
+            jsonDynamoMapper.save(new SimpleFreeBuilt.Builder().setHashKey("hk" + i).setStringValue("v" + i).build());
+        }
+
+        // Until it's built, every key might exist
+        assertThat(jsonDynamoMapper.load(SimpleFreeBuilt.class, "missing")).isEmpty();
+        assertThat(skipped.get()).isEqualTo(0);
+
+        assertThat(jsonDynamoMapper.buildExistenceFilter(SimpleFreeBuilt.class, 2, null)).isEqualTo(20);
+        assertThat(filter.isReady()).isTrue();
+
+        assertThat(jsonDynamoMapper.load(SimpleFreeBuilt.class, "hk3"))
+                .contains(new SimpleFreeBuilt.Builder().setHashKey("hk3").setStringValue("v3").build());
+        assertThat(jsonDynamoMapper.load(SimpleFreeBuilt.class, "missing")).isEmpty();
+        assertThat(skipped.get()).isEqualTo(1);
+
+        // Keys saved after the build are added
+        jsonDynamoMapper.save(new SimpleFreeBuilt.Builder().setHashKey("late").setStringValue("v").build());
+        assertThat(jsonDynamoMapper.load(SimpleFreeBuilt.class, "late")).isPresent();
+
+        Path file = temporaryFolder.newFolder().toPath().resolve("simple_free_built.bloom");
+        filter.writeTo(file);
+        ExistenceFilter read = new ExistenceFilter(SimpleFreeBuilt.class, 1000, 0.001);
+        assertThat(read.readFrom(file)).isTrue();
+        assertThat(read.mightExist(ImmutableMap.of("hashKey", new AttributeValue("late")))).isTrue();
+        assertThat(read.readFrom(file.resolveSibling("absent.bloom"))).isFalse();
+    }
+
+    @Test
+    public void import_resumes_from_offset() throws Exception {
+        dynamoLocal.createTable(ctr -> {
+            ctr.setTableName("simple_free_built");
+            ctr.setKeySchema(ImmutableList.of(new KeySchemaElement("hashKey", KeyType.HASH)));
+            ctr.setAttributeDefinitions(ImmutableList.of(new AttributeDefinition("hashKey", ScalarAttributeType.S)));
+        });
+
+        JsonDynamoMapper jsonDynamoMapper = new JsonDynamoMapper(amazonDynamoDBClient);
+
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            lines.add("{\"hashKey\": \"hk" + i + "\", \"stringValue\": \"v" + i + "\"}");
+        }
+        Path file = temporaryFolder.newFile("items.ndjson").toPath();
+        Files.write(file, lines);
+
+        List<ImportProgress> reports = new ArrayList<>();
+        ImportProgress progress = new TableImporter(jsonDynamoMapper, SimpleFreeBuilt.class, file)
+                .withWriteConcurrency(2)
+                .withProgressListener(reports::add)
+                .importItems();
+
+        assertThat(progress.getItems()).isEqualTo(60);
+        assertThat(progress.getOffset()).isEqualTo(Files.size(file));
+        assertThat(reports).isNotEmpty();
+        assertThat(jsonDynamoMapper.load(SimpleFreeBuilt.class, "hk59"))
+                .contains(new SimpleFreeBuilt.Builder().setHashKey("hk59").setStringValue("v59").build());
+
+        // Resuming after the first 50 lines imports the last 10
+        long offset = 0;
+        for (String line : lines.subList(0, 50)) {
+            offset += line.length() + 1;
+        }
+        ImportProgress resumed = new TableImporter(jsonDynamoMapper, SimpleFreeBuilt.class, file)
+                .withMemoryMapped(true)
+                .withStartOffset(offset)
+                .importItems();
+        assertThat(resumed.getItems()).isEqualTo(10);
+    }
+
+    @Test
+    public void import_countsItemsNotBlankLines() throws Exception {
+        dynamoLocal.createTable(ctr -> {
+            ctr.setTableName("simple_free_built");
+            ctr.setKeySchema(ImmutableList.of(new KeySchemaElement("hashKey", KeyType.HASH)));
+            ctr.setAttributeDefinitions(ImmutableList.of(new AttributeDefinition("hashKey", ScalarAttributeType.S)));
+        });
+
+        JsonDynamoMapper jsonDynamoMapper = new JsonDynamoMapper(amazonDynamoDBClient);
+
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            lines.add("{\"hashKey\": \"hk" + i + "\", \"stringValue\": \"v" + i + "\"}");
+            lines.add("");
+        }
+        Path file = temporaryFolder.newFile("blank_lines.ndjson").toPath();
+        Files.write(file, lines);
+
+        ImportProgress progress = new TableImporter(jsonDynamoMapper, SimpleFreeBuilt.class, file).importItems();
+
+        assertThat(progress.getItems()).isEqualTo(20);
+        assertThat(progress.getOffset()).isEqualTo(Files.size(file));
+    }
+
+    @Test
+    public void scanColumnar_decodesColumnsOfEverySegment() throws Exception {
+        dynamoLocal.createTable(ctr -> {
+            ctr.setTableName("simple_free_built_versioned");
+            ctr.setKeySchema(ImmutableList.of(new KeySchemaElement("hashKey", KeyType.HASH)));
+            ctr.setAttributeDefinitions(ImmutableList.of(new AttributeDefinition("hashKey", ScalarAttributeType.S)));
+        });
+
+        JsonDynamoMapper jsonDynamoMapper = new JsonDynamoMapper(amazonDynamoDBClient);
+        for (int i = 0; i < 100; i++) {
+            jsonDynamoMapper.save(new SimpleFreeBuiltVersioned.Builder()
+                    .setHashKey("hk" + i)
+                    .setStringValue(i % 2 == 0 ? "even" : "odd")
+                    .build());
+        }
+
+        ColumnarResult result = jsonDynamoMapper.scanColumnar(SimpleFreeBuiltVersioned.class,
+                new DynamoDBScanExpression().withLimit(10), 4, null, "stringValue", "version");
+
+        assertThat(result.size()).isEqualTo(100);
+        StringColumn stringValues = result.getStringColumn("stringValue");
+        assertThat(stringValues.getDictionary()).containsOnly("even", "odd");
+        int evens = 0;
+        for (int code : stringValues.getCodes()) {
+            evens += code == stringValues.codeOf("even") ? 1 : 0;
+        }
+        assertThat(evens).isEqualTo(50);
+
+        LongColumn versions = result.getLongColumn("version");
+        assertThat(versions.nullCount()).isZero();
+        assertThat(versions.getValues()).hasSize(100).containsOnly(versions.get(0));
+
+        // The criteria's projection names are dropped along with the projection the columns replace
+        DynamoDBScanExpression projected = new Criteria<>(jsonDynamoMapper, SimpleFreeBuiltVersioned.class)
+                .eq("stringValue", "odd")
+                .project("hashKey", "stringValue")
+                .toScanExpression();
+        ColumnarResult odds = jsonDynamoMapper.scanColumnar(SimpleFreeBuiltVersioned.class, projected, 2, null, "version");
+        assertThat(odds.size()).isEqualTo(50);
+    }
+
     /**
      * Example class with standard annotations; still supported.
      */
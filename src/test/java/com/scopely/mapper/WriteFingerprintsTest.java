@@ -0,0 +1,47 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WriteFingerprintsTest {
+    private static final Map<String, AttributeValue> KEY = ImmutableMap.of("hashKey", new AttributeValue("a"));
+
+    @Test
+    public void recordSave_keepsFingerprintOfUncontendedSave() throws Exception {
+        WriteFingerprints fingerprints = new WriteFingerprints(16, 60_000);
+        HashCode fingerprint = fingerprint("x");
+
+        fingerprints.invalidate("table", KEY);
+        fingerprints.recordSave("table", KEY, fingerprint);
+
+        assertThat(fingerprints.isUnchanged("table", KEY, fingerprint)).isTrue();
+    }
+
+    @Test
+    public void recordSave_forgetsKeyWrittenByConcurrentSave() throws Exception {
+        WriteFingerprints fingerprints = new WriteFingerprints(16, 60_000);
+        HashCode first = fingerprint("x");
+        HashCode second = fingerprint("y");
+
+        // Both saves forget the key before their put, and the second records first
+        fingerprints.invalidate("table", KEY);
+        fingerprints.invalidate("table", KEY);
+        fingerprints.recordSave("table", KEY, second);
+        fingerprints.recordSave("table", KEY, first);
+
+        assertThat(fingerprints.isUnchanged("table", KEY, first)).isFalse();
+        assertThat(fingerprints.isUnchanged("table", KEY, second)).isFalse();
+        assertThat(fingerprints.size()).isZero();
+    }
+
+    private static HashCode fingerprint(String value) {
+        return WriteFingerprints.fingerprint(ImmutableMap.of("hashKey", new AttributeValue("a"),
+                "value", new AttributeValue(value)), null);
+    }
+}
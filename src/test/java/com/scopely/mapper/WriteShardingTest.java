@@ -0,0 +1,40 @@
+package com.scopely.mapper;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WriteShardingTest {
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_versionedClassWithoutShardFunction_throws() throws Exception {
+        new WriteSharding(SimpleFreeBuiltVersioned.class, 4);
+    }
+
+    @Test
+    public void constructor_versionedClassWithShardFunction() throws Exception {
+        WriteSharding writeSharding = new WriteSharding(SimpleFreeBuiltVersioned.class, 4, item -> 0);
+        assertThat(writeSharding.getShards()).isEqualTo(4);
+    }
+
+    @Test
+    public void unshard_onlyRemovesShardSuffixes() throws Exception {
+        WriteSharding writeSharding = new WriteSharding(HashAndRange.class, 4);
+
+        assertThat(unshard(writeSharding, "user#3")).isEqualTo("user");
+        assertThat(unshard(writeSharding, "user#a#0")).isEqualTo("user#a");
+        assertThat(unshard(writeSharding, "user#abc")).isEqualTo("user#abc");
+        assertThat(unshard(writeSharding, "user#4")).isEqualTo("user#4");
+        assertThat(unshard(writeSharding, "user#01")).isEqualTo("user#01");
+        assertThat(unshard(writeSharding, "user#")).isEqualTo("user#");
+        assertThat(unshard(writeSharding, "user")).isEqualTo("user");
+    }
+
+    private static String unshard(WriteSharding writeSharding, String hashKey) {
+        Map<String, AttributeValue> item = ImmutableMap.of("hashKey", new AttributeValue(hashKey));
+        return writeSharding.unshard(item).get("hashKey").getS();
+    }
+}